@@ -0,0 +1,42 @@
+package com.bank.api;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Funds reserved on a deposit account, e.g. for a card authorization or a
+ * pending transfer. The amount stays part of the account balance but not of
+ * its available balance until the hold is captured, released or expires.
+ */
+public class AccountHold {
+
+    private final String holdId;
+    private final String accountId;
+    private final BigDecimal amount;
+    private final String reference;
+    private final LocalDateTime createdAt;
+    private final LocalDateTime expiresAt;
+
+    public AccountHold(String holdId, String accountId, BigDecimal amount, String reference,
+                       LocalDateTime createdAt, LocalDateTime expiresAt) {
+        this.holdId = holdId;
+        this.accountId = accountId;
+        this.amount = amount;
+        this.reference = reference;
+        this.createdAt = createdAt;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getHoldId() { return holdId; }
+    public String getAccountId() { return accountId; }
+    public BigDecimal getAmount() { return amount; }
+    public String getReference() { return reference; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+
+    @Override
+    public String toString() {
+        return String.format("AccountHold[ID: %s, Account: %s, Amount: $%s, Expires: %s]",
+            holdId, accountId, amount, expiresAt);
+    }
+}
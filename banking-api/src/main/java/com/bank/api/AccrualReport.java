@@ -0,0 +1,60 @@
+package com.bank.api;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Summary of one interest accrual run for a business date. A run that resumed
+ * from a checkpoint reports only the accounts it processed itself; the totals
+ * for the whole date are in {@link #getTotalAccounts()} and
+ * {@link #getTotalInterest()}.
+ */
+public class AccrualReport {
+
+    private final LocalDate businessDate;
+    private final boolean completed;
+    private final boolean resumed;
+    private final long accountsAccrued;
+    private final BigDecimal interestAccrued;
+    private final long totalAccounts;
+    private final BigDecimal totalInterest;
+    private final int chunks;
+    private final long elapsedMillis;
+
+    public AccrualReport(LocalDate businessDate, boolean completed, boolean resumed, long accountsAccrued,
+                         BigDecimal interestAccrued, long totalAccounts, BigDecimal totalInterest,
+                         int chunks, long elapsedMillis) {
+        this.businessDate = businessDate;
+        this.completed = completed;
+        this.resumed = resumed;
+        this.accountsAccrued = accountsAccrued;
+        this.interestAccrued = interestAccrued;
+        this.totalAccounts = totalAccounts;
+        this.totalInterest = totalInterest;
+        this.chunks = chunks;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public LocalDate getBusinessDate() { return businessDate; }
+    /** True once every account has been accrued for the date, including by an earlier run. */
+    public boolean isCompleted() { return completed; }
+    /** True if this run continued from the checkpoint of an interrupted one. */
+    public boolean isResumed() { return resumed; }
+    public long getAccountsAccrued() { return accountsAccrued; }
+    public BigDecimal getInterestAccrued() { return interestAccrued; }
+    public long getTotalAccounts() { return totalAccounts; }
+    public BigDecimal getTotalInterest() { return totalInterest; }
+    public int getChunks() { return chunks; }
+    public long getElapsedMillis() { return elapsedMillis; }
+
+    public double getAccountsPerSecond() {
+        return elapsedMillis == 0 ? accountsAccrued * 1000.0 : accountsAccrued * 1000.0 / elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Accrual %s: %d accounts, $%s in %d ms (%.0f accounts/s, %d chunks)%s",
+            businessDate, accountsAccrued, interestAccrued.toPlainString(), elapsedMillis, getAccountsPerSecond(),
+            chunks, completed ? "" : ", incomplete");
+    }
+}
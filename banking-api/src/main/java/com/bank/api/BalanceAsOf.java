@@ -0,0 +1,38 @@
+package com.bank.api;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * An account's closing balance on a past date, as recorded by that date's
+ * end-of-day snapshot.
+ */
+public class BalanceAsOf {
+
+    private final String accountId;
+    private final LocalDate date;
+    private final BigDecimal balance;
+    private final LocalDate snapshotDate;
+
+    public BalanceAsOf(String accountId, LocalDate date, BigDecimal balance, LocalDate snapshotDate) {
+        this.accountId = accountId;
+        this.date = date;
+        this.balance = balance;
+        this.snapshotDate = snapshotDate;
+    }
+
+    public String getAccountId() { return accountId; }
+    public LocalDate getDate() { return date; }
+    public BigDecimal getBalance() { return balance; }
+
+    /** The business date of the snapshot the balance was read from. */
+    public LocalDate getSnapshotDate() { return snapshotDate; }
+
+    /** True if the balance was read from the date's own snapshot. */
+    public boolean isFromSnapshot() { return date.equals(snapshotDate); }
+
+    @Override
+    public String toString() {
+        return accountId + " on " + date + ": $" + balance.toPlainString();
+    }
+}
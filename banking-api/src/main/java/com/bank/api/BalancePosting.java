@@ -0,0 +1,42 @@
+package com.bank.api;
+
+import java.math.BigDecimal;
+
+/**
+ * One entry of a batch posting: a credit or debit of a positive amount on a
+ * deposit account, identified by its account ID.
+ */
+public class BalancePosting {
+
+    public enum Direction {
+        CREDIT,
+        DEBIT
+    }
+
+    private final String accountId;
+    private final BigDecimal amount;
+    private final Direction direction;
+
+    public BalancePosting(String accountId, BigDecimal amount, Direction direction) {
+        this.accountId = accountId;
+        this.amount = amount;
+        this.direction = direction;
+    }
+
+    public static BalancePosting credit(String accountId, BigDecimal amount) {
+        return new BalancePosting(accountId, amount, Direction.CREDIT);
+    }
+
+    public static BalancePosting debit(String accountId, BigDecimal amount) {
+        return new BalancePosting(accountId, amount, Direction.DEBIT);
+    }
+
+    public String getAccountId() { return accountId; }
+    public BigDecimal getAmount() { return amount; }
+    public Direction getDirection() { return direction; }
+
+    @Override
+    public String toString() {
+        return direction + " " + amount + " " + accountId;
+    }
+}
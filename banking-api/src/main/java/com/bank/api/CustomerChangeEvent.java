@@ -0,0 +1,40 @@
+package com.bank.api;
+
+/**
+ * Describes one stored change to a customer. The customer is a snapshot taken
+ * after the write, without the password, and is shared by all listeners of the
+ * event, so listeners must not modify it.
+ */
+public final class CustomerChangeEvent {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        IDENTIFICATION_CHANGED
+    }
+
+    private final Type type;
+    private final Customer customer;
+    private final String previousIdentificationNo;
+
+    public CustomerChangeEvent(Type type, Customer customer, String previousIdentificationNo) {
+        this.type = type;
+        this.customer = customer;
+        this.previousIdentificationNo = previousIdentificationNo;
+    }
+
+    public Type getType() { return type; }
+    public Customer getCustomer() { return customer; }
+    public String getCustomerId() { return customer.getId(); }
+
+    /**
+     * The identification number before an {@link Type#IDENTIFICATION_CHANGED} event;
+     * null for other events or when none was registered.
+     */
+    public String getPreviousIdentificationNo() { return previousIdentificationNo; }
+
+    @Override
+    public String toString() {
+        return "CustomerChangeEvent[" + type + ", " + customer.getId() + "]";
+    }
+}
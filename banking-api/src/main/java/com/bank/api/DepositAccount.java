@@ -9,6 +9,7 @@ public class DepositAccount {
     private String customerId;
     private String status; // "Active", "Frozen", "Closed"
     private BigDecimal balance;
+    private BigDecimal heldBalance = BigDecimal.ZERO;
     private LocalDateTime createdAt;
     
     public DepositAccount() {}
@@ -53,6 +54,20 @@ public class DepositAccount {
         this.balance = balance;
     }
     
+    /** Funds reserved by holds; they are still part of the balance. */
+    public BigDecimal getHeldBalance() {
+        return heldBalance;
+    }
+    
+    public void setHeldBalance(BigDecimal heldBalance) {
+        this.heldBalance = heldBalance != null ? heldBalance : BigDecimal.ZERO;
+    }
+    
+    /** What can be withdrawn or transferred: the balance less the held funds. */
+    public BigDecimal getAvailableBalance() {
+        return balance.subtract(heldBalance);
+    }
+    
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
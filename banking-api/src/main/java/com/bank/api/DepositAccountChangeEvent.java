@@ -0,0 +1,33 @@
+package com.bank.api;
+
+/**
+ * Describes one stored change to a deposit account.
+ */
+public final class DepositAccountChangeEvent {
+
+    public enum Type {
+        CLOSED,
+        HOT_SLOTS_CHANGED
+    }
+
+    private final Type type;
+    private final String accountId;
+    private final String customerId;
+
+    public DepositAccountChangeEvent(Type type, String accountId, String customerId) {
+        this.type = type;
+        this.accountId = accountId;
+        this.customerId = customerId;
+    }
+
+    public Type getType() { return type; }
+    public String getAccountId() { return accountId; }
+
+    /** Null when the change was made by account ID alone, e.g. by an operator. */
+    public String getCustomerId() { return customerId; }
+
+    @Override
+    public String toString() {
+        return "DepositAccountChangeEvent[" + type + ", " + accountId + "]";
+    }
+}
@@ -0,0 +1,27 @@
+package com.bank.api;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Reservations against a deposit account's available balance. Like
+ * {@link IDepositAccountLookup} these are trusted calls: the caller must have
+ * authenticated the customer or authorised the payment itself.
+ */
+public interface IAccountHoldService {
+
+    /** Reserves the amount for the given time; null if the account is not Active or too little is available. */
+    AccountHold placeHold(String accountId, BigDecimal amount, String reference, Duration validFor);
+
+    /** Returns the reserved funds to the available balance; false if the hold is gone (released or expired). */
+    boolean releaseHold(String holdId);
+
+    /**
+     * Debits up to the held amount and releases the hold, in one transaction. Returns
+     * the account after the debit, or null if the hold is gone or smaller than the amount.
+     */
+    DepositAccount captureHold(String holdId, BigDecimal amount);
+
+    List<AccountHold> getActiveHolds(String accountId);
+}
@@ -0,0 +1,13 @@
+package com.bank.api;
+
+/**
+ * Counters for the transaction service's cache of customer-to-account-ID lookups.
+ */
+public interface IAccountResolutionMetrics {
+    int getCacheSize();
+    int getCacheCapacity();
+    long getCacheHits();
+    long getCacheMisses();
+    double getCacheHitRatio();
+    long getCacheEvictions();
+}
@@ -7,5 +7,12 @@ public interface ICardService {
     Card updateCardStatus(String identificationNo, String password, UpdateAction action, String pinNumber);
     Card updateCardTransactionLimit(String identificationNo, String password, int newLimit, String pinNumber);
 
+    // Session variants: authenticate with a token from ICustomerService.login instead of the password
+    Card createCard(SessionToken session, String pinNumber);
+    Card getCard(SessionToken session);
+    Card updateCardPin(SessionToken session, String currentPin, String newPin);
+    Card updateCardStatus(SessionToken session, UpdateAction action, String pinNumber);
+    Card updateCardTransactionLimit(SessionToken session, int newLimit, String pinNumber);
+
     enum UpdateAction { ACTIVATE, DEACTIVATE, FREEZE, UNFREEZE }
 }
@@ -0,0 +1,20 @@
+package com.bank.api;
+
+/**
+ * Read-only gauges and counters for the shared JDBC connection pool.
+ */
+public interface IConnectionPoolMetrics {
+    int getActiveConnections();
+    int getIdleConnections();
+    int getTotalConnections();
+    int getMinPoolSize();
+    int getMaxPoolSize();
+    int getThreadsAwaitingConnection();
+    long getConnectionsAcquired();
+    long getConnectionsCreated();
+    long getConnectionsEvicted();
+    long getAcquireTimeouts();
+    long getValidationFailures();
+    long getStatementCacheHits();
+    long getStatementCacheMisses();
+}
@@ -0,0 +1,13 @@
+package com.bank.api;
+
+/**
+ * Counters for the customer service's read-through cache of customer profiles.
+ */
+public interface ICustomerCacheMetrics {
+    int getCacheSize();
+    int getCacheCapacity();
+    long getCacheHits();
+    long getCacheMisses();
+    double getCacheHitRatio();
+    long getCacheEvictions();
+}
@@ -0,0 +1,11 @@
+package com.bank.api;
+
+/**
+ * Whiteboard listener: register an implementation as an OSGi service to be told
+ * when a customer is created or changed, e.g. to drop entries from a cache keyed
+ * by customer ID or identification number. Called synchronously on the writing
+ * thread after the change has been stored.
+ */
+public interface ICustomerChangeListener {
+    void customerChanged(CustomerChangeEvent event);
+}
@@ -5,4 +5,17 @@ public interface ICustomerService {
     Customer updateCustomer(String id, String name, String email);
     Customer getCustomer(String id);
     boolean verifyLogin(String id, String password);
+
+    /**
+     * Verifies the credentials once and opens a session; returns null if they are rejected.
+     */
+    SessionToken login(String id, String password);
+
+    /**
+     * Returns the session's customer, or null if the token is unknown, expired or revoked.
+     * Costs no hashing and no database access.
+     */
+    Customer validateSession(SessionToken token);
+
+    void logout(SessionToken token);
 }
@@ -0,0 +1,11 @@
+package com.bank.api;
+
+/**
+ * Whiteboard listener: register an implementation as an OSGi service to be told
+ * when a deposit account is closed or its settings change, e.g. to drop entries
+ * from a cache of account IDs. Called synchronously on the writing thread after
+ * the change has been stored.
+ */
+public interface IDepositAccountChangeListener {
+    void accountChanged(DepositAccountChangeEvent event);
+}
@@ -0,0 +1,31 @@
+package com.bank.api;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Trusted account lookups for other bundles. No credentials are checked, so callers
+ * must have authenticated the customer themselves (or act on their own authority,
+ * e.g. a batch job); never expose these methods to clients directly.
+ */
+public interface IDepositAccountLookup {
+
+    DepositAccount findByAccountId(String accountId);
+
+    DepositAccount findByCustomerId(String customerId);
+
+    /** Resolves the customer first; the identification-to-account mapping is cached. */
+    DepositAccount findByIdentificationNo(String identificationNo);
+
+    /** Returns the accounts found, keyed by account ID; IDs without an account are left out. */
+    Map<String, DepositAccount> findByAccountIds(Collection<String> accountIds);
+
+    /** Returns the accounts found, keyed by customer ID; customers without an account are left out. */
+    Map<String, DepositAccount> findByCustomerIds(Collection<String> customerIds);
+
+    /**
+     * Tells the deposit service that another bundle has committed balance changes for these
+     * customers' accounts (e.g. a transfer), so the next read of them is not served from memory.
+     */
+    void balancesChanged(Collection<String> customerIds);
+}
@@ -1,6 +1,8 @@
 package com.bank.api;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
 
 public interface IDepositAccountService {
     DepositAccount createDepositAccount(String identificationNo, String profilePassword, BigDecimal initialBalance);
@@ -9,4 +11,45 @@ public interface IDepositAccountService {
     DepositAccount depositFunds(String identificationNo, String profilePassword, BigDecimal amount);
     DepositAccount withdrawFunds(String identificationNo, String profilePassword, BigDecimal amount);
     DepositAccount updateDepositAccountStatus(String identificationNo, String profilePassword, String action);
+
+    // Session variants: authenticate with a token from ICustomerService.login instead of the password
+    DepositAccount createDepositAccount(SessionToken session, BigDecimal initialBalance);
+    DepositAccount getDepositAccount(SessionToken session);
+    DepositAccount closeDepositAccount(SessionToken session);
+    DepositAccount depositFunds(SessionToken session, BigDecimal amount);
+    DepositAccount withdrawFunds(SessionToken session, BigDecimal amount);
+    DepositAccount updateDepositAccountStatus(SessionToken session, String action);
+
+    // Idempotent variants: a retry with the same key returns the first outcome instead of posting again
+    DepositAccount depositFunds(String identificationNo, String profilePassword, BigDecimal amount, String idempotencyKey);
+    DepositAccount withdrawFunds(String identificationNo, String profilePassword, BigDecimal amount, String idempotencyKey);
+    DepositAccount depositFunds(SessionToken session, BigDecimal amount, String idempotencyKey);
+    DepositAccount withdrawFunds(SessionToken session, BigDecimal amount, String idempotencyKey);
+
+    // Closing balance on a past date, from that date's end-of-day snapshot; null if none was taken
+    BalanceAsOf getBalanceAsOf(String identificationNo, String profilePassword, LocalDate date);
+    BalanceAsOf getBalanceAsOf(SessionToken session, LocalDate date);
+
+    /**
+     * Applies many credits and debits without customer credentials, authorised by the
+     * operator credential configured for the deposit service. Postings are applied in
+     * order, in chunks that each commit as one transaction. Returns one result per
+     * posting, or null if the operator credential is rejected.
+     */
+    List<PostingResult> postBatch(String operatorId, String operatorSecret, List<BalancePosting> postings);
+
+    /**
+     * Credits one day of interest at the configured annual rate to every Active account
+     * with a positive balance, authorised like {@link #postBatch}. Each date is accrued
+     * at most once; a run that was interrupted resumes from its last committed chunk.
+     * Returns null if the operator credential is rejected or the run could not start.
+     */
+    AccrualReport accrueInterest(String operatorId, String operatorSecret, LocalDate businessDate);
+
+    /**
+     * Splits a very busy account's balance across sub-ledger slots so that concurrent
+     * transfer credits do not queue on one row; 0 slots turns this off again. Reads
+     * still report the whole balance. Authorised like {@link #postBatch}.
+     */
+    boolean setHotAccountSlots(String operatorId, String operatorSecret, String accountId, int slots);
 }
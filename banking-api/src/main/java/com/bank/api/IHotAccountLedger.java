@@ -0,0 +1,31 @@
+package com.bank.api;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * The deposit bundle's balance slots for hot accounts, for bundles that move money
+ * on their own connection (e.g. transfers). Like {@link IDepositAccountLookup}
+ * these are trusted calls. Each runs on the caller's connection and the caller
+ * commits, so it joins whatever else that transaction does.
+ *
+ * <p>Slots are locked before account rows, and account rows in {@code ACCOUNT_ID}
+ * order; callers holding locks of their own must keep to the same order.
+ */
+public interface IHotAccountLedger {
+
+    /**
+     * Credits one of the account's slots, chosen at random among {@code slots}.
+     * Returns false, leaving nothing changed, if that slot is gone (hot mode was
+     * turned off or shrunk) or the account is not Active.
+     */
+    boolean credit(Connection connection, String accountId, int slots, BigDecimal amount) throws SQLException;
+
+    /**
+     * Moves the account's slots into its row and returns the amount moved. After the
+     * slots, the account's row and the rows of {@code alsoLock} are locked in
+     * {@code ACCOUNT_ID} order, ready for the caller to update.
+     */
+    BigDecimal drain(Connection connection, String accountId, String... alsoLock) throws SQLException;
+}
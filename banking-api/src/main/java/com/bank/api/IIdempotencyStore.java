@@ -0,0 +1,21 @@
+package com.bank.api;
+
+/**
+ * Deduplicates retried operations by a client-supplied idempotency key, so a
+ * request repeated after a timeout returns the original outcome instead of
+ * applying twice.
+ */
+public interface IIdempotencyStore {
+
+    /**
+     * Runs {@code work} at most once per scope and key. The key is claimed and the
+     * outcome stored in the same {@link IUnitOfWork} as the work, so both commit or
+     * neither does; database access inside {@code work} joins that unit. A replay
+     * returns the stored outcome without running the work again. A null outcome
+     * means the operation had no effect: nothing is stored and a retry runs it again.
+     *
+     * @param owner the caller the key belongs to; reusing a key as another owner
+     *              throws {@link IllegalArgumentException}
+     */
+    String executeOnce(String scope, String key, String owner, IUnitOfWork.Work<String> work);
+}
@@ -0,0 +1,29 @@
+package com.bank.api;
+
+import java.util.List;
+
+/**
+ * Statement latency and connection hold-time statistics collected by the
+ * instrumented DataSource.
+ */
+public interface IQueryStatistics {
+
+    /**
+     * Returns per-statement statistics, most total time first.
+     */
+    List<StatementStatistics> getStatementStatistics();
+
+    /**
+     * Time between borrowing a connection from the DataSource and closing it.
+     */
+    LatencyStatistics getConnectionHoldTime();
+
+    long getSlowQueryThresholdMillis();
+
+    long getSlowQueryCount();
+
+    /**
+     * Discards everything collected so far.
+     */
+    void reset();
+}
@@ -12,4 +12,8 @@ public interface ISupportTicketService {
     SupportTicket updateTicketStatus(String ticketId, String staffId, TicketStatus newStatus);
     List<SupportTicket> listTickets();
     SupportTicket getTicket(String ticketId);
+
+    // Session variants: authenticate with a token from ICustomerService.login instead of the password
+    SupportTicket createTicket(SessionToken session, String title, String description);
+    SupportTicket updateTicketDetails(String ticketId, SessionToken session, String title, String description);
 }
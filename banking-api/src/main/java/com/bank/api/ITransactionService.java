@@ -1,12 +1,19 @@
 package com.bank.api;
 
+import com.bank.api.model.SummaryGranularity;
 import com.bank.api.model.Transaction;
+import com.bank.api.model.TransactionPage;
 import com.bank.api.model.TransactionSummary;
+import com.bank.api.model.TransactionSummaryBucket;
 import com.bank.api.model.TransactionType;
+import com.bank.api.model.TransactionView;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface ITransactionService {
 
@@ -24,6 +31,18 @@ public interface ITransactionService {
             String password
     );
 
+    /**
+     * History one page at a time, newest first: pass a null cursor for the first page and
+     * then each page's next cursor. Page sizes are capped at 500. Prefer this to
+     * {@link #getTransactionHistory(String, String)} for long-lived accounts.
+     */
+    TransactionPage getTransactionHistoryPage(
+            String identificationNo,
+            String password,
+            int pageSize,
+            String cursor
+    );
+
     List<Transaction> filterTransactions(
             String identificationNo,
             String password,
@@ -32,6 +51,21 @@ public interface ITransactionService {
             LocalDateTime to
     );
 
+    /**
+     * Pushes the entries {@link #filterTransactions(String, String, TransactionType, LocalDateTime, LocalDateTime)}
+     * would return to the consumer, newest first, without collecting them, so memory stays flat
+     * for any account age. The view is reused for every row. Returns false if the caller cannot
+     * be authenticated or has no account.
+     */
+    boolean streamTransactions(
+            String identificationNo,
+            String password,
+            TransactionType type,
+            LocalDateTime from,
+            LocalDateTime to,
+            Consumer<? super TransactionView> consumer
+    );
+
     TransactionSummary getTransactionSummary(
             String identificationNo,
             String password,
@@ -39,10 +73,90 @@ public interface ITransactionService {
             LocalDateTime to
     );
 
+    /**
+     * Returns one summary per day, week or month from {@code from} to {@code to} (both inclusive,
+     * as calendar dates in {@code zone}; null means the server's zone), oldest first. Buckets with
+     * no entries are included with zero totals. Computed in one pass. Returns an empty list if the
+     * caller cannot be authenticated, has no account, or the range is empty.
+     */
+    List<TransactionSummaryBucket> getTransactionSummarySeries(
+            String identificationNo,
+            String password,
+            LocalDate from,
+            LocalDate to,
+            SummaryGranularity granularity,
+            ZoneId zone
+    );
+
     boolean transfer(
             String fromIdentificationNo,
             String password,
             String toIdentificationNo,
             BigDecimal amount
     );
+
+    // Session variants: authenticate with a token from ICustomerService.login instead of the password
+
+    boolean recordTransaction(
+            SessionToken session,
+            TransactionType type,
+            BigDecimal amount,
+            String note
+    );
+
+    List<Transaction> getTransactionHistory(SessionToken session);
+
+    TransactionPage getTransactionHistoryPage(SessionToken session, int pageSize, String cursor);
+
+    List<Transaction> filterTransactions(
+            SessionToken session,
+            TransactionType type,
+            LocalDateTime from,
+            LocalDateTime to
+    );
+
+    boolean streamTransactions(
+            SessionToken session,
+            TransactionType type,
+            LocalDateTime from,
+            LocalDateTime to,
+            Consumer<? super TransactionView> consumer
+    );
+
+    TransactionSummary getTransactionSummary(
+            SessionToken session,
+            LocalDateTime from,
+            LocalDateTime to
+    );
+
+    List<TransactionSummaryBucket> getTransactionSummarySeries(
+            SessionToken session,
+            LocalDate from,
+            LocalDate to,
+            SummaryGranularity granularity,
+            ZoneId zone
+    );
+
+    boolean transfer(
+            SessionToken session,
+            String toIdentificationNo,
+            BigDecimal amount
+    );
+
+    // Idempotent variants: a retry with the same key reports the first transfer instead of moving money again
+
+    boolean transfer(
+            String fromIdentificationNo,
+            String password,
+            String toIdentificationNo,
+            BigDecimal amount,
+            String idempotencyKey
+    );
+
+    boolean transfer(
+            SessionToken session,
+            String toIdentificationNo,
+            BigDecimal amount,
+            String idempotencyKey
+    );
 }
@@ -0,0 +1,28 @@
+package com.bank.api;
+
+/**
+ * Runs a block of work in one database transaction. While the work runs, every
+ * {@code DataSource.getConnection()} call on the same thread - in any bundle -
+ * returns the same underlying connection, so a cross-service operation commits
+ * once and either fully applies or not at all.
+ *
+ * <p>Nested calls join the outer unit. Inside a unit, {@code commit()} on a
+ * borrowed connection is deferred to the outermost unit and {@code rollback()}
+ * marks the whole unit for rollback.
+ */
+public interface IUnitOfWork {
+
+    /**
+     * Runs {@code work} and commits, or rolls back if it throws. Checked
+     * exceptions are rethrown wrapped in a {@link RuntimeException}.
+     */
+    <T> T execute(Work<T> work);
+
+    /** Whether the current thread is inside a unit of work. */
+    boolean isActive();
+
+    @FunctionalInterface
+    interface Work<T> {
+        T run() throws Exception;
+    }
+}
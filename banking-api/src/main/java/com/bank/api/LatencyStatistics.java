@@ -0,0 +1,40 @@
+package com.bank.api;
+
+/**
+ * Snapshot of a latency histogram. Percentiles are estimated from log-scaled
+ * buckets, so they are upper bounds accurate to within a factor of two.
+ */
+public class LatencyStatistics {
+    private final long count;
+    private final double totalMillis;
+    private final double maxMillis;
+    private final double p50Millis;
+    private final double p95Millis;
+    private final double p99Millis;
+    private final double[] bucketUpperBoundsMillis;
+    private final long[] bucketCounts;
+
+    public LatencyStatistics(long count, double totalMillis, double maxMillis,
+                             double p50Millis, double p95Millis, double p99Millis,
+                             double[] bucketUpperBoundsMillis, long[] bucketCounts) {
+        this.count = count;
+        this.totalMillis = totalMillis;
+        this.maxMillis = maxMillis;
+        this.p50Millis = p50Millis;
+        this.p95Millis = p95Millis;
+        this.p99Millis = p99Millis;
+        this.bucketUpperBoundsMillis = bucketUpperBoundsMillis.clone();
+        this.bucketCounts = bucketCounts.clone();
+    }
+
+    public long getCount() { return count; }
+    public double getTotalMillis() { return totalMillis; }
+    public double getMeanMillis() { return count == 0 ? 0 : totalMillis / count; }
+    public double getMaxMillis() { return maxMillis; }
+    public double getP50Millis() { return p50Millis; }
+    public double getP95Millis() { return p95Millis; }
+    public double getP99Millis() { return p99Millis; }
+    /** Upper bound of each bucket; the last bucket is unbounded and reported as infinity. */
+    public double[] getBucketUpperBoundsMillis() { return bucketUpperBoundsMillis.clone(); }
+    public long[] getBucketCounts() { return bucketCounts.clone(); }
+}
@@ -0,0 +1,39 @@
+package com.bank.api;
+
+/**
+ * Outcome of one {@link BalancePosting} in a batch. Results are returned in the
+ * order the postings were submitted.
+ */
+public class PostingResult {
+
+    public enum Status {
+        APPLIED,
+        /** Missing account ID or direction, or an amount that is not positive. */
+        INVALID,
+        ACCOUNT_NOT_FOUND,
+        ACCOUNT_NOT_ACTIVE,
+        INSUFFICIENT_FUNDS,
+        /** The posting's chunk was rolled back by a database error. */
+        FAILED
+    }
+
+    private final BalancePosting posting;
+    private final Status status;
+    private final String message;
+
+    public PostingResult(BalancePosting posting, Status status, String message) {
+        this.posting = posting;
+        this.status = status;
+        this.message = message;
+    }
+
+    public BalancePosting getPosting() { return posting; }
+    public Status getStatus() { return status; }
+    public String getMessage() { return message; }
+    public boolean isApplied() { return status == Status.APPLIED; }
+
+    @Override
+    public String toString() {
+        return posting + ": " + status + (message != null ? " (" + message + ")" : "");
+    }
+}
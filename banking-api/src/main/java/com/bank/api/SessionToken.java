@@ -0,0 +1,37 @@
+package com.bank.api;
+
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * Opaque bearer token returned by {@link ICustomerService#login}. The value
+ * carries no customer data; it is only meaningful to the issuing service.
+ */
+public final class SessionToken {
+    private final String value;
+    private final Instant expiresAt;
+
+    public SessionToken(String value, Instant expiresAt) {
+        this.value = Objects.requireNonNull(value, "value");
+        this.expiresAt = expiresAt;
+    }
+
+    public String getValue() { return value; }
+    public Instant getExpiresAt() { return expiresAt; }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof SessionToken && value.equals(((SessionToken) o).value);
+    }
+
+    @Override
+    public int hashCode() {
+        return value.hashCode();
+    }
+
+    // Never print the secret itself
+    @Override
+    public String toString() {
+        return "SessionToken[expiresAt=" + expiresAt + "]";
+    }
+}
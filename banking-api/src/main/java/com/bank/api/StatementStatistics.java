@@ -0,0 +1,28 @@
+package com.bank.api;
+
+/**
+ * Aggregated execution statistics for one SQL shape, i.e. the statement text
+ * with literals replaced by {@code ?}.
+ */
+public class StatementStatistics {
+    private final String sql;
+    private final LatencyStatistics latency;
+    private final long failures;
+    private final long rowsReturned;
+    private final long slowExecutions;
+
+    public StatementStatistics(String sql, LatencyStatistics latency, long failures, long rowsReturned, long slowExecutions) {
+        this.sql = sql;
+        this.latency = latency;
+        this.failures = failures;
+        this.rowsReturned = rowsReturned;
+        this.slowExecutions = slowExecutions;
+    }
+
+    public String getSql() { return sql; }
+    public LatencyStatistics getLatency() { return latency; }
+    public long getExecutions() { return latency.getCount(); }
+    public long getFailures() { return failures; }
+    public long getRowsReturned() { return rowsReturned; }
+    public long getSlowExecutions() { return slowExecutions; }
+}
@@ -0,0 +1,36 @@
+package com.bank.api.model;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+
+/** Bucket size for a summary series. Weeks start on Monday. */
+public enum SummaryGranularity {
+    DAY,
+    WEEK,
+    MONTH;
+
+    /** First day of the bucket holding the given date. */
+    public LocalDate bucketStart(LocalDate date) {
+        switch (this) {
+            case WEEK:
+                return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTH:
+                return date.withDayOfMonth(1);
+            default:
+                return date;
+        }
+    }
+
+    /** First day of the bucket after the one starting on the given date. */
+    public LocalDate nextBucket(LocalDate start) {
+        switch (this) {
+            case WEEK:
+                return start.plusWeeks(1);
+            case MONTH:
+                return start.plusMonths(1);
+            default:
+                return start.plusDays(1);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.bank.api.model;
+
+import java.util.List;
+
+/**
+ * One page of an account's transaction history, newest first. Pass
+ * {@link #getNextCursor()} back to get the following page; it is null on the
+ * last one. The cursor marks a position rather than an offset, so a page costs
+ * the same however deep it is and entries added meanwhile do not shift pages.
+ */
+public class TransactionPage {
+
+    private final List<Transaction> transactions;
+    private final String nextCursor;
+
+    public TransactionPage(List<Transaction> transactions, String nextCursor) {
+        this.transactions = List.copyOf(transactions);
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Transaction> getTransactions() {
+        return transactions;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasMore() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,35 @@
+package com.bank.api.model;
+
+import java.time.LocalDate;
+
+/**
+ * Totals for one bucket of a summary series. The first and last bucket are
+ * clipped to the requested range, so their dates may not span a whole week
+ * or month.
+ */
+public class TransactionSummaryBucket {
+
+    private final LocalDate start;
+    private final LocalDate end;
+    private final TransactionSummary summary;
+
+    public TransactionSummaryBucket(LocalDate start, LocalDate end, TransactionSummary summary) {
+        this.start = start;
+        this.end = end;
+        this.summary = summary;
+    }
+
+    /** First day counted, inclusive. */
+    public LocalDate getStart() {
+        return start;
+    }
+
+    /** Last day counted, inclusive. */
+    public LocalDate getEnd() {
+        return end;
+    }
+
+    public TransactionSummary getSummary() {
+        return summary;
+    }
+}
@@ -0,0 +1,28 @@
+package com.bank.api.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Read-only view of one ledger entry while transactions are streamed. The
+ * same view is refilled for every row, so it is only valid during the
+ * callback; use {@link #toTransaction()} to keep an entry.
+ */
+public interface TransactionView {
+
+    String getTransactionId();
+
+    String getAccountId();
+
+    TransactionType getType();
+
+    BigDecimal getAmount();
+
+    String getNote();
+
+    LocalDateTime getCreatedAt();
+
+    default Transaction toTransaction() {
+        return new Transaction(getTransactionId(), getAccountId(), getType(), getAmount(), getNote(), getCreatedAt());
+    }
+}
@@ -1,10 +1,13 @@
 package com.bank.card;
 
 import com.bank.api.Card;
+import com.bank.api.Customer;
 import com.bank.api.ICardService;
 import com.bank.api.ICustomerService;
-import com.bank.api.IDepositAccountService;
+import com.bank.api.IDepositAccountLookup;
+import com.bank.api.IUnitOfWork;
 import com.bank.api.DepositAccount;
+import com.bank.api.SessionToken;
 
 import java.sql.*;
 import java.time.LocalDateTime;
@@ -25,43 +28,122 @@ public class CardServiceImpl implements ICardService {
     private ICustomerService customerService;
 
     @Reference
-    private IDepositAccountService depositAccountService;
+    private IDepositAccountLookup depositAccountLookup;
 
     @Reference
     private DataSource dataSource;
 
+    @Reference
+    private IUnitOfWork unitOfWork;
+
     private static final int DEFAULT_TRANSACTION_LIMIT = 5000;
     private static final int MAX_TRANSACTION_LIMIT = 10000;
     private static final int MIN_TRANSACTION_LIMIT = 100;
 
+    // CARD is created by the persistence bundle's schema migrations
     @Activate
     void activate() {
-        try (Connection connection = dataSource.getConnection()) {
-            initSchema(connection);
-            System.out.println("=== Card Service Activated ===");
-        } catch (Exception e) {
-            throw new IllegalStateException("Failed to initialize CardServiceImpl", e);
-        }
+        System.out.println("=== Card Service Activated ===");
     }
 
-    private void initSchema(Connection connection) throws SQLException {
-        String sql = "CREATE TABLE IF NOT EXISTS CARD ("
-                + "ID VARCHAR(36) PRIMARY KEY, "
-                + "ACCOUNT_ID VARCHAR(36) NOT NULL,"
-                + "CARD_NUMBER VARCHAR(36) NOT NULL UNIQUE, "
-                + "TRANSACTION_LIMIT INT NOT NULL, "
-                + "STATUS VARCHAR(32) NOT NULL DEFAULT 'INACTIVE', "
-                + "PIN_NUMBER VARCHAR(6) NOT NULL, "
-                + "CREATED_AT TIMESTAMP NOT NULL"
-                + ")";
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
-            ps.executeUpdate();
-        }
+    // Each operation reads customer, deposit account and card before writing, across three
+    // bundles; running it as one unit of work shares a single connection and commit.
+    @Override
+    public Card createCard(String identificationNo, String password, String pinNumber) {
+        return unitOfWork.execute(() -> doCreateCard(passwordCaller(identificationNo, password), pinNumber));
     }
 
     @Override
-    public Card createCard(String identificationNo, String password, String pinNumber) {
-        if (isBlank(identificationNo) || isBlank(password) || isBlank(pinNumber)) {
+    public Card getCard(String identificationNo, String password) {
+        return unitOfWork.execute(() -> doGetCard(passwordCaller(identificationNo, password)));
+    }
+
+    @Override
+    public Card updateCardPin(String identificationNo, String password, String currentPin, String newPin) {
+        return unitOfWork.execute(() -> doUpdateCardPin(passwordCaller(identificationNo, password), currentPin, newPin));
+    }
+
+    @Override
+    public Card updateCardStatus(String identificationNo, String password, UpdateAction action, String pinNumber) {
+        return unitOfWork.execute(() -> doUpdateCardStatus(passwordCaller(identificationNo, password), action, pinNumber));
+    }
+
+    @Override
+    public Card updateCardTransactionLimit(String identificationNo, String password, int newLimit, String pinNumber) {
+        return unitOfWork.execute(() -> doUpdateCardTransactionLimit(passwordCaller(identificationNo, password), newLimit, pinNumber));
+    }
+
+    @Override
+    public Card createCard(SessionToken session, String pinNumber) {
+        return unitOfWork.execute(() -> doCreateCard(sessionCaller(session), pinNumber));
+    }
+
+    @Override
+    public Card getCard(SessionToken session) {
+        return unitOfWork.execute(() -> doGetCard(sessionCaller(session)));
+    }
+
+    @Override
+    public Card updateCardPin(SessionToken session, String currentPin, String newPin) {
+        return unitOfWork.execute(() -> doUpdateCardPin(sessionCaller(session), currentPin, newPin));
+    }
+
+    @Override
+    public Card updateCardStatus(SessionToken session, UpdateAction action, String pinNumber) {
+        return unitOfWork.execute(() -> doUpdateCardStatus(sessionCaller(session), action, pinNumber));
+    }
+
+    @Override
+    public Card updateCardTransactionLimit(SessionToken session, int newLimit, String pinNumber) {
+        return unitOfWork.execute(() -> doUpdateCardTransactionLimit(sessionCaller(session), newLimit, pinNumber));
+    }
+
+    // Either an identification number + password pair or a session token; the caller is
+    // authenticated here and the account is then read through the trusted lookup.
+    private interface Caller {
+        boolean isMissing();
+        DepositAccount depositAccount();
+    }
+
+    private Caller passwordCaller(String identificationNo, String password) {
+        return new Caller() {
+            @Override
+            public boolean isMissing() {
+                return isBlank(identificationNo) || isBlank(password);
+            }
+
+            @Override
+            public DepositAccount depositAccount() {
+                if (!customerService.verifyLogin(identificationNo, password)) {
+                    System.out.println("Card operation failed: password is incorrect");
+                    return null;
+                }
+                return depositAccountLookup.findByIdentificationNo(identificationNo);
+            }
+        };
+    }
+
+    private Caller sessionCaller(SessionToken session) {
+        return new Caller() {
+            @Override
+            public boolean isMissing() {
+                return session == null;
+            }
+
+            @Override
+            public DepositAccount depositAccount() {
+                Customer customer = customerService.validateSession(session);
+                if (customer == null) {
+                    System.out.println("Card operation failed: session is invalid or expired");
+                    return null;
+                }
+                return depositAccountLookup.findByCustomerId(customer.getId());
+            }
+        };
+    }
+
+    private Card doCreateCard(Caller caller, String pinNumber) {
+        if (caller.isMissing() || isBlank(pinNumber)) {
             System.out.println("Card creation failed: identificationNo, password and pin are required.");
             return null;
         }
@@ -71,8 +153,8 @@ public class CardServiceImpl implements ICardService {
             return null;
         }
 
-        // Customer credentials verified when getting deposit account
-        DepositAccount acc = getDepositEntity(identificationNo, password);
+        // Caller is authenticated when getting deposit account
+        DepositAccount acc = caller.depositAccount();
         if (acc == null || acc.getAccountId() == null) {
             System.out.println("Card creation failed: deposit account not found.");
             return null;
@@ -113,15 +195,14 @@ public class CardServiceImpl implements ICardService {
         return card;
     }
 
-    @Override
-    public Card getCard(String identificationNo, String password) {
-        if (isBlank(identificationNo) || isBlank(password)) {
+    private Card doGetCard(Caller caller) {
+        if (caller.isMissing()) {
             System.out.println("Card retrieval failed: identificationNo and password are required.");
             return null;
         }
 
-        // Customer credentials verified when getting deposit account
-        DepositAccount acc = getDepositEntity(identificationNo, password);
+        // Caller is authenticated when getting deposit account
+        DepositAccount acc = caller.depositAccount();
         if (acc == null || acc.getAccountId() == null) {
             System.out.println("Card retrieval failed: deposit account not found.");
             return null;
@@ -129,9 +210,8 @@ public class CardServiceImpl implements ICardService {
         return getCardByAccount(acc);
     }
 
-    @Override
-    public Card updateCardPin(String identificationNo, String password, String currentPin, String newPin) {
-        if (isBlank(identificationNo) || isBlank(password) || isBlank(currentPin) || isBlank(newPin)) {
+    private Card doUpdateCardPin(Caller caller, String currentPin, String newPin) {
+        if (caller.isMissing() || isBlank(currentPin) || isBlank(newPin)) {
             System.out.println("Update PIN failed: identificationNo, password, currentPin and newPin are required.");
             return null;
         }
@@ -141,8 +221,8 @@ public class CardServiceImpl implements ICardService {
             return null;
         }
 
-        // Customer credentials verified when getting deposit account
-        DepositAccount acc = getDepositEntity(identificationNo, password);
+        // Caller is authenticated when getting deposit account
+        DepositAccount acc = caller.depositAccount();
         if (acc == null || acc.getAccountId() == null) {
             System.out.println("Update PIN failed: deposit account not found.");
             return null;
@@ -177,15 +257,14 @@ public class CardServiceImpl implements ICardService {
         return card;
     }
 
-    @Override
-    public Card updateCardStatus(String identificationNo, String password, UpdateAction action, String pinNumber) {
-        if (isBlank(identificationNo) || isBlank(password) || action == null || isBlank(pinNumber)) {
+    private Card doUpdateCardStatus(Caller caller, UpdateAction action, String pinNumber) {
+        if (caller.isMissing() || action == null || isBlank(pinNumber)) {
             System.out.println("Update status failed: identificationNo, password, action and pinNumber are required.");
             return null;
         }
 
-        // Customer credentials verified when getting deposit account
-        DepositAccount acc = getDepositEntity(identificationNo, password);
+        // Caller is authenticated when getting deposit account
+        DepositAccount acc = caller.depositAccount();
         if (acc == null || acc.getAccountId() == null) {
             System.out.println("Update status failed: deposit account not found.");
             return null;
@@ -274,15 +353,14 @@ public class CardServiceImpl implements ICardService {
         return card;
     }
 
-    @Override
-    public Card updateCardTransactionLimit(String identificationNo, String password, int newLimit, String pinNumber) {
-        if (isBlank(identificationNo) || isBlank(password) || isBlank(pinNumber)) {
+    private Card doUpdateCardTransactionLimit(Caller caller, int newLimit, String pinNumber) {
+        if (caller.isMissing() || isBlank(pinNumber)) {
             System.out.println("Update limit failed: identificationNo, password, newLimit and pinNumber are required.");
             return null;
         }
 
-        // Customer credentials verified when getting deposit account
-        DepositAccount acc = getDepositEntity(identificationNo, password);
+        // Caller is authenticated when getting deposit account
+        DepositAccount acc = caller.depositAccount();
         if (acc == null || acc.getAccountId() == null) {
             System.out.println("Update limit failed: deposit account not found.");
             return null;
@@ -325,10 +403,6 @@ public class CardServiceImpl implements ICardService {
         return customerService.verifyLogin(identificationNo, password);
     }
 
-    private DepositAccount getDepositEntity(String identificationNo, String password) {
-        return depositAccountService.getDepositAccount(identificationNo, password);
-    }
-
     private boolean isPinValid(String pin) {
         return pin != null && pin.matches("\\d{6}");
     }
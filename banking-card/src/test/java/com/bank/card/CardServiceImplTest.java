@@ -1,6 +1,7 @@
 package com.bank.card;
 
 import com.bank.api.*;
+import com.bank.persistence.TestSchema;
 import org.junit.jupiter.api.*;
 import org.mockito.Mockito;
 
@@ -17,7 +18,8 @@ class CardServiceImplTest {
 
     private CardServiceImpl service;
     private ICustomerService mockCustomerService;
-    private IDepositAccountService mockDepositService;
+    private IDepositAccountLookup mockAccountLookup;
+    private IUnitOfWork mockUnitOfWork;
     private DataSource mockDataSource;
     private Connection testConnection;
 
@@ -34,24 +36,28 @@ class CardServiceImplTest {
         );
 
         mockCustomerService = Mockito.mock(ICustomerService.class);
-        mockDepositService = Mockito.mock(IDepositAccountService.class);
+        mockAccountLookup = Mockito.mock(IDepositAccountLookup.class);
+        mockUnitOfWork = Mockito.mock(IUnitOfWork.class);
+        Mockito.when(mockUnitOfWork.execute(Mockito.any())).thenAnswer(invocation ->
+                invocation.<IUnitOfWork.Work<?>>getArgument(0).run()
+        );
 
         service = new CardServiceImpl();
         injectDependency(service, "dataSource", mockDataSource);
         injectDependency(service, "customerService", mockCustomerService);
-        injectDependency(service, "depositAccountService", mockDepositService);
-
-        // activate to create schema
-        service.activate();
+        injectDependency(service, "depositAccountLookup", mockAccountLookup);
+        injectDependency(service, "unitOfWork", mockUnitOfWork);
 
-        // a connection used for cleanup
+        // a connection used for schema setup and cleanup
         testConnection = DriverManager.getConnection(dbUrl, "sa", "");
+        TestSchema.recreate(testConnection);
+
+        service.activate();
     }
 
     @AfterEach
     void tearDown() throws SQLException {
         if (testConnection != null && !testConnection.isClosed()) {
-            testConnection.createStatement().execute("DROP TABLE IF EXISTS CARD");
             testConnection.close();
         }
     }
@@ -69,7 +75,7 @@ class CardServiceImplTest {
 
         DepositAccount deposit = new DepositAccount("DA123", "CUST1", BigDecimal.ZERO);
         deposit.setStatus("Active");
-        Mockito.when(mockDepositService.getDepositAccount(ID_NO, PASSWORD)).thenReturn(deposit);
+        Mockito.when(mockAccountLookup.findByIdentificationNo(ID_NO)).thenReturn(deposit);
 
         // when trigger card creation
         Card created = service.createCard(ID_NO, PASSWORD, PIN);
@@ -88,7 +94,7 @@ class CardServiceImplTest {
 
         DepositAccount deposit = new DepositAccount("DA123", "CUST1", BigDecimal.ZERO);
         deposit.setStatus("Frozen");
-        Mockito.when(mockDepositService.getDepositAccount(ID_NO, PASSWORD)).thenReturn(deposit);
+        Mockito.when(mockAccountLookup.findByIdentificationNo(ID_NO)).thenReturn(deposit);
 
         // when trigger card creation
         Card result = service.createCard(ID_NO, PASSWORD, PIN);
@@ -103,7 +109,7 @@ class CardServiceImplTest {
         Mockito.when(mockCustomerService.verifyLogin(ID_NO, PASSWORD)).thenReturn(true);
         DepositAccount deposit = new DepositAccount("DA123", "CUST1", BigDecimal.ZERO);
         deposit.setStatus("Active");
-        Mockito.when(mockDepositService.getDepositAccount(ID_NO, PASSWORD)).thenReturn(deposit);
+        Mockito.when(mockAccountLookup.findByIdentificationNo(ID_NO)).thenReturn(deposit);
 
         // when trigger first card creation should succeed
         Card first = service.createCard(ID_NO, PASSWORD, PIN);
@@ -120,7 +126,7 @@ class CardServiceImplTest {
         Mockito.when(mockCustomerService.verifyLogin(ID_NO, PASSWORD)).thenReturn(true);
         DepositAccount deposit = new DepositAccount("DA123", "CUST1", BigDecimal.ZERO);
         deposit.setStatus("Active");
-        Mockito.when(mockDepositService.getDepositAccount(ID_NO, PASSWORD)).thenReturn(deposit);
+        Mockito.when(mockAccountLookup.findByIdentificationNo(ID_NO)).thenReturn(deposit);
 
         // when trigger card creation
         Card result = service.createCard(ID_NO, PASSWORD, "12AB"); // invalid pin
@@ -129,13 +135,34 @@ class CardServiceImplTest {
         assertNull(result, "Expected null for invalid PIN format");
     }
 
+    @Test
+    void sessionVariants_useSessionCustomer() {
+        // given a session the customer service accepts
+        SessionToken session = new SessionToken("session-1", java.time.Instant.MAX);
+        Mockito.when(mockCustomerService.validateSession(session)).thenReturn(new Customer("CUST1", "Alice", "alice@example.com"));
+        DepositAccount deposit = new DepositAccount("DA123", "CUST1", BigDecimal.ZERO);
+        deposit.setStatus("Active");
+        Mockito.when(mockAccountLookup.findByCustomerId("CUST1")).thenReturn(deposit);
+
+        // when creating and fetching the card with the session
+        Card created = service.createCard(session, PIN);
+        Card fetched = service.getCard(session);
+
+        // then no password verification is involved
+        assertNotNull(created);
+        assertEquals(created.getCardNumber(), fetched.getCardNumber());
+        assertNull(service.getCard((SessionToken) null));
+        Mockito.verify(mockCustomerService, Mockito.never()).verifyLogin(Mockito.anyString(), Mockito.anyString());
+        Mockito.verify(mockAccountLookup, Mockito.never()).findByIdentificationNo(Mockito.anyString());
+    }
+
     @Test
     void getCard_success_returnsCard() {
         // given valid get card request
         Mockito.when(mockCustomerService.verifyLogin(ID_NO, PASSWORD)).thenReturn(true);
         DepositAccount deposit = new DepositAccount("DA123", "CUST1", BigDecimal.ZERO);
         deposit.setStatus("Active");
-        Mockito.when(mockDepositService.getDepositAccount(ID_NO, PASSWORD)).thenReturn(deposit);
+        Mockito.when(mockAccountLookup.findByIdentificationNo(ID_NO)).thenReturn(deposit);
 
         Card created = service.createCard(ID_NO, PASSWORD, PIN);
         assertNotNull(created, "Expected card to be created successfully");
@@ -159,6 +186,7 @@ class CardServiceImplTest {
 
         // then expect null result
         assertNull(result, "Expected null for invalid credentials");
+        Mockito.verify(mockAccountLookup, Mockito.never()).findByIdentificationNo(Mockito.anyString());
     }
 
     @Test
@@ -167,7 +195,7 @@ class CardServiceImplTest {
         Mockito.when(mockCustomerService.verifyLogin(ID_NO, PASSWORD)).thenReturn(true);
         DepositAccount deposit = new DepositAccount("DA123", "CUST1", BigDecimal.ZERO);
         deposit.setStatus("Active");
-        Mockito.when(mockDepositService.getDepositAccount(ID_NO, PASSWORD)).thenReturn(deposit);
+        Mockito.when(mockAccountLookup.findByIdentificationNo(ID_NO)).thenReturn(deposit);
 
         // create card then activate before updating PIN
         Card created = service.createCard(ID_NO, PASSWORD, PIN);
@@ -193,7 +221,7 @@ class CardServiceImplTest {
         Mockito.when(mockCustomerService.verifyLogin(ID_NO, PASSWORD)).thenReturn(true);
         DepositAccount deposit = new DepositAccount("DA123", "CUST1", BigDecimal.ZERO);
         deposit.setStatus("Active");
-        Mockito.when(mockDepositService.getDepositAccount(ID_NO, PASSWORD)).thenReturn(deposit);
+        Mockito.when(mockAccountLookup.findByIdentificationNo(ID_NO)).thenReturn(deposit);
 
         Card created = service.createCard(ID_NO, PASSWORD, PIN);
         assertNotNull(created);
@@ -211,7 +239,7 @@ class CardServiceImplTest {
         Mockito.when(mockCustomerService.verifyLogin(ID_NO, PASSWORD)).thenReturn(true);
         DepositAccount deposit = new DepositAccount("DA123", "CUST1", BigDecimal.ZERO);
         deposit.setStatus("Active");
-        Mockito.when(mockDepositService.getDepositAccount(ID_NO, PASSWORD)).thenReturn(deposit);
+        Mockito.when(mockAccountLookup.findByIdentificationNo(ID_NO)).thenReturn(deposit);
 
         // create card without activating
         Card created = service.createCard(ID_NO, PASSWORD, PIN);
@@ -230,7 +258,7 @@ class CardServiceImplTest {
         Mockito.when(mockCustomerService.verifyLogin(ID_NO, PASSWORD)).thenReturn(true);
         DepositAccount deposit = new DepositAccount("DA123", "CUST1", BigDecimal.ZERO);
         deposit.setStatus("Active");
-        Mockito.when(mockDepositService.getDepositAccount(ID_NO, PASSWORD)).thenReturn(deposit);
+        Mockito.when(mockAccountLookup.findByIdentificationNo(ID_NO)).thenReturn(deposit);
 
         Card created = service.createCard(ID_NO, PASSWORD, PIN);
         assertNotNull(created);
@@ -252,7 +280,7 @@ class CardServiceImplTest {
         Mockito.when(mockCustomerService.verifyLogin(ID_NO, PASSWORD)).thenReturn(true);
         DepositAccount deposit = new DepositAccount("DA123", "CUST1", BigDecimal.ZERO);
         deposit.setStatus("Active");
-        Mockito.when(mockDepositService.getDepositAccount(ID_NO, PASSWORD)).thenReturn(deposit);
+        Mockito.when(mockAccountLookup.findByIdentificationNo(ID_NO)).thenReturn(deposit);
 
         Card created = service.createCard(ID_NO, PASSWORD, PIN);
         assertNotNull(created);
@@ -273,7 +301,7 @@ class CardServiceImplTest {
         Mockito.when(mockCustomerService.verifyLogin(ID_NO, PASSWORD)).thenReturn(true);
         DepositAccount deposit = new DepositAccount("DA123", "CUST1", BigDecimal.ZERO);
         deposit.setStatus("Active");
-        Mockito.when(mockDepositService.getDepositAccount(ID_NO, PASSWORD)).thenReturn(deposit);
+        Mockito.when(mockAccountLookup.findByIdentificationNo(ID_NO)).thenReturn(deposit);
 
         // create card without activating
         Card created = service.createCard(ID_NO, PASSWORD, PIN);
@@ -292,7 +320,7 @@ class CardServiceImplTest {
         Mockito.when(mockCustomerService.verifyLogin(ID_NO, PASSWORD)).thenReturn(true);
         DepositAccount deposit = new DepositAccount("DA123", "CUST1", BigDecimal.ZERO);
         deposit.setStatus("Active");
-        Mockito.when(mockDepositService.getDepositAccount(ID_NO, PASSWORD)).thenReturn(deposit);
+        Mockito.when(mockAccountLookup.findByIdentificationNo(ID_NO)).thenReturn(deposit);
 
         Card created = service.createCard(ID_NO, PASSWORD, PIN);
         assertNotNull(created);
@@ -314,7 +342,7 @@ class CardServiceImplTest {
         // create card with deposit Active
         DepositAccount depositActive = new DepositAccount("DA123", "CUST1", BigDecimal.ZERO);
         depositActive.setStatus("Active");
-        Mockito.when(mockDepositService.getDepositAccount(ID_NO, PASSWORD)).thenReturn(depositActive);
+        Mockito.when(mockAccountLookup.findByIdentificationNo(ID_NO)).thenReturn(depositActive);
 
         Card created = service.createCard(ID_NO, PASSWORD, PIN);
         assertNotNull(created);
@@ -322,7 +350,7 @@ class CardServiceImplTest {
         // now simulate deposit being not Active
         DepositAccount depositClosed = new DepositAccount("DA123", "CUST1", BigDecimal.ZERO);
         depositClosed.setStatus("Closed");
-        Mockito.when(mockDepositService.getDepositAccount(ID_NO, PASSWORD)).thenReturn(depositClosed);
+        Mockito.when(mockAccountLookup.findByIdentificationNo(ID_NO)).thenReturn(depositClosed);
 
         // when trigger activation
         Card result = service.updateCardStatus(ID_NO, PASSWORD, ICardService.UpdateAction.ACTIVATE, PIN);
@@ -337,7 +365,7 @@ class CardServiceImplTest {
         Mockito.when(mockCustomerService.verifyLogin(ID_NO, PASSWORD)).thenReturn(true);
         DepositAccount deposit = new DepositAccount("DA123", "CUST1", BigDecimal.ZERO);
         deposit.setStatus("Active");
-        Mockito.when(mockDepositService.getDepositAccount(ID_NO, PASSWORD)).thenReturn(deposit);
+        Mockito.when(mockAccountLookup.findByIdentificationNo(ID_NO)).thenReturn(deposit);
 
         Card created = service.createCard(ID_NO, PASSWORD, PIN);
         assertNotNull(created);
@@ -362,7 +390,7 @@ class CardServiceImplTest {
         // given deposit is Active and card is created
         DepositAccount depositActive = new DepositAccount("DA123", "CUST1", BigDecimal.ZERO);
         depositActive.setStatus("Active");
-        Mockito.when(mockDepositService.getDepositAccount(ID_NO, PASSWORD)).thenReturn(depositActive);
+        Mockito.when(mockAccountLookup.findByIdentificationNo(ID_NO)).thenReturn(depositActive);
 
         Card created = service.createCard(ID_NO, PASSWORD, PIN);
         assertNotNull(created, "Expected card to be created");
@@ -370,7 +398,7 @@ class CardServiceImplTest {
         // when deposit account status changes to Frozen
         DepositAccount depositFrozen = new DepositAccount("DA123", "CUST1", BigDecimal.ZERO);
         depositFrozen.setStatus("Frozen");
-        Mockito.when(mockDepositService.getDepositAccount(ID_NO, PASSWORD)).thenReturn(depositFrozen);
+        Mockito.when(mockAccountLookup.findByIdentificationNo(ID_NO)).thenReturn(depositFrozen);
 
         // then card status should sync to FROZEN
         Card fetched = service.getCard(ID_NO, PASSWORD);
@@ -380,7 +408,7 @@ class CardServiceImplTest {
         // when deposit account status changes to INACTIVE
         DepositAccount depositClosed = new DepositAccount("DA123", "CUST1", BigDecimal.ZERO);
         depositClosed.setStatus("Closed");
-        Mockito.when(mockDepositService.getDepositAccount(ID_NO, PASSWORD)).thenReturn(depositClosed);
+        Mockito.when(mockAccountLookup.findByIdentificationNo(ID_NO)).thenReturn(depositClosed);
 
         // then card status should sync to INACTIVE
         fetched = service.getCard(ID_NO, PASSWORD);
@@ -12,6 +12,7 @@ import org.osgi.util.tracker.ServiceTracker;
 import org.osgi.util.tracker.ServiceTrackerCustomizer;
 
 import com.bank.api.ICustomerService;
+import com.bank.api.IQueryStatistics;
 import com.bank.api.ISupportTicketService;
 import com.bank.api.IDepositAccountService;
 
@@ -25,6 +26,8 @@ public class Activator implements BundleActivator {
     private ServiceTracker<ISupportTicketService, ISupportTicketService> supportServiceTracker;
     private ServiceRegistration<?> cardCommandServiceRegistration;
     private ServiceTracker<ICardService, ICardService> cardServiceTracker;
+    private ServiceRegistration<?> persistenceCommandServiceRegistration;
+    private ServiceTracker<IQueryStatistics, IQueryStatistics> queryStatisticsTracker;
 
     @Override
     public void start(BundleContext context) throws Exception {
@@ -61,6 +64,14 @@ public class Activator implements BundleActivator {
             new CardServiceTrackerCustomizer(context)
         );
         cardServiceTracker.open();
+
+        // Track IQueryStatistics
+        queryStatisticsTracker = new ServiceTracker<>(
+            context,
+            IQueryStatistics.class,
+            new QueryStatisticsTrackerCustomizer(context)
+        );
+        queryStatisticsTracker.open();
     }
 
     @Override
@@ -106,6 +117,16 @@ public class Activator implements BundleActivator {
             cardServiceTracker.close();
             cardServiceTracker = null;
         }
+
+        if (persistenceCommandServiceRegistration != null) {
+            persistenceCommandServiceRegistration.unregister();
+            persistenceCommandServiceRegistration = null;
+        }
+
+        if (queryStatisticsTracker != null) {
+            queryStatisticsTracker.close();
+            queryStatisticsTracker = null;
+        }
     }
 
     /**
@@ -191,7 +212,7 @@ public class Activator implements BundleActivator {
                 Dictionary<String, Object> properties = new Hashtable<>();
                 properties.put("osgi.command.scope", "customer");
                 properties.put("osgi.command.function", new String[] {
-                    "create", "get", "update", "login"
+                    "create", "get", "update", "login", "logout"
                 });
                 customerCommandServiceRegistration = context.registerService(
                     CustomerCommands.class.getName(),
@@ -333,4 +354,60 @@ public class Activator implements BundleActivator {
             context.ungetService(reference);
         }
     }
+
+    /**
+     * Tracks the lifecycle of the query statistics service.
+     */
+    private class QueryStatisticsTrackerCustomizer implements ServiceTrackerCustomizer<IQueryStatistics, IQueryStatistics> {
+
+        private final BundleContext context;
+
+        public QueryStatisticsTrackerCustomizer(BundleContext context) {
+            this.context = context;
+        }
+
+        @Override
+        public IQueryStatistics addingService(ServiceReference<IQueryStatistics> reference) {
+            IQueryStatistics queryStatistics = context.getService(reference);
+
+            if (queryStatistics != null) {
+                System.out.println("Query statistics service detected - Registering Gogo commands...");
+
+                PersistenceCommands commands = new PersistenceCommands(queryStatistics);
+
+                Dictionary<String, Object> properties = new Hashtable<>();
+                properties.put("osgi.command.scope", "db");
+                properties.put("osgi.command.function", new String[] {
+                    "stats", "reset"
+                });
+
+                persistenceCommandServiceRegistration = context.registerService(
+                    PersistenceCommands.class.getName(),
+                    commands,
+                    properties
+                );
+
+                System.out.println("Gogo db commands registered successfully!");
+            }
+
+            return queryStatistics;
+        }
+
+        @Override
+        public void modifiedService(ServiceReference<IQueryStatistics> reference, IQueryStatistics service) {
+            // No action needed on modification
+        }
+
+        @Override
+        public void removedService(ServiceReference<IQueryStatistics> reference, IQueryStatistics service) {
+            System.out.println("Query statistics service removed - Unregistering commands...");
+
+            if (persistenceCommandServiceRegistration != null) {
+                persistenceCommandServiceRegistration.unregister();
+                persistenceCommandServiceRegistration = null;
+            }
+
+            context.ungetService(reference);
+        }
+    }
 }
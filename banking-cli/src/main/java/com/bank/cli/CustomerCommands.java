@@ -2,6 +2,7 @@ package com.bank.cli;
 
 import com.bank.api.Customer;
 import com.bank.api.ICustomerService;
+import com.bank.api.SessionToken;
 
 public class CustomerCommands {
 
@@ -60,28 +61,32 @@ public class CustomerCommands {
     }
 
     /**
-     * Customer login/verify credentials
+     * Customer login: verifies the credentials and opens a session
      * customer:login <idOrIC> <password>
      */
     public String login(String idOrIC, String password) {
         try {
-            java.lang.reflect.Method method = customerService.getClass().getMethod(
-                "verifyLogin", String.class, String.class);
-            boolean success = (boolean) method.invoke(customerService, idOrIC, password);
-            if (success) {
-                return "Login successful for: " + idOrIC;
+            SessionToken token = customerService.login(idOrIC, password);
+            if (token != null) {
+                return "Login successful for: " + idOrIC + " (session: " + token.getValue() + ", expires: " + token.getExpiresAt() + ")";
             } else {
                 return "Login failed for: " + idOrIC;
             }
         } catch (Exception e) {
-            Throwable cause = e.getCause();
-            String msg = (cause != null && cause.getMessage() != null)
-                ? cause.getMessage()
-                : (e.getMessage() != null ? e.getMessage() : e.toString());
+            String msg = e.getMessage() != null ? e.getMessage() : e.toString();
             return "Error during login: " + msg;
         }
     }
 
+    /**
+     * Close a session opened by customer:login
+     * customer:logout <sessionToken>
+     */
+    public String logout(String sessionToken) {
+        customerService.logout(new SessionToken(sessionToken, null));
+        return "Session closed.";
+    }
+
     /**
      * Get customer details by IC
      * customer:get <ic>
@@ -0,0 +1,78 @@
+package com.bank.cli;
+
+import java.util.List;
+
+import com.bank.api.IQueryStatistics;
+import com.bank.api.LatencyStatistics;
+import com.bank.api.StatementStatistics;
+
+/**
+ * Command class for inspecting database statement statistics in the banking CLI.
+ * Scope: db
+ */
+public class PersistenceCommands {
+
+    private static final int DEFAULT_LIMIT = 10;
+
+    private final IQueryStatistics queryStatistics;
+
+    public PersistenceCommands(IQueryStatistics queryStatistics) {
+        this.queryStatistics = queryStatistics;
+    }
+
+    /**
+     * db:stats [limit]
+     * Shows connection hold time and the statements with the most total time.
+     */
+    public String stats(String... args) {
+        int limit = DEFAULT_LIMIT;
+        if (args != null && args.length > 0) {
+            try {
+                limit = Integer.parseInt(args[0]);
+            } catch (NumberFormatException e) {
+                return "Error: limit must be a number. Usage: db:stats [limit]";
+            }
+            if (limit < 0) {
+                return "Error: limit must be zero or more. Usage: db:stats [limit]";
+            }
+        }
+
+        StringBuilder out = new StringBuilder();
+        out.append("Connection hold: ").append(format(queryStatistics.getConnectionHoldTime())).append('\n');
+        out.append(String.format("Slow queries (>= %d ms): %d%n",
+            queryStatistics.getSlowQueryThresholdMillis(), queryStatistics.getSlowQueryCount()));
+
+        List<StatementStatistics> statements = queryStatistics.getStatementStatistics();
+        if (statements.isEmpty()) {
+            return out.append("No statements recorded.").toString();
+        }
+        for (StatementStatistics statement : statements.subList(0, Math.min(limit, statements.size()))) {
+            out.append(String.format("%n%s%n  %s | rows: %d | failures: %d | slow: %d%n",
+                statement.getSql(),
+                format(statement.getLatency()),
+                statement.getRowsReturned(),
+                statement.getFailures(),
+                statement.getSlowExecutions()));
+        }
+        return out.toString();
+    }
+
+    /**
+     * db:reset
+     */
+    public String reset() {
+        queryStatistics.reset();
+        return "Statement statistics cleared.";
+    }
+
+    private String format(LatencyStatistics latency) {
+        return String.format("count: %d | total: %.1f ms | mean: %.3f ms | p50: %.3f ms | p95: %.3f ms | p99: %.3f ms | max: %.3f ms",
+            latency.getCount(),
+            latency.getTotalMillis(),
+            latency.getMeanMillis(),
+            latency.getP50Millis(),
+            latency.getP95Millis(),
+            latency.getP99Millis(),
+            latency.getMaxMillis());
+    }
+}
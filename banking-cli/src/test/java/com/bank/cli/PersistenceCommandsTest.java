@@ -0,0 +1,31 @@
+package com.bank.cli;
+
+import com.bank.api.IQueryStatistics;
+import org.junit.jupiter.api.*;
+import org.mockito.Mockito;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersistenceCommandsTest {
+
+    private IQueryStatistics mockQueryStatistics;
+    private PersistenceCommands commands;
+
+    @BeforeEach
+    void setUp() {
+        mockQueryStatistics = Mockito.mock(IQueryStatistics.class);
+        commands = new PersistenceCommands(mockQueryStatistics);
+    }
+
+    @Test
+    void stats_nonNumericLimitShowsUsage() {
+        assertEquals("Error: limit must be a number. Usage: db:stats [limit]", commands.stats("ten"));
+        Mockito.verifyNoInteractions(mockQueryStatistics);
+    }
+
+    @Test
+    void stats_negativeLimitShowsUsage() {
+        assertEquals("Error: limit must be zero or more. Usage: db:stats [limit]", commands.stats("-1"));
+        Mockito.verifyNoInteractions(mockQueryStatistics);
+    }
+}
@@ -0,0 +1,113 @@
+package com.bank.customer;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Size-bounded LRU cache whose entries also expire a fixed time after they were
+ * written. All operations are synchronized on the cache instance. Lookups count
+ * hits and misses (an expired entry is a miss); capacity evictions are counted
+ * separately from explicit removals.
+ */
+final class BoundedCache<K, V> {
+
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final LongSupplier clock;
+    private final LinkedHashMap<K, Entry<V>> entries;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    BoundedCache(int maxEntries, long ttlMillis) {
+        this(maxEntries, ttlMillis, System::currentTimeMillis);
+    }
+
+    BoundedCache(int maxEntries, long ttlMillis, LongSupplier clock) {
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > BoundedCache.this.maxEntries) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        if (clock.getAsLong() >= entry.expiresAt) {
+            entries.remove(key);
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.value;
+    }
+
+    synchronized void put(K key, V value) {
+        entries.put(key, new Entry<>(value, clock.getAsLong() + ttlMillis));
+    }
+
+    synchronized void remove(K key) {
+        entries.remove(key);
+    }
+
+    /**
+     * Removes every entry whose value matches, e.g. all cached results for one customer.
+     */
+    synchronized void removeValues(Predicate<? super V> predicate) {
+        Iterator<Entry<V>> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            if (predicate.test(iterator.next().value)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    synchronized void clear() {
+        entries.clear();
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    int maxEntries() {
+        return maxEntries;
+    }
+
+    synchronized long hits() {
+        return hits;
+    }
+
+    synchronized long misses() {
+        return misses;
+    }
+
+    synchronized long evictions() {
+        return evictions;
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long expiresAt;
+
+        private Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
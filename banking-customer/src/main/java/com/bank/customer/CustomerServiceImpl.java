@@ -1,38 +1,77 @@
 package com.bank.customer;
 
 import com.bank.api.Customer;
+import com.bank.api.CustomerChangeEvent;
+import com.bank.api.ICustomerCacheMetrics;
+import com.bank.api.ICustomerChangeListener;
 import com.bank.api.ICustomerService;
+import com.bank.api.SessionToken;
+import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
+import java.security.SecureRandom;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
 import javax.sql.DataSource;
-import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.FieldOption;
 import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.component.annotations.ReferencePolicy;
 
-@Component(service = ICustomerService.class, immediate = true)
-public class CustomerServiceImpl implements ICustomerService {
+@Component(service = { ICustomerService.class, ICustomerCacheMetrics.class }, immediate = true)
+public class CustomerServiceImpl implements ICustomerService, ICustomerCacheMetrics {
     // For backward compatibility with tests and other modules
     public Customer createCustomer(String name, String email, String password) {
         return createCustomer(null, name, email, password);
     }
 
+    // CUSTOMER is created by the persistence bundle's schema migrations
     @Reference
     private DataSource dataSource;
 
-    @Activate
-    void activate() {
-        try (Connection connection = dataSource.getConnection()) {
-            initSchema(connection);
-        } catch (Exception e) {
-            throw new IllegalStateException("Failed to initialize CustomerServiceImpl", e);
-        }
-    }
+    // Whiteboard: every registered listener is told about each stored change
+    @Reference(cardinality = ReferenceCardinality.MULTIPLE, policy = ReferencePolicy.DYNAMIC,
+               fieldOption = FieldOption.UPDATE)
+    private final List<ICustomerChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+
+    // Successful verifications, keyed on identifier + salted digest of the secret and
+    // mapped to the customer ID so a password or status change can drop them
+    private static final int CREDENTIAL_CACHE_SIZE = 10_000;
+    private static final long CREDENTIAL_CACHE_TTL_MILLIS = 60_000;
+    private final BoundedCache<String, String> verifiedCredentials =
+        new BoundedCache<>(CREDENTIAL_CACHE_SIZE, CREDENTIAL_CACHE_TTL_MILLIS);
+    private final byte[] credentialSalt = newSalt();
+    // Bumped on every invalidation so a verification racing with it is not cached
+    private long credentialGeneration;
+
+    // Read-through cache of customer rows, keyed by whichever identifier the caller used
+    // (ID or identification number); every write drops the customer's entries. The TTL
+    // only bounds staleness from rows changed outside this service.
+    private static final int CUSTOMER_CACHE_SIZE = 10_000;
+    private static final long CUSTOMER_CACHE_TTL_MILLIS = 5 * 60_000;
+    private final BoundedCache<String, CustomerRecord> customers =
+        new BoundedCache<>(CUSTOMER_CACHE_SIZE, CUSTOMER_CACHE_TTL_MILLIS);
+
+    // Identifiers that matched no customer, so repeated misses (typos, credential stuffing)
+    // skip the database; any write that makes a new identifier resolvable drops them
+    private static final int UNKNOWN_IDENTIFIER_CACHE_SIZE = 10_000;
+    private static final long UNKNOWN_IDENTIFIER_TTL_MILLIS = 30_000;
+    private final BoundedCache<String, Boolean> unknownIdentifiers =
+        new BoundedCache<>(UNKNOWN_IDENTIFIER_CACHE_SIZE, UNKNOWN_IDENTIFIER_TTL_MILLIS);
+    // Both caches are guarded by the customers lock; bumped on every write so a lookup
+    // racing with it does not cache what it read before the write
+    private long customerGeneration;
+
+    private static final long SESSION_TTL_MILLIS = 30 * 60_000;
+    private final SessionRegistry sessions = new SessionRegistry(SESSION_TTL_MILLIS);
 
     // Password validation: at least 8 chars, contains digit, contains letter
     private boolean isPasswordValid(String password) {
@@ -61,6 +100,75 @@ public class CustomerServiceImpl implements ICustomerService {
         return hashPassword(rawPassword).equals(storedHashedPassword);
     }
 
+    private static byte[] newSalt() {
+        byte[] salt = new byte[16];
+        new SecureRandom().nextBytes(salt);
+        return salt;
+    }
+
+    // The cache never holds the plain secret or the unsalted hash stored in CUSTOMER
+    private String credentialKey(String identifier, String password) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            md.update(credentialSalt);
+            byte[] digest = md.digest(password.getBytes(StandardCharsets.UTF_8));
+            return identifier + '\0' + Base64.getEncoder().encodeToString(digest);
+        } catch (Exception e) {
+            throw new RuntimeException("Error hashing credential", e);
+        }
+    }
+
+    // Drops cached verifications and open sessions, e.g. after a password or status change
+    private void invalidateCredentials(String customerId) {
+        synchronized (verifiedCredentials) {
+            credentialGeneration++;
+            verifiedCredentials.removeValues(customerId::equals);
+            sessions.revokeCustomer(customerId);
+        }
+    }
+
+    // Drops everything cached for the customer and for the given identifiers
+    private void evictCustomer(String customerId, String... identifiers) {
+        synchronized (customers) {
+            customerGeneration++;
+            customers.removeValues(record -> record.customer.getId().equals(customerId));
+            for (String identifier : identifiers) {
+                if (identifier != null) {
+                    unknownIdentifiers.remove(identifier);
+                }
+            }
+        }
+    }
+
+    private void publish(CustomerChangeEvent.Type type, Customer customer, String previousIdentificationNo) {
+        if (changeListeners.isEmpty()) {
+            return;
+        }
+        CustomerChangeEvent event = new CustomerChangeEvent(type, snapshot(customer), previousIdentificationNo);
+        for (ICustomerChangeListener listener : changeListeners) {
+            try {
+                listener.customerChanged(event);
+            } catch (RuntimeException e) {
+                System.err.println("Customer change listener failed for " + event + ": " + e.getMessage());
+            }
+        }
+    }
+
+    // Callers get their own copy without the password hash; Customer is mutable
+    static Customer snapshot(Customer customer) {
+        Customer copy = new Customer(customer.getId(), customer.getName(), customer.getEmail());
+        copy.setIdentificationNo(customer.getIdentificationNo());
+        copy.setPhoneNo(customer.getPhoneNo());
+        copy.setAddress(customer.getAddress());
+        copy.setStatus(customer.getStatus());
+        copy.setCreatedAt(customer.getCreatedAt());
+        return copy;
+    }
+
+    private static boolean isUniqueViolation(SQLException e) {
+        return "23505".equals(e.getSQLState());
+    }
+
     @Override
     public Customer createCustomer(String name, String email) {
         return createCustomer(null, name, email, "changeme123"); // default password for demo
@@ -97,14 +205,19 @@ public class CustomerServiceImpl implements ICustomerService {
             ps.setTimestamp(7, Timestamp.valueOf(now));
             ps.executeUpdate();
         } catch (SQLException e) {
+            if (isUniqueViolation(e)) {
+                throw new IllegalArgumentException("Identification number already registered: " + ic);
+            }
             throw new RuntimeException("Error creating customer", e);
         }
+        evictCustomer(id, id, ic);
 
         Customer customer = new Customer(id, name, email);
         customer.setIdentificationNo(ic);
         customer.setPassword(passwordHash);
         customer.setStatus("ACTIVE");
         customer.setCreatedAt(Timestamp.valueOf(now));
+        publish(CustomerChangeEvent.Type.CREATED, customer, null);
         return customer;
     }
 
@@ -113,6 +226,12 @@ public class CustomerServiceImpl implements ICustomerService {
         if (customer == null || customer.getId() == null || customer.getIdentificationNo() == null) {
             return;
         }
+        CustomerRecord current = loadCustomerById(customer.getId());
+        if (current == null) {
+            System.out.println("Register identification failed: Customer not found (" + customer.getId() + ")");
+            return;
+        }
+        String previousIdentificationNo = current.customer.getIdentificationNo();
         String sql = "UPDATE CUSTOMER SET IDENTIFICATION_NO = ? WHERE ID = ?";
         try (Connection connection = dataSource.getConnection();
              PreparedStatement ps = connection.prepareStatement(sql)) {
@@ -120,8 +239,17 @@ public class CustomerServiceImpl implements ICustomerService {
             ps.setString(2, customer.getId());
             ps.executeUpdate();
         } catch (SQLException e) {
+            if (isUniqueViolation(e)) {
+                // The first registration of an identification number keeps it
+                throw new IllegalArgumentException("Identification number already registered: "
+                    + customer.getIdentificationNo());
+            }
             throw new RuntimeException("Error registering identification number", e);
         }
+        evictCustomer(customer.getId(), customer.getIdentificationNo());
+        invalidateCredentials(customer.getId());
+        current.customer.setIdentificationNo(customer.getIdentificationNo());
+        publish(CustomerChangeEvent.Type.IDENTIFICATION_CHANGED, current.customer, previousIdentificationNo);
     }
 
     @Override
@@ -158,6 +286,8 @@ public class CustomerServiceImpl implements ICustomerService {
             }
             record.passwordHash = hashPassword(newPassword);
         }
+        boolean credentialsChanged = (newPassword != null && !newPassword.isEmpty())
+            || (status != null && !status.equalsIgnoreCase(record.customer.getStatus()));
         if (name != null) record.customer.setName(name);
         if (email != null) record.customer.setEmail(email);
         if (status != null) record.customer.setStatus(status);
@@ -174,6 +304,11 @@ public class CustomerServiceImpl implements ICustomerService {
         } catch (SQLException e) {
             throw new RuntimeException("Error updating customer", e);
         }
+        evictCustomer(id);
+        if (credentialsChanged) {
+            invalidateCredentials(id);
+        }
+        publish(CustomerChangeEvent.Type.UPDATED, record.customer, null);
 
         return record.customer;
     }
@@ -183,12 +318,8 @@ public class CustomerServiceImpl implements ICustomerService {
                 if (idOrIdentification == null || idOrIdentification.trim().isEmpty()) {
                     throw new IllegalArgumentException("ID or Identification cannot be null or empty");
                 }
-        CustomerRecord byId = loadCustomerById(idOrIdentification);
-        if (byId != null) {
-            return byId.customer;
-        }
-        CustomerRecord byIdentification = loadCustomerByIdentification(idOrIdentification);
-        return byIdentification == null ? null : byIdentification.customer;
+        CustomerRecord record = resolveCustomer(idOrIdentification);
+        return record == null ? null : snapshot(record.customer);
     }
 
     // Login/verify method
@@ -199,11 +330,17 @@ public class CustomerServiceImpl implements ICustomerService {
                 if (password == null || password.trim().isEmpty()) {
                     throw new IllegalArgumentException("Password cannot be null or empty");
                 }
-        CustomerRecord record = loadCustomerById(idOrIdentificationNo);
-        if (record == null) {
-            record = loadCustomerByIdentification(idOrIdentificationNo);
+        String cacheKey = credentialKey(idOrIdentificationNo, password);
+        long generation;
+        synchronized (verifiedCredentials) {
+            if (verifiedCredentials.get(cacheKey) != null) {
+                System.out.println("Login successful for customer: " + idOrIdentificationNo);
+                return true;
+            }
+            generation = credentialGeneration;
         }
 
+        CustomerRecord record = resolveCustomer(idOrIdentificationNo);
         if (record == null) {
             System.out.println("Login failed: Customer not found (" + idOrIdentificationNo + ")");
             return false;
@@ -214,6 +351,11 @@ public class CustomerServiceImpl implements ICustomerService {
         }
         boolean success = verifyPassword(password, record.passwordHash);
         if (success) {
+            synchronized (verifiedCredentials) {
+                if (generation == credentialGeneration) {
+                    verifiedCredentials.put(cacheKey, record.customer.getId());
+                }
+            }
             System.out.println("Login successful for customer: " + idOrIdentificationNo);
         } else {
             System.out.println("Login failed: Incorrect password for customer: " + idOrIdentificationNo);
@@ -221,35 +363,89 @@ public class CustomerServiceImpl implements ICustomerService {
         return success;
     }
 
-    private void initSchema(Connection connection) throws SQLException {
-        String sql = "CREATE TABLE IF NOT EXISTS CUSTOMER ("
-            + "ID VARCHAR(36) PRIMARY KEY, "
-            + "NAME VARCHAR(255) NOT NULL, "
-            + "EMAIL VARCHAR(255), "
-            + "IDENTIFICATION_NO VARCHAR(255), "
-            + "PASSWORD_HASH VARCHAR(255) NOT NULL, "
-            + "STATUS VARCHAR(32), "
-            + "CREATED_AT TIMESTAMP"
-            + ")";
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
-            ps.executeUpdate();
+    @Override
+    public SessionToken login(String idOrIdentificationNo, String password) {
+        long generation;
+        synchronized (verifiedCredentials) {
+            generation = credentialGeneration;
+        }
+        if (!verifyLogin(idOrIdentificationNo, password)) {
+            return null;
+        }
+        Customer customer = getCustomer(idOrIdentificationNo);
+        if (customer == null) {
+            return null;
+        }
+        synchronized (verifiedCredentials) {
+            if (generation != credentialGeneration) {
+                System.out.println("Login failed: credentials changed during login for customer: " + idOrIdentificationNo);
+                return null;
+            }
+            SessionToken token = sessions.open(customer);
+            System.out.println("Session opened for customer: " + idOrIdentificationNo);
+            return token;
         }
     }
 
+    @Override
+    public Customer validateSession(SessionToken token) {
+        return sessions.validate(token);
+    }
+
+    @Override
+    public void logout(SessionToken token) {
+        sessions.close(token);
+    }
+
+    private static final String CUSTOMER_COLUMNS =
+        "ID, NAME, EMAIL, IDENTIFICATION_NO, PASSWORD_HASH, STATUS, CREATED_AT";
+
+    // Both branches are index lookups (primary key and the unique IDENTIFICATION_NO index);
+    // the ID branch ranks first so a customer ID always wins over an equal identification number
+    private static final String RESOLVE_SQL =
+        "SELECT 0 AS MATCH_RANK, " + CUSTOMER_COLUMNS + " FROM CUSTOMER WHERE ID = ? "
+        + "UNION ALL "
+        + "SELECT 1 AS MATCH_RANK, " + CUSTOMER_COLUMNS + " FROM CUSTOMER WHERE IDENTIFICATION_NO = ? "
+        + "ORDER BY MATCH_RANK FETCH FIRST 1 ROW ONLY";
+
     private CustomerRecord loadCustomerById(String id) {
-        String sql = "SELECT ID, NAME, EMAIL, IDENTIFICATION_NO, PASSWORD_HASH, STATUS, CREATED_AT FROM CUSTOMER WHERE ID = ?";
+        String sql = "SELECT " + CUSTOMER_COLUMNS + " FROM CUSTOMER WHERE ID = ?";
         return loadSingle(sql, id);
     }
 
-    private CustomerRecord loadCustomerByIdentification(String identificationNo) {
-        String sql = "SELECT ID, NAME, EMAIL, IDENTIFICATION_NO, PASSWORD_HASH, STATUS, CREATED_AT FROM CUSTOMER WHERE IDENTIFICATION_NO = ?";
-        return loadSingle(sql, identificationNo);
+    // Resolves a customer ID or identification number through the caches, falling back
+    // to a single round trip. The returned record is shared and must not be modified.
+    private CustomerRecord resolveCustomer(String idOrIdentificationNo) {
+        long generation;
+        synchronized (customers) {
+            CustomerRecord cached = customers.get(idOrIdentificationNo);
+            if (cached != null) {
+                return cached;
+            }
+            if (unknownIdentifiers.get(idOrIdentificationNo) != null) {
+                return null;
+            }
+            generation = customerGeneration;
+        }
+        CustomerRecord record = loadSingle(RESOLVE_SQL, idOrIdentificationNo, idOrIdentificationNo);
+        synchronized (customers) {
+            if (generation == customerGeneration) {
+                if (record != null) {
+                    customers.put(idOrIdentificationNo, record);
+                } else {
+                    unknownIdentifiers.put(idOrIdentificationNo, Boolean.TRUE);
+                }
+            }
+        }
+        return record;
     }
 
-    private CustomerRecord loadSingle(String sql, String key) {
+    private CustomerRecord loadSingle(String sql, String... keys) {
         try (Connection connection = dataSource.getConnection();
                 PreparedStatement ps = connection.prepareStatement(sql)) {
-            ps.setString(1, key);
+            for (int i = 0; i < keys.length; i++) {
+                ps.setString(i + 1, keys[i]);
+            }
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) {
                     Customer customer = new Customer(
@@ -270,6 +466,38 @@ public class CustomerServiceImpl implements ICustomerService {
         return null;
     }
 
+    @Override
+    public int getCacheSize() {
+        return customers.size();
+    }
+
+    @Override
+    public int getCacheCapacity() {
+        return customers.maxEntries();
+    }
+
+    @Override
+    public long getCacheHits() {
+        return customers.hits();
+    }
+
+    @Override
+    public long getCacheMisses() {
+        return customers.misses();
+    }
+
+    @Override
+    public double getCacheHitRatio() {
+        long hits = customers.hits();
+        long lookups = hits + customers.misses();
+        return lookups == 0 ? 0.0 : (double) hits / lookups;
+    }
+
+    @Override
+    public long getCacheEvictions() {
+        return customers.evictions();
+    }
+
     private static final class CustomerRecord {
         private final Customer customer;
         private String passwordHash;
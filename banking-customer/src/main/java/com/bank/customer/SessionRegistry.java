@@ -0,0 +1,115 @@
+package com.bank.customer;
+
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+import com.bank.api.Customer;
+import com.bank.api.SessionToken;
+
+/**
+ * In-memory session table. Tokens are 256 random bits; a session holds a
+ * snapshot of the customer so validation needs no database access. Sessions
+ * expire a fixed time after login and can be revoked per customer.
+ */
+final class SessionRegistry {
+
+    // Expired sessions are removed when touched, and swept on every Nth login
+    private static final int SWEEP_INTERVAL = 256;
+
+    private final long ttlMillis;
+    private final LongSupplier clock;
+    private final SecureRandom random = new SecureRandom();
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final AtomicInteger loginsSinceSweep = new AtomicInteger();
+
+    SessionRegistry(long ttlMillis) {
+        this(ttlMillis, System::currentTimeMillis);
+    }
+
+    SessionRegistry(long ttlMillis, LongSupplier clock) {
+        this.ttlMillis = ttlMillis;
+        this.clock = clock;
+    }
+
+    SessionToken open(Customer customer) {
+        if (loginsSinceSweep.incrementAndGet() >= SWEEP_INTERVAL) {
+            loginsSinceSweep.set(0);
+            sweep();
+        }
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        String value = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        long expiresAt = clock.getAsLong() + ttlMillis;
+        sessions.put(value, new Session(customer, expiresAt));
+        return new SessionToken(value, Instant.ofEpochMilli(expiresAt));
+    }
+
+    Customer validate(SessionToken token) {
+        if (token == null) {
+            return null;
+        }
+        Session session = sessions.get(token.getValue());
+        if (session == null) {
+            return null;
+        }
+        if (clock.getAsLong() >= session.expiresAt) {
+            sessions.remove(token.getValue(), session);
+            return null;
+        }
+        return session.copyCustomer();
+    }
+
+    void close(SessionToken token) {
+        if (token != null) {
+            sessions.remove(token.getValue());
+        }
+    }
+
+    void revokeCustomer(String customerId) {
+        sessions.values().removeIf(session -> session.customerId.equals(customerId));
+    }
+
+    int size() {
+        return sessions.size();
+    }
+
+    private void sweep() {
+        long now = clock.getAsLong();
+        sessions.values().removeIf(session -> now >= session.expiresAt);
+    }
+
+    private static final class Session {
+        private final String customerId;
+        private final String name;
+        private final String email;
+        private final String identificationNo;
+        private final String status;
+        private final Date createdAt;
+        private final long expiresAt;
+
+        private Session(Customer customer, long expiresAt) {
+            this.customerId = customer.getId();
+            this.name = customer.getName();
+            this.email = customer.getEmail();
+            this.identificationNo = customer.getIdentificationNo();
+            this.status = customer.getStatus();
+            this.createdAt = customer.getCreatedAt();
+            this.expiresAt = expiresAt;
+        }
+
+        // Callers get their own copy; Customer is mutable
+        private Customer copyCustomer() {
+            Customer customer = new Customer(customerId, name, email);
+            customer.setIdentificationNo(identificationNo);
+            customer.setStatus(status);
+            customer.setCreatedAt(createdAt);
+            return customer;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.bank.customer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+public class BoundedCacheTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    void entriesExpireAfterTtl() {
+        BoundedCache<String, String> cache = new BoundedCache<>(10, 1_000, now::get);
+        cache.put("k", "v");
+
+        now.set(999);
+        assertEquals("v", cache.get("k"));
+        now.set(1_000);
+        assertNull(cache.get("k"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void leastRecentlyUsedEntryIsEvictedAtCapacity() {
+        BoundedCache<String, String> cache = new BoundedCache<>(2, 1_000, now::get);
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.get("a");
+        cache.put("c", "3");
+
+        assertEquals("1", cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals("3", cache.get("c"));
+        assertEquals(1, cache.evictions());
+        assertEquals(3, cache.hits());
+        assertEquals(1, cache.misses());
+    }
+
+    @Test
+    void removeValuesDropsEveryMatchingEntry() {
+        BoundedCache<String, String> cache = new BoundedCache<>(10, 1_000, now::get);
+        cache.put("id", "customer-1");
+        cache.put("ic", "customer-1");
+        cache.put("other", "customer-2");
+
+        cache.removeValues("customer-1"::equals);
+
+        assertNull(cache.get("id"));
+        assertNull(cache.get("ic"));
+        assertEquals("customer-2", cache.get("other"));
+    }
+}
@@ -3,9 +3,15 @@ package com.bank.customer;
 import static org.junit.jupiter.api.Assertions.*;
 
 import com.bank.api.Customer;
+import com.bank.api.CustomerChangeEvent;
+import com.bank.api.ICustomerChangeListener;
+import com.bank.api.SessionToken;
+import com.bank.persistence.TestSchema;
 import java.lang.reflect.Field;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 import javax.sql.DataSource;
 import org.h2.jdbcx.JdbcDataSource;
 import org.junit.jupiter.api.BeforeEach;
@@ -25,8 +31,7 @@ public class CustomerServiceImplTest {
 
         service = new CustomerServiceImpl();
         injectDataSource(service, dataSource);
-        service.activate(); // create schema before exercising methods
-        clearCustomerTable();
+        createSchema();
     }
 
     private void injectDataSource(CustomerServiceImpl target, DataSource dataSource) throws Exception {
@@ -35,9 +40,9 @@ public class CustomerServiceImplTest {
         field.set(target, dataSource);
     }
 
-    private void clearCustomerTable() throws SQLException {
+    private void createSchema() throws SQLException {
         try (Connection conn = dataSource.getConnection()) {
-            conn.createStatement().executeUpdate("DELETE FROM CUSTOMER");
+            TestSchema.recreate(conn);
         }
     }
 
@@ -118,7 +123,9 @@ public class CustomerServiceImplTest {
 
         Customer customer2 = service.createCustomer("User2", "user2@example.com", "Password2");
         customer2.setIdentificationNo("DUPLICATEIC");
-        service.registerIdentificationNo(customer2);
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> service.registerIdentificationNo(customer2));
+        assertTrue(ex.getMessage().contains("DUPLICATEIC"));
 
         // Should still find the first customer by IC
         Customer found = service.getCustomer("DUPLICATEIC");
@@ -162,7 +169,7 @@ public class CustomerServiceImplTest {
         Customer c2 = service.createCustomer("DupIC2", "dup2@example.com", "Password2");
         c2.setIdentificationNo("DUPIC123");
         // Should not overwrite the first customer
-        service.registerIdentificationNo(c2);
+        assertThrows(IllegalArgumentException.class, () -> service.registerIdentificationNo(c2));
 
         Customer found = service.getCustomer("DUPIC123");
         assertEquals(c1.getId(), found.getId());
@@ -194,4 +201,166 @@ public class CustomerServiceImplTest {
     void getCustomer_nonexistentId_shouldReturnNull() {
         assertNull(service.getCustomer("nonexistent-id"));
     }
+
+    @Test
+    void verifyLogin_cachedAfterSuccess() throws SQLException {
+        Customer c = service.createCustomer("Cached", "cached@example.com", "Password1");
+        assertTrue(service.verifyLogin(c.getId(), "Password1"));
+
+        // A cached verification no longer needs the row
+        deleteCustomerRow(c.getId());
+        assertTrue(service.verifyLogin(c.getId(), "Password1"));
+        assertFalse(service.verifyLogin(c.getId(), "Password2"));
+    }
+
+    @Test
+    void verifyLogin_cacheInvalidatedByPasswordChange() {
+        Customer c = service.createCustomer("Rotate", "rotate@example.com", "Password1");
+        assertTrue(service.verifyLogin(c.getId(), "Password1"));
+
+        service.updateCustomer(c.getId(), null, null, "Password1", "Newpass1", null);
+
+        assertFalse(service.verifyLogin(c.getId(), "Password1"));
+        assertTrue(service.verifyLogin(c.getId(), "Newpass1"));
+    }
+
+    @Test
+    void verifyLogin_cacheInvalidatedByStatusChange() {
+        Customer c = service.createCustomer("Suspend", "suspend@example.com", "Password1");
+        c.setIdentificationNo("SUSPEND1");
+        service.registerIdentificationNo(c);
+        assertTrue(service.verifyLogin("SUSPEND1", "Password1"));
+
+        service.updateCustomer(c.getId(), null, null, null, null, "INACTIVE");
+
+        assertFalse(service.verifyLogin("SUSPEND1", "Password1"));
+    }
+
+    @Test
+    void createCustomer_rejectsRegisteredIdentificationNo() {
+        service.createCustomer("IC123", "First", "first@example.com", "Password1");
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> service.createCustomer("IC123", "Second", "second@example.com", "Password2"));
+        assertTrue(ex.getMessage().contains("IC123"));
+    }
+
+    @Test
+    void getCustomer_unknownIdentifierCachedUntilRegistered() throws SQLException {
+        assertNull(service.getCustomer("IC404"));
+
+        // A row written behind the service's back stays invisible while the miss is cached
+        Customer hidden = service.createCustomer("Hidden", "hidden@example.com", "Password1");
+        try (Connection conn = dataSource.getConnection()) {
+            conn.createStatement().executeUpdate(
+                "UPDATE CUSTOMER SET IDENTIFICATION_NO = 'IC404' WHERE ID = '" + hidden.getId() + "'");
+        }
+        assertNull(service.getCustomer("IC404"));
+        assertFalse(service.verifyLogin("IC404", "Password1"));
+
+        hidden.setIdentificationNo("IC404");
+        service.registerIdentificationNo(hidden);
+        assertEquals(hidden.getId(), service.getCustomer("IC404").getId());
+    }
+
+    @Test
+    void getCustomer_servedFromCacheUntilUpdated() throws SQLException {
+        Customer customer = service.createCustomer("IC777", "Cached", "cached@example.com", "Password1");
+        assertEquals("Cached", service.getCustomer("IC777").getName());
+        long hits = service.getCacheHits();
+
+        // Later reads are served from the cache, even if the row changes behind the service's back
+        try (Connection conn = dataSource.getConnection()) {
+            conn.createStatement().executeUpdate("UPDATE CUSTOMER SET NAME = 'Stale' WHERE ID = '" + customer.getId() + "'");
+        }
+        Customer cached = service.getCustomer("IC777");
+        assertEquals("Cached", cached.getName());
+        assertEquals(hits + 1, service.getCacheHits());
+        assertTrue(service.getCacheHitRatio() > 0.0);
+
+        // Callers get copies, so mutating one does not leak into the cache
+        cached.setName("Mutated");
+        assertEquals("Cached", service.getCustomer("IC777").getName());
+
+        service.updateCustomer(customer.getId(), "Renamed", null);
+        assertEquals("Renamed", service.getCustomer("IC777").getName());
+    }
+
+    @Test
+    void changeListenersReceiveStoredChanges() throws Exception {
+        List<CustomerChangeEvent> events = new ArrayList<>();
+        ICustomerChangeListener failing = event -> { throw new IllegalStateException("listener bug"); };
+        addChangeListener(failing);
+        addChangeListener(events::add);
+
+        Customer customer = service.createCustomer("IC100", "Listener", "listener@example.com", "Password1");
+        service.updateCustomer(customer.getId(), "Listener Two", null);
+        customer.setIdentificationNo("IC200");
+        service.registerIdentificationNo(customer);
+
+        assertEquals(3, events.size());
+        assertEquals(CustomerChangeEvent.Type.CREATED, events.get(0).getType());
+        assertNull(events.get(0).getCustomer().getPassword());
+        assertEquals(CustomerChangeEvent.Type.UPDATED, events.get(1).getType());
+        assertEquals("Listener Two", events.get(1).getCustomer().getName());
+        assertEquals(CustomerChangeEvent.Type.IDENTIFICATION_CHANGED, events.get(2).getType());
+        assertEquals("IC100", events.get(2).getPreviousIdentificationNo());
+        assertEquals("IC200", events.get(2).getCustomer().getIdentificationNo());
+        assertEquals(customer.getId(), events.get(2).getCustomerId());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void addChangeListener(ICustomerChangeListener listener) throws Exception {
+        Field field = CustomerServiceImpl.class.getDeclaredField("changeListeners");
+        field.setAccessible(true);
+        ((List<ICustomerChangeListener>) field.get(service)).add(listener);
+    }
+
+    private void deleteCustomerRow(String id) throws SQLException {
+        try (Connection conn = dataSource.getConnection()) {
+            conn.createStatement().executeUpdate("DELETE FROM CUSTOMER WHERE ID = '" + id + "'");
+        }
+    }
+
+    @Test
+    void login_opensSessionUntilLogout() throws SQLException {
+        Customer c = service.createCustomer("Session", "session@example.com", "Password1");
+        assertNull(service.login(c.getId(), "Password2"));
+
+        SessionToken token = service.login(c.getId(), "Password1");
+        assertNotNull(token);
+
+        // Validation is served from memory
+        deleteCustomerRow(c.getId());
+        Customer resolved = service.validateSession(token);
+        assertNotNull(resolved);
+        assertEquals(c.getId(), resolved.getId());
+
+        service.logout(token);
+        assertNull(service.validateSession(token));
+    }
+
+    @Test
+    void login_sessionsRevokedByPasswordChange() {
+        Customer c = service.createCustomer("Revoke", "revoke@example.com", "Password1");
+        SessionToken token = service.login(c.getId(), "Password1");
+        assertNotNull(service.validateSession(token));
+
+        service.updateCustomer(c.getId(), null, null, "Password1", "Newpass1", null);
+
+        assertNull(service.validateSession(token));
+    }
+
+    @Test
+    void sessionRegistry_expiresSessions() {
+        long[] now = { 0 };
+        SessionRegistry registry = new SessionRegistry(1_000, () -> now[0]);
+        SessionToken token = registry.open(new Customer("c1", "Name", "mail@example.com"));
+
+        now[0] = 999;
+        assertNotNull(registry.validate(token));
+        now[0] = 1_000;
+        assertNull(registry.validate(token));
+        assertEquals(0, registry.size());
+    }
 }
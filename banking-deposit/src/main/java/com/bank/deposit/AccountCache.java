@@ -0,0 +1,190 @@
+package com.bank.deposit;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+import com.bank.api.DepositAccount;
+
+/**
+ * Recently read or written deposit accounts, keyed by customer ID. The database
+ * stays authoritative: every balance change is still one conditional statement,
+ * and the cache only remembers the row that statement returned.
+ *
+ * <p>Each slot carries a version that every write bumps. A reader may only store
+ * what it loaded if no write started meanwhile, and a writer may only store its
+ * result if it was the sole writer, so a slower thread never overwrites a newer
+ * balance with an older one; on any overlap the slot is simply emptied. Bundles
+ * that change balances themselves (transfers) report it once committed, which
+ * empties their slots; the short TTL only backs that up. Debits never rely on
+ * the cache.
+ */
+final class AccountCache {
+
+    private final ConcurrentHashMap<String, Slot> slots = new ConcurrentHashMap<>();
+    private final LongSupplier clock;
+    private volatile long ttlMillis;
+    private volatile int maxEntries;
+
+    AccountCache() {
+        this(System::currentTimeMillis);
+    }
+
+    AccountCache(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    // A TTL of 0 disables the cache
+    void configure(long ttlMillis, int maxEntries) {
+        this.ttlMillis = Math.max(0, ttlMillis);
+        this.maxEntries = Math.max(0, maxEntries);
+        if (!enabled()) {
+            slots.clear();
+        }
+    }
+
+    boolean enabled() {
+        return ttlMillis > 0 && maxEntries > 0;
+    }
+
+    /** Returns a copy of the cached account, or null if it is absent or expired. */
+    DepositAccount get(String customerId) {
+        if (!enabled()) {
+            return null;
+        }
+        Slot slot = slots.get(customerId);
+        if (slot == null) {
+            return null;
+        }
+        synchronized (slot) {
+            if (slot.value == null || clock.getAsLong() >= slot.expiresAt) {
+                slot.value = null;
+                return null;
+            }
+            return copy(slot.value);
+        }
+    }
+
+    /** Starts a database read; pass the ticket and what was loaded to {@link Ticket#complete}. */
+    Ticket beginRead(String customerId) {
+        Slot slot = slotFor(customerId);
+        if (slot == null) {
+            return Ticket.NONE;
+        }
+        synchronized (slot) {
+            return new Ticket(this, slot, slot.version, false);
+        }
+    }
+
+    /** Starts a change to the account row; the ticket must be completed whether or not it succeeded. */
+    Ticket beginWrite(String customerId) {
+        Slot slot = slotFor(customerId);
+        if (slot == null) {
+            return Ticket.NONE;
+        }
+        synchronized (slot) {
+            slot.writers++;
+            slot.version++;
+            return new Ticket(this, slot, slot.version, true);
+        }
+    }
+
+    // Used after a change already committed elsewhere, e.g. a hold: any read that started
+    // before it is not stored, and the next one reloads
+    void invalidate(String customerId) {
+        beginWrite(customerId).complete(null);
+    }
+    
+    // Used after changes that bypass the per-account path, e.g. batch postings
+    void invalidateAll() {
+        slots.clear();
+    }
+
+    int size() {
+        return slots.size();
+    }
+
+    private Slot slotFor(String customerId) {
+        if (!enabled() || customerId == null) {
+            return null;
+        }
+        Slot slot = slots.get(customerId);
+        if (slot != null) {
+            return slot;
+        }
+        if (slots.size() >= maxEntries) {
+            purgeIdle();
+            if (slots.size() >= maxEntries) {
+                return null;
+            }
+        }
+        return slots.computeIfAbsent(customerId, id -> new Slot());
+    }
+
+    // Drops expired slots no thread is writing; a removed slot still held by a ticket is harmless
+    private void purgeIdle() {
+        long now = clock.getAsLong();
+        for (Iterator<Slot> it = slots.values().iterator(); it.hasNext(); ) {
+            Slot slot = it.next();
+            synchronized (slot) {
+                if (slot.writers == 0 && (slot.value == null || now >= slot.expiresAt)) {
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    private void complete(Slot slot, long version, boolean write, DepositAccount account) {
+        synchronized (slot) {
+            if (write) {
+                slot.writers--;
+            }
+            boolean current = slot.version == version && slot.writers == 0;
+            if (current && account != null) {
+                slot.value = copy(account);
+                slot.expiresAt = clock.getAsLong() + ttlMillis;
+            } else if (write) {
+                // The outcome is unknown or raced with another write: reload next time
+                slot.value = null;
+            }
+        }
+    }
+
+    private static DepositAccount copy(DepositAccount account) {
+        DepositAccount copy = new DepositAccount(account.getAccountId(), account.getCustomerId(), account.getBalance());
+        copy.setHeldBalance(account.getHeldBalance());
+        copy.setStatus(account.getStatus());
+        return copy;
+    }
+
+    static final class Ticket {
+
+        static final Ticket NONE = new Ticket(null, null, 0, false);
+
+        private final AccountCache cache;
+        private final Slot slot;
+        private final long version;
+        private final boolean write;
+
+        private Ticket(AccountCache cache, Slot slot, long version, boolean write) {
+            this.cache = cache;
+            this.slot = slot;
+            this.version = version;
+            this.write = write;
+        }
+
+        /** Stores the account if still current; null after a write means the row state is unknown. */
+        void complete(DepositAccount account) {
+            if (slot != null) {
+                cache.complete(slot, version, write, account);
+            }
+        }
+    }
+
+    private static final class Slot {
+        private DepositAccount value;
+        private long expiresAt;
+        private long version;
+        private int writers;
+    }
+}
@@ -0,0 +1,303 @@
+package com.bank.deposit;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import javax.sql.DataSource;
+
+import com.bank.api.AccountHold;
+
+/**
+ * Holds in {@code ACCOUNT_HOLD}, with their running total kept on the account row
+ * in {@code DEPOSIT_ACCOUNT.HELD_BALANCE}. Every debit, in this bundle and in
+ * transfers, checks {@code BALANCE - HELD_BALANCE} in its own conditional
+ * statement, so the available balance costs no extra query and placing a hold
+ * races safely with withdrawals: both update the same row.
+ *
+ * <p>A hold row and the total move together in one transaction. Expired holds
+ * keep their funds reserved until they are swept, which happens periodically
+ * and whenever a debit or a new hold on the account would otherwise fail.
+ */
+final class AccountHoldLedger {
+
+    // ?1 = amount, ?2 = account ID; returns the customer so the cached account can be dropped
+    private static final String RESERVE_SQL =
+        "SELECT CUSTOMER_ID FROM FINAL TABLE (UPDATE DEPOSIT_ACCOUNT SET HELD_BALANCE = HELD_BALANCE + ?1 "
+        + "WHERE ACCOUNT_ID = ?2 AND STATUS = 'Active' AND BALANCE - HELD_BALANCE >= ?1)";
+    private static final String UNRESERVE_SQL =
+        "SELECT CUSTOMER_ID FROM FINAL TABLE (UPDATE DEPOSIT_ACCOUNT SET HELD_BALANCE = HELD_BALANCE - ?1 "
+        + "WHERE ACCOUNT_ID = ?2)";
+    private static final String CAPTURE_SQL =
+        "SELECT CUSTOMER_ID FROM FINAL TABLE (UPDATE DEPOSIT_ACCOUNT SET BALANCE = BALANCE - ?1 "
+        + "WHERE ACCOUNT_ID = ?2 AND STATUS = 'Active' AND BALANCE - HELD_BALANCE >= ?1)";
+    private static final String INSERT_SQL =
+        "INSERT INTO ACCOUNT_HOLD (HOLD_ID, ACCOUNT_ID, AMOUNT, REFERENCE, CREATED_AT, EXPIRES_AT) "
+        + "VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String REMOVE_SQL =
+        "SELECT ACCOUNT_ID, AMOUNT FROM OLD TABLE (DELETE FROM ACCOUNT_HOLD WHERE HOLD_ID = ? AND EXPIRES_AT > ?)";
+    private static final String EXPIRE_ACCOUNT_SQL =
+        "SELECT COALESCE(SUM(AMOUNT), 0) AS EXPIRED FROM OLD TABLE ("
+        + "DELETE FROM ACCOUNT_HOLD WHERE ACCOUNT_ID = ? AND EXPIRES_AT <= ?)";
+    private static final String EXPIRE_ALL_SQL =
+        "SELECT ACCOUNT_ID, SUM(AMOUNT) AS EXPIRED FROM OLD TABLE ("
+        + "DELETE FROM ACCOUNT_HOLD WHERE EXPIRES_AT <= ?) GROUP BY ACCOUNT_ID";
+    private static final String ACTIVE_SQL =
+        "SELECT HOLD_ID, ACCOUNT_ID, AMOUNT, REFERENCE, CREATED_AT, EXPIRES_AT FROM ACCOUNT_HOLD "
+        + "WHERE ACCOUNT_ID = ? AND EXPIRES_AT > ? ORDER BY CREATED_AT, HOLD_ID";
+
+    private final DataSource dataSource;
+    // Told the customer ID of every account whose held balance changed, after commit
+    private final Consumer<String> changed;
+    private ScheduledExecutorService sweeper;
+
+    AccountHoldLedger(DataSource dataSource, Consumer<String> changed) {
+        this.dataSource = dataSource;
+        this.changed = changed;
+    }
+
+    /** Returns the new hold, or null if the account is not Active or too little is available. */
+    AccountHold place(String accountId, BigDecimal amount, String reference, Duration validFor) throws SQLException {
+        LocalDateTime now = LocalDateTime.now();
+        return inTransaction(connection -> {
+            String customerId = update(connection, RESERVE_SQL, accountId, amount);
+            if (customerId == null && makeRoom(connection, accountId, now)) {
+                customerId = update(connection, RESERVE_SQL, accountId, amount);
+            }
+            if (customerId == null) {
+                return null;
+            }
+            AccountHold hold = new AccountHold(UUID.randomUUID().toString(), accountId, amount, reference,
+                now, now.plus(validFor));
+            try (PreparedStatement ps = connection.prepareStatement(INSERT_SQL)) {
+                ps.setString(1, hold.getHoldId());
+                ps.setString(2, accountId);
+                ps.setBigDecimal(3, amount);
+                ps.setString(4, reference);
+                ps.setTimestamp(5, Timestamp.valueOf(hold.getCreatedAt()));
+                ps.setTimestamp(6, Timestamp.valueOf(hold.getExpiresAt()));
+                ps.executeUpdate();
+            }
+            return new Result<>(hold, customerId);
+        });
+    }
+
+    /** Returns the account ID the hold was on, or null if it had already gone. */
+    String release(String holdId) throws SQLException {
+        LocalDateTime now = LocalDateTime.now();
+        return inTransaction(connection -> {
+            Removed removed = remove(connection, holdId, now);
+            if (removed == null) {
+                return null;
+            }
+            return new Result<>(removed.accountId, update(connection, UNRESERVE_SQL, removed.accountId, removed.amount));
+        });
+    }
+
+    /**
+     * Releases the hold and debits the amount, which must not exceed it. Returns the
+     * customer ID of the debited account, or null if nothing changed.
+     */
+    String capture(String holdId, BigDecimal amount) throws SQLException {
+        LocalDateTime now = LocalDateTime.now();
+        return inTransaction(connection -> {
+            Removed removed = remove(connection, holdId, now);
+            if (removed == null || amount.compareTo(removed.amount) > 0) {
+                return null;
+            }
+            update(connection, UNRESERVE_SQL, removed.accountId, removed.amount);
+            String customerId = update(connection, CAPTURE_SQL, removed.accountId, amount);
+            return customerId == null ? null : new Result<>(customerId, customerId);
+        });
+    }
+
+    List<AccountHold> active(String accountId) throws SQLException {
+        List<AccountHold> holds = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement ps = connection.prepareStatement(ACTIVE_SQL)) {
+            ps.setString(1, accountId);
+            ps.setTimestamp(2, Timestamp.valueOf(LocalDateTime.now()));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    holds.add(new AccountHold(
+                        rs.getString("HOLD_ID"),
+                        rs.getString("ACCOUNT_ID"),
+                        rs.getBigDecimal("AMOUNT"),
+                        rs.getString("REFERENCE"),
+                        rs.getTimestamp("CREATED_AT").toLocalDateTime(),
+                        rs.getTimestamp("EXPIRES_AT").toLocalDateTime()));
+                }
+            }
+        }
+        return holds;
+    }
+
+    /**
+     * Frees what a debit on the account could still use: expired holds and a hot account's
+     * slots. The caller commits; returns true if anything was freed.
+     */
+    static boolean makeRoom(Connection connection, String accountId, LocalDateTime now) throws SQLException {
+        BigDecimal expired;
+        try (PreparedStatement ps = connection.prepareStatement(EXPIRE_ACCOUNT_SQL)) {
+            ps.setString(1, accountId);
+            ps.setTimestamp(2, Timestamp.valueOf(now));
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                expired = rs.getBigDecimal("EXPIRED");
+            }
+        }
+        if (expired.signum() != 0) {
+            update(connection, UNRESERVE_SQL, accountId, expired);
+        }
+        return HotAccountLedger.drain(connection, accountId).signum() != 0 || expired.signum() != 0;
+    }
+
+    /** Releases every expired hold in one transaction and returns how many accounts had some. */
+    int sweep() throws SQLException {
+        LocalDateTime now = LocalDateTime.now();
+        Set<String> customers = new LinkedHashSet<>();
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                Map<String, BigDecimal> expired = new LinkedHashMap<>();
+                try (PreparedStatement ps = connection.prepareStatement(EXPIRE_ALL_SQL)) {
+                    ps.setTimestamp(1, Timestamp.valueOf(now));
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            expired.put(rs.getString("ACCOUNT_ID"), rs.getBigDecimal("EXPIRED"));
+                        }
+                    }
+                }
+                for (Map.Entry<String, BigDecimal> entry : expired.entrySet()) {
+                    String customerId = update(connection, UNRESERVE_SQL, entry.getKey(), entry.getValue());
+                    if (customerId != null) {
+                        customers.add(customerId);
+                    }
+                }
+                connection.commit();
+                customers.forEach(changed);
+                return expired.size();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    /** Sweeps expired holds at a fixed interval, replacing any earlier schedule; 0 stops it. */
+    synchronized void schedule(long periodMillis) {
+        stop();
+        if (periodMillis <= 0) {
+            return;
+        }
+        sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "bank-hold-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(() -> {
+            try {
+                sweep();
+            } catch (SQLException e) {
+                System.out.println("Hold expiry sweep failed: " + e.getMessage());
+            }
+        }, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    synchronized void stop() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+            sweeper = null;
+        }
+    }
+
+    private static String update(Connection connection, String sql, String accountId, BigDecimal amount)
+            throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setBigDecimal(1, amount);
+            ps.setString(2, accountId);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getString("CUSTOMER_ID") : null;
+            }
+        }
+    }
+
+    // An expired hold is left for the sweep, which releases it exactly once
+    private static Removed remove(Connection connection, String holdId, LocalDateTime now) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(REMOVE_SQL)) {
+            ps.setString(1, holdId);
+            ps.setTimestamp(2, Timestamp.valueOf(now));
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? new Removed(rs.getString("ACCOUNT_ID"), rs.getBigDecimal("AMOUNT")) : null;
+            }
+        }
+    }
+
+    // Commits if the work returns a result and rolls back otherwise
+    private <T> T inTransaction(Work<T> work) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                Result<T> result = work.run(connection);
+                if (result == null) {
+                    connection.rollback();
+                    return null;
+                }
+                connection.commit();
+                if (result.customerId != null) {
+                    changed.accept(result.customerId);
+                }
+                return result.value;
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    private interface Work<T> {
+        Result<T> run(Connection connection) throws SQLException;
+    }
+
+    private static final class Result<T> {
+        private final T value;
+        private final String customerId;
+
+        private Result(T value, String customerId) {
+            this.value = value;
+            this.customerId = customerId;
+        }
+    }
+
+    private static final class Removed {
+        private final String accountId;
+        private final BigDecimal amount;
+
+        private Removed(String accountId, BigDecimal amount) {
+            this.accountId = accountId;
+            this.amount = amount;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.bank.deposit;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import com.bank.api.BalanceAsOf;
+
+/**
+ * Daily copies of every account balance in {@code BALANCE_SNAPSHOT}, and as-of
+ * queries answered from them. Only the requested date's own snapshot is used:
+ * deposits, withdrawals, batch postings, interest and hold captures move the
+ * balance without writing {@code TRANSACTION}, so the ledger cannot wind a
+ * balance from another day (or the current one) to the requested date.
+ */
+final class BalanceSnapshots {
+
+    // ?1 = business date, ?2 = taken at; a date already snapshotted keeps its first copy
+    private static final String SNAPSHOT_SQL =
+        "INSERT INTO BALANCE_SNAPSHOT (ACCOUNT_ID, BUSINESS_DATE, BALANCE, TAKEN_AT) "
+        + "SELECT A.ACCOUNT_ID, ?1, A.BALANCE + " + HotAccountLedger.SLOT_TOTAL + ", ?2 FROM DEPOSIT_ACCOUNT A WHERE NOT EXISTS ("
+        + "SELECT 1 FROM BALANCE_SNAPSHOT S WHERE S.ACCOUNT_ID = A.ACCOUNT_ID AND S.BUSINESS_DATE = ?1)";
+    private static final String SNAPSHOT_FOR_DATE_SQL =
+        "SELECT BALANCE FROM BALANCE_SNAPSHOT WHERE ACCOUNT_ID = ? AND BUSINESS_DATE = ?";
+
+    private final DataSource dataSource;
+    private ScheduledExecutorService scheduler;
+
+    BalanceSnapshots(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /** Snapshots every account for the date and returns the number of rows written. */
+    int take(LocalDate businessDate) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement ps = connection.prepareStatement(SNAPSHOT_SQL)) {
+            ps.setDate(1, Date.valueOf(businessDate));
+            ps.setTimestamp(2, Timestamp.valueOf(LocalDateTime.now()));
+            return ps.executeUpdate();
+        }
+    }
+
+    /** Returns the closing balance for the date, or null if no snapshot was taken for it. */
+    BalanceAsOf balanceAsOf(String accountId, LocalDate date) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement ps = connection.prepareStatement(SNAPSHOT_FOR_DATE_SQL)) {
+            ps.setString(1, accountId);
+            ps.setDate(2, Date.valueOf(date));
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? new BalanceAsOf(accountId, date, rs.getBigDecimal("BALANCE"), date) : null;
+            }
+        }
+    }
+
+    /** Snapshots the current date every day at the given local time, replacing any earlier schedule. */
+    synchronized void schedule(LocalTime at) {
+        stop();
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "bank-balance-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduleNext(scheduler, at);
+    }
+
+    synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    // Recomputed after every run, so the job stays on local time across DST changes
+    private void scheduleNext(ScheduledExecutorService executor, LocalTime at) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime next = now.toLocalDate().atTime(at);
+        if (!next.isAfter(now)) {
+            next = next.plusDays(1);
+        }
+        LocalDate businessDate = next.toLocalDate();
+        executor.schedule(() -> {
+            try {
+                int rows = take(businessDate);
+                System.out.println("Balance snapshot for " + businessDate + ": " + rows + " accounts");
+            } catch (SQLException e) {
+                System.out.println("Balance snapshot for " + businessDate + " failed: " + e.getMessage());
+            }
+            if (!executor.isShutdown()) {
+                scheduleNext(executor, at);
+            }
+        }, Duration.between(now, next).toMillis(), TimeUnit.MILLISECONDS);
+    }
+}
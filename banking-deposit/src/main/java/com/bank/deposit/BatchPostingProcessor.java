@@ -0,0 +1,171 @@
+package com.bank.deposit;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import com.bank.api.BalancePosting;
+import com.bank.api.PostingResult;
+
+/**
+ * Applies balance postings with JDBC batches, one transaction per chunk. Each
+ * posting is the same conditional statement with a signed amount, so credits
+ * and debits to one account are applied in submission order and a debit never
+ * takes an account below zero. Postings that match no row are classified
+ * afterwards with one status query per chunk.
+ */
+final class BatchPostingProcessor {
+
+    // ?1 = signed amount (negative for debits), ?2 = account ID
+    private static final String POSTING_SQL =
+        "UPDATE DEPOSIT_ACCOUNT SET BALANCE = BALANCE + ?1 "
+        + "WHERE ACCOUNT_ID = ?2 AND STATUS = 'Active' AND (?1 >= 0 OR BALANCE - HELD_BALANCE + ?1 >= 0)";
+    private static final String STATUS_SQL =
+        "SELECT ACCOUNT_ID, STATUS FROM DEPOSIT_ACCOUNT WHERE ACCOUNT_ID = ANY(?)";
+
+    private final DataSource dataSource;
+    private final int chunkSize;
+
+    BatchPostingProcessor(DataSource dataSource, int chunkSize) {
+        this.dataSource = dataSource;
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    List<PostingResult> apply(List<BalancePosting> postings) {
+        PostingResult[] results = new PostingResult[postings.size()];
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                for (int from = 0; from < postings.size(); from += chunkSize) {
+                    int to = Math.min(from + chunkSize, postings.size());
+                    applyChunk(connection, postings, from, to, results);
+                }
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            System.out.println("Batch posting failed: " + e.getMessage());
+            fillUnprocessed(postings, results, "not processed: " + e.getMessage());
+        }
+        return List.of(results);
+    }
+
+    private void applyChunk(Connection connection, List<BalancePosting> postings, int from, int to,
+                            PostingResult[] results) throws SQLException {
+        List<Integer> batched = new ArrayList<>();
+        List<String> debited = new ArrayList<>();
+        try {
+            int[] counts;
+            try (PreparedStatement ps = connection.prepareStatement(POSTING_SQL)) {
+                for (int i = from; i < to; i++) {
+                    BalancePosting posting = postings.get(i);
+                    String problem = validate(posting);
+                    if (problem != null) {
+                        results[i] = new PostingResult(posting, PostingResult.Status.INVALID, problem);
+                        continue;
+                    }
+                    BigDecimal amount = posting.getAmount();
+                    if (posting.getDirection() == BalancePosting.Direction.DEBIT) {
+                        amount = amount.negate();
+                        debited.add(posting.getAccountId());
+                    }
+                    ps.setBigDecimal(1, amount);
+                    ps.setString(2, posting.getAccountId());
+                    ps.addBatch();
+                    batched.add(i);
+                }
+                if (batched.isEmpty()) {
+                    return;
+                }
+                // Debits are checked against the row's available balance, so fold in any hot
+                // account slots first
+                if (!debited.isEmpty()) {
+                    HotAccountLedger.drain(connection, debited.toArray());
+                }
+                counts = ps.executeBatch();
+            }
+
+            List<Integer> unmatched = new ArrayList<>();
+            for (int k = 0; k < batched.size(); k++) {
+                int i = batched.get(k);
+                if (counts[k] > 0 || counts[k] == Statement.SUCCESS_NO_INFO) {
+                    results[i] = new PostingResult(postings.get(i), PostingResult.Status.APPLIED, null);
+                } else {
+                    unmatched.add(i);
+                }
+            }
+            if (!unmatched.isEmpty()) {
+                classify(connection, postings, unmatched, results);
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            // Later chunks still run; this one is reported as a whole
+            connection.rollback();
+            System.out.println("Batch posting chunk rolled back: " + e.getMessage());
+            for (int i : batched) {
+                results[i] = new PostingResult(postings.get(i), PostingResult.Status.FAILED,
+                    "chunk rolled back: " + e.getMessage());
+            }
+        }
+    }
+
+    // A posting that matched no row hit a missing account, an inactive one or too small a balance
+    private void classify(Connection connection, List<BalancePosting> postings, List<Integer> unmatched,
+                          PostingResult[] results) throws SQLException {
+        Object[] accountIds = unmatched.stream().map(i -> postings.get(i).getAccountId()).distinct().toArray();
+        Map<String, String> statuses = new HashMap<>();
+        try (PreparedStatement ps = connection.prepareStatement(STATUS_SQL)) {
+            ps.setArray(1, connection.createArrayOf("VARCHAR", accountIds));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    statuses.put(rs.getString("ACCOUNT_ID"), rs.getString("STATUS"));
+                }
+            }
+        }
+        for (int i : unmatched) {
+            BalancePosting posting = postings.get(i);
+            String status = statuses.get(posting.getAccountId());
+            if (status == null) {
+                results[i] = new PostingResult(posting, PostingResult.Status.ACCOUNT_NOT_FOUND, null);
+            } else if (!"Active".equalsIgnoreCase(status)) {
+                results[i] = new PostingResult(posting, PostingResult.Status.ACCOUNT_NOT_ACTIVE, "status is " + status);
+            } else {
+                results[i] = new PostingResult(posting, PostingResult.Status.INSUFFICIENT_FUNDS, null);
+            }
+        }
+    }
+
+    private static String validate(BalancePosting posting) {
+        if (posting == null) {
+            return "posting is missing";
+        }
+        if (posting.getAccountId() == null || posting.getAccountId().trim().isEmpty()) {
+            return "account ID is required";
+        }
+        if (posting.getDirection() == null) {
+            return "direction is required";
+        }
+        if (posting.getAmount() == null || posting.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
+            return "amount must be greater than zero";
+        }
+        return null;
+    }
+
+    private static void fillUnprocessed(List<BalancePosting> postings, PostingResult[] results, String message) {
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] == null) {
+                results[i] = new PostingResult(postings.get(i), PostingResult.Status.FAILED, message);
+            }
+        }
+    }
+}
@@ -1,27 +1,71 @@
 package com.bank.deposit;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.Lock;
+import java.util.function.UnaryOperator;
 
 import javax.sql.DataSource;
 
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.FieldOption;
+import org.osgi.service.component.annotations.Modified;
 import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.component.annotations.ReferencePolicy;
 
+import com.bank.api.AccountHold;
+import com.bank.api.AccrualReport;
+import com.bank.api.BalanceAsOf;
+import com.bank.api.BalancePosting;
 import com.bank.api.Customer;
 import com.bank.api.DepositAccount;
+import com.bank.api.DepositAccountChangeEvent;
+import com.bank.api.CustomerChangeEvent;
+import com.bank.api.IAccountHoldService;
+import com.bank.api.ICustomerChangeListener;
 import com.bank.api.ICustomerService;
+import com.bank.api.IDepositAccountChangeListener;
+import com.bank.api.IDepositAccountLookup;
 import com.bank.api.IDepositAccountService;
+import com.bank.api.IHotAccountLedger;
+import com.bank.api.IIdempotencyStore;
+import com.bank.api.PostingResult;
+import com.bank.api.SessionToken;
 
-@Component(service = IDepositAccountService.class, immediate = true)
-public class DepositAccountServiceImpl implements IDepositAccountService {
+@Component(
+    service = { IDepositAccountService.class, IDepositAccountLookup.class, IAccountHoldService.class,
+                IHotAccountLedger.class, ICustomerChangeListener.class },
+    immediate = true,
+    configurationPid = DepositAccountServiceImpl.PID
+)
+public class DepositAccountServiceImpl
+        implements IDepositAccountService, IDepositAccountLookup, IAccountHoldService, IHotAccountLedger,
+                   ICustomerChangeListener {
+    
+    static final String PID = "com.bank.deposit";
     
     @Reference
     private ICustomerService customerService;
@@ -29,26 +73,76 @@ public class DepositAccountServiceImpl implements IDepositAccountService {
     @Reference
     private DataSource dataSource;
     
-    @Activate
-    void activate() {
-        try (Connection connection = dataSource.getConnection()) {
-            initSchema(connection);
-            System.out.println("=== Deposit Account Service Activated ===");
-        } catch (Exception e) {
-            throw new IllegalStateException("Failed to initialize DepositAccountServiceImpl", e);
+    @Reference
+    private IIdempotencyStore idempotencyStore;
+    
+    // Whiteboard: every registered listener is told about closures and hot-slot changes
+    @Reference(cardinality = ReferenceCardinality.MULTIPLE, policy = ReferencePolicy.DYNAMIC,
+               fieldOption = FieldOption.UPDATE)
+    private final List<IDepositAccountChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+    
+    // Serializes account creation and status changes per customer (one account each);
+    // balance changes are single conditional statements and, like reads, take no lock
+    private static final int ACCOUNT_LOCK_STRIPES = 256;
+    private final LockStripes accountLocks = new LockStripes(ACCOUNT_LOCK_STRIPES);
+    
+    // Serves account reads from memory; refreshed by this service's own writes
+    private final AccountCache accounts = new AccountCache();
+    
+    // Identification number -> customer ID of a customer that has an account. The account
+    // never changes once created; entries are dropped when the identification number does
+    private static final int IDENTIFICATION_CACHE_SIZE = 10_000;
+    private final LinkedHashMap<String, String> accountHolders = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > IDENTIFICATION_CACHE_SIZE;
         }
+    };
+    // Bumped on every eviction so a lookup that raced with one does not store a stale entry
+    private long accountHoldersGeneration;
+    
+    private volatile DepositConfig config;
+    private BalanceSnapshots snapshots;
+    private HotAccountLedger hotAccounts;
+    private AccountHoldLedger holds;
+    
+    // DEPOSIT_ACCOUNT is created by the persistence bundle's schema migrations
+    @Activate
+    void activate(DepositConfig config) {
+        snapshots = new BalanceSnapshots(dataSource);
+        hotAccounts = new HotAccountLedger(dataSource);
+        holds = new AccountHoldLedger(dataSource, accounts::invalidate);
+        configure(config);
+        System.out.println("=== Deposit Account Service Activated ===");
     }
     
-    private void initSchema(Connection connection) throws SQLException {
-        String sql = "CREATE TABLE IF NOT EXISTS DEPOSIT_ACCOUNT ("
-            + "ACCOUNT_ID VARCHAR(36) PRIMARY KEY, "
-            + "CUSTOMER_ID VARCHAR(255) NOT NULL, "
-            + "BALANCE DECIMAL(19, 2) NOT NULL DEFAULT 0.00, "
-            + "STATUS VARCHAR(32) NOT NULL DEFAULT 'Active', "
-            + "CREATED_AT TIMESTAMP NOT NULL"
-            + ")";
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
-            ps.executeUpdate();
+    @Modified
+    void modified(DepositConfig config) {
+        configure(config);
+    }
+    
+    @Deactivate
+    void deactivate() {
+        snapshots.stop();
+        hotAccounts.stop();
+        holds.stop();
+    }
+    
+    private void configure(DepositConfig config) {
+        this.config = config;
+        accounts.configure(config.account_cache_ttl_ms(), config.account_cache_size());
+        hotAccounts.schedule(config.hot_account_consolidation_ms());
+        holds.schedule(config.hold_expiry_sweep_ms());
+        String snapshotTime = config.balance_snapshot_time();
+        if (snapshotTime == null || snapshotTime.trim().isEmpty()) {
+            snapshots.stop();
+            return;
+        }
+        try {
+            snapshots.schedule(LocalTime.parse(snapshotTime.trim()));
+        } catch (DateTimeParseException e) {
+            snapshots.stop();
+            System.out.println("Balance snapshots disabled: invalid time " + snapshotTime);
         }
     }
     
@@ -57,11 +151,51 @@ public class DepositAccountServiceImpl implements IDepositAccountService {
         if (customer == null) {
             return null;
         }
-        
-        String sql = "SELECT ACCOUNT_ID, CUSTOMER_ID, BALANCE, STATUS, CREATED_AT FROM DEPOSIT_ACCOUNT WHERE CUSTOMER_ID = ?";
+        return getAccountByCustomerId(customer.getId());
+    }
+    
+    // Reads the customer's account and applies the change under that customer's lock stripe
+    private DepositAccount updateLocked(Customer customer, UnaryOperator<DepositAccount> change) {
+        if (customer == null) {
+            return change.apply(null);
+        }
+        Lock lock = accountLocks.lockFor(customer.getId());
+        lock.lock();
+        try {
+            return writeThrough(customer, change);
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    // Applies a change to the customer's account row and caches the row it leaves behind
+    private DepositAccount writeThrough(Customer customer, UnaryOperator<DepositAccount> change) {
+        AccountCache.Ticket ticket = accounts.beginWrite(customer.getId());
+        DepositAccount result = null;
+        try {
+            result = change.apply(getAccountByCustomerId(customer.getId()));
+            return result;
+        } finally {
+            ticket.complete(result);
+        }
+    }
+    
+    private DepositAccount getAccountByCustomerId(String customerId) {
+        DepositAccount cached = accounts.get(customerId);
+        if (cached != null) {
+            return cached;
+        }
+        AccountCache.Ticket ticket = accounts.beginRead(customerId);
+        DepositAccount account = loadAccount(customerId);
+        ticket.complete(account);
+        return account;
+    }
+    
+    private DepositAccount loadAccount(String customerId) {
+        String sql = ACCOUNT_SQL + "WHERE A.CUSTOMER_ID = ?";
         try (Connection connection = dataSource.getConnection();
              PreparedStatement ps = connection.prepareStatement(sql)) {
-            ps.setString(1, customer.getId());
+            ps.setString(1, customerId);
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) {
                     return mapAccount(rs);
@@ -73,19 +207,88 @@ public class DepositAccountServiceImpl implements IDepositAccountService {
         return null;
     }
     
+    // Each change is one statement that checks the account state, applies the delta in the
+    // database and returns the new balance, so it stays correct when other bundles update
+    // the same row (e.g. transfers) and needs no read-modify-write in Java. The returned
+    // balance includes a hot account's sub-ledger slots; debits leave held funds alone.
+    // Both take ?1 = amount, ?2 = account ID.
+    private static final String CREDIT_SQL =
+        "SELECT A.BALANCE + " + HotAccountLedger.SLOT_TOTAL + " AS BALANCE FROM FINAL TABLE ("
+        + "UPDATE DEPOSIT_ACCOUNT SET BALANCE = BALANCE + ?1 WHERE ACCOUNT_ID = ?2 AND STATUS = 'Active') A";
+    private static final String DEBIT_SQL =
+        "SELECT A.BALANCE + " + HotAccountLedger.SLOT_TOTAL + " AS BALANCE FROM FINAL TABLE ("
+        + "UPDATE DEPOSIT_ACCOUNT SET BALANCE = BALANCE - ?1 WHERE ACCOUNT_ID = ?2 AND STATUS = 'Active' AND BALANCE - HELD_BALANCE >= ?1) A";
+    
+    private static final String ACCOUNT_SQL =
+        "SELECT A.ACCOUNT_ID, A.CUSTOMER_ID, A.BALANCE + " + HotAccountLedger.SLOT_TOTAL + " AS BALANCE, "
+        + "A.HELD_BALANCE, A.STATUS, A.CREATED_AT FROM DEPOSIT_ACCOUNT A ";
+    
+    // Returns the balance after the change, or null if the account no longer qualified
+    private BigDecimal applyBalanceChange(String sql, String accountId, BigDecimal amount) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            return applyBalanceChange(connection, sql, accountId, amount);
+        }
+    }
+    
+    private static BigDecimal applyBalanceChange(Connection connection, String sql, String accountId, BigDecimal amount)
+            throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setBigDecimal(1, amount);
+            ps.setString(2, accountId);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getBigDecimal("BALANCE") : null;
+            }
+        }
+    }
+    
+    // A debit the row does not cover may still fit once expired holds are released and a hot
+    // account's slots are folded into the row; both happen with the retry, in one transaction
+    private BigDecimal applyDebit(String accountId, BigDecimal amount) throws SQLException {
+        BigDecimal balance = applyBalanceChange(DEBIT_SQL, accountId, amount);
+        if (balance != null) {
+            return balance;
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                if (AccountHoldLedger.makeRoom(connection, accountId, LocalDateTime.now())) {
+                    balance = applyBalanceChange(connection, DEBIT_SQL, accountId, amount);
+                }
+                connection.commit();
+                return balance;
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+    }
+    
     private DepositAccount mapAccount(ResultSet rs) throws SQLException {
         DepositAccount account = new DepositAccount(
             rs.getString("ACCOUNT_ID"),
             rs.getString("CUSTOMER_ID"),
             rs.getBigDecimal("BALANCE")
         );
+        account.setHeldBalance(rs.getBigDecimal("HELD_BALANCE"));
         account.setStatus(rs.getString("STATUS"));
         return account;
     }
     
+    // Token variants skip verifyLogin and the customer lookup: the session already holds the customer
+    private Customer sessionCustomer(SessionToken session, String failure) {
+        Customer customer = session == null ? null : customerService.validateSession(session);
+        if (customer == null) {
+            System.out.println(failure + ": session is invalid or expired");
+        }
+        return customer;
+    }
+    
     // Creates a new deposit account
     @Override
-    public synchronized DepositAccount createDepositAccount(String identificationNo, String profilePassword, BigDecimal initialBalance) {
+    public DepositAccount createDepositAccount(String identificationNo, String profilePassword, BigDecimal initialBalance) {
         if (identificationNo == null || identificationNo.trim().isEmpty()) {
             System.out.println("Deposit account creation failed: Identification number is required");
             return null;
@@ -106,9 +309,17 @@ public class DepositAccountServiceImpl implements IDepositAccountService {
             System.out.println("Deposit account creation failed: Customer not found");
             return null;
         }
-        
+        return updateLocked(customer, existing -> openAccount(customer, existing, initialBalance));
+    }
+    
+    @Override
+    public DepositAccount createDepositAccount(SessionToken session, BigDecimal initialBalance) {
+        Customer customer = sessionCustomer(session, "Deposit account creation failed");
+        return customer == null ? null : updateLocked(customer, existing -> openAccount(customer, existing, initialBalance));
+    }
+    
+    private DepositAccount openAccount(Customer customer, DepositAccount existingAccount, BigDecimal initialBalance) {
         // Check if customer already has a deposit account
-        DepositAccount existingAccount = getAccountByIdentificationNo(identificationNo);
         if (existingAccount != null) {
             System.out.println("Deposit account creation failed: deposit account already exists");
             return null;
@@ -136,12 +347,12 @@ public class DepositAccountServiceImpl implements IDepositAccountService {
         }
         
         System.out.println("Deposit account created successfully: " + accountId);
-        return getAccountByIdentificationNo(identificationNo);
+        return getAccountByCustomerId(customer.getId());
     }
     
     // Retrieves deposit account details
     @Override
-    public synchronized DepositAccount getDepositAccount(String identificationNo, String profilePassword) {
+    public DepositAccount getDepositAccount(String identificationNo, String profilePassword) {
         if (identificationNo == null || identificationNo.trim().isEmpty()) {
             System.out.println("Get deposit account failed: Identification number is required");
             return null;
@@ -156,7 +367,16 @@ public class DepositAccountServiceImpl implements IDepositAccountService {
             System.out.println("Get deposit account failed: password is incorrect");
             return null;
         }
-        DepositAccount account = getAccountByIdentificationNo(identificationNo);
+        return findAccount(getAccountByIdentificationNo(identificationNo));
+    }
+    
+    @Override
+    public DepositAccount getDepositAccount(SessionToken session) {
+        Customer customer = sessionCustomer(session, "Get deposit account failed");
+        return customer == null ? null : findAccount(getAccountByCustomerId(customer.getId()));
+    }
+    
+    private DepositAccount findAccount(DepositAccount account) {
         if (account == null) {
             System.out.println("Get deposit account failed: no deposit account is found");
             return null;
@@ -166,7 +386,7 @@ public class DepositAccountServiceImpl implements IDepositAccountService {
     
     // Closes existing deposit account
     @Override
-    public synchronized DepositAccount closeDepositAccount(String identificationNo, String profilePassword) {
+    public DepositAccount closeDepositAccount(String identificationNo, String profilePassword) {
         if (identificationNo == null || identificationNo.trim().isEmpty()) {
             System.out.println("Account closure failed: Identification number is required");
             return null;
@@ -181,9 +401,17 @@ public class DepositAccountServiceImpl implements IDepositAccountService {
             System.out.println("Account closure failed: password is incorrect");
             return null;
         }
-        
+        return updateLocked(customerService.getCustomer(identificationNo), this::closeAccount);
+    }
+    
+    @Override
+    public DepositAccount closeDepositAccount(SessionToken session) {
+        Customer customer = sessionCustomer(session, "Account closure failed");
+        return customer == null ? null : updateLocked(customer, this::closeAccount);
+    }
+    
+    private DepositAccount closeAccount(DepositAccount account) {
         //Check if deposit account exists
-        DepositAccount account = getAccountByIdentificationNo(identificationNo);
         if (account == null) {
             System.out.println("Account closure failed: no deposit account is found");
             return null;
@@ -203,12 +431,32 @@ public class DepositAccountServiceImpl implements IDepositAccountService {
         
         System.out.println("Deposit account closed: " + account.getAccountId());
         account.setStatus("Closed");
+        publish(DepositAccountChangeEvent.Type.CLOSED, account.getAccountId(), account.getCustomerId());
         return account;
     }
     
+    private void publish(DepositAccountChangeEvent.Type type, String accountId, String customerId) {
+        if (changeListeners.isEmpty()) {
+            return;
+        }
+        DepositAccountChangeEvent event = new DepositAccountChangeEvent(type, accountId, customerId);
+        for (IDepositAccountChangeListener listener : changeListeners) {
+            try {
+                listener.accountChanged(event);
+            } catch (RuntimeException e) {
+                System.err.println("Deposit account change listener failed for " + event + ": " + e.getMessage());
+            }
+        }
+    }
+    
     // Deposits funds
     @Override
-    public synchronized DepositAccount depositFunds(String identificationNo, String profilePassword, BigDecimal amount) {
+    public DepositAccount depositFunds(String identificationNo, String profilePassword, BigDecimal amount) {
+        return depositFunds(identificationNo, profilePassword, amount, null);
+    }
+    
+    @Override
+    public DepositAccount depositFunds(String identificationNo, String profilePassword, BigDecimal amount, String idempotencyKey) {
         if (identificationNo == null || identificationNo.trim().isEmpty()) {
             System.out.println("Deposit failed: Identification number is required");
             return null;
@@ -228,9 +476,28 @@ public class DepositAccountServiceImpl implements IDepositAccountService {
             System.out.println("Deposit failed: password is incorrect");
             return null;
         }
-        
+        return applyChange("DEPOSIT", idempotencyKey, "Deposit failed", customerService.getCustomer(identificationNo),
+            account -> credit(account, amount));
+    }
+    
+    @Override
+    public DepositAccount depositFunds(SessionToken session, BigDecimal amount) {
+        return depositFunds(session, amount, null);
+    }
+    
+    @Override
+    public DepositAccount depositFunds(SessionToken session, BigDecimal amount, String idempotencyKey) {
+        if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
+            System.out.println("Deposit failed: Deposit amount must be greater than zero");
+            return null;
+        }
+        Customer customer = sessionCustomer(session, "Deposit failed");
+        return customer == null ? null
+            : applyChange("DEPOSIT", idempotencyKey, "Deposit failed", customer, account -> credit(account, amount));
+    }
+    
+    private DepositAccount credit(DepositAccount account, BigDecimal amount) {
         // Check if deposit account exists
-        DepositAccount account = getAccountByIdentificationNo(identificationNo);
         if (account == null) {
             System.out.println("Deposit failed: no deposit account is found");
             return null;
@@ -244,19 +511,17 @@ public class DepositAccountServiceImpl implements IDepositAccountService {
         }
         
         // Credit amount
-        BigDecimal oldBalance = account.getBalance();
-        BigDecimal newBalance = oldBalance.add(amount);
-        
-        String sql = "UPDATE DEPOSIT_ACCOUNT SET BALANCE = ? WHERE ACCOUNT_ID = ?";
-        try (Connection connection = dataSource.getConnection();
-             PreparedStatement ps = connection.prepareStatement(sql)) {
-            ps.setBigDecimal(1, newBalance);
-            ps.setString(2, account.getAccountId());
-            ps.executeUpdate();
+        BigDecimal newBalance;
+        try {
+            newBalance = applyBalanceChange(CREDIT_SQL, account.getAccountId(), amount);
         } catch (SQLException e) {
             System.out.println("Deposit failed: " + e.getMessage());
             return null;
         }
+        if (newBalance == null) {
+            System.out.println("Deposit failed: Account is no longer Active");
+            return null;
+        }
         
         System.out.printf("Deposited $%s to account %s%n", amount, account.getAccountId());
         account.setBalance(newBalance);
@@ -265,7 +530,12 @@ public class DepositAccountServiceImpl implements IDepositAccountService {
     
     // Withdraws funds
     @Override
-    public synchronized DepositAccount withdrawFunds(String identificationNo, String profilePassword, BigDecimal amount) {
+    public DepositAccount withdrawFunds(String identificationNo, String profilePassword, BigDecimal amount) {
+        return withdrawFunds(identificationNo, profilePassword, amount, null);
+    }
+    
+    @Override
+    public DepositAccount withdrawFunds(String identificationNo, String profilePassword, BigDecimal amount, String idempotencyKey) {
         if (identificationNo == null || identificationNo.trim().isEmpty()) {
             System.out.println("Withdrawal failed: Identification number is required");
             return null;
@@ -285,9 +555,75 @@ public class DepositAccountServiceImpl implements IDepositAccountService {
             System.out.println("Withdrawal failed: password is incorrect");
             return null;
         }
-        
+        return applyChange("WITHDRAWAL", idempotencyKey, "Withdrawal failed", customerService.getCustomer(identificationNo),
+            account -> debit(account, amount));
+    }
+    
+    @Override
+    public DepositAccount withdrawFunds(SessionToken session, BigDecimal amount) {
+        return withdrawFunds(session, amount, null);
+    }
+    
+    @Override
+    public DepositAccount withdrawFunds(SessionToken session, BigDecimal amount, String idempotencyKey) {
+        if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
+            System.out.println("Withdrawal failed: Withdrawal amount must be greater than zero");
+            return null;
+        }
+        Customer customer = sessionCustomer(session, "Withdrawal failed");
+        return customer == null ? null
+            : applyChange("WITHDRAWAL", idempotencyKey, "Withdrawal failed", customer, account -> debit(account, amount));
+    }
+    
+    // Applies a balance change to the customer's account. With an idempotency key the change and
+    // its outcome commit together, and a retry with the same key returns that outcome instead.
+    private DepositAccount applyChange(String scope, String idempotencyKey, String failure, Customer customer,
+                                       UnaryOperator<DepositAccount> change) {
+        if (customer == null) {
+            return change.apply(null);
+        }
+        if (idempotencyKey == null) {
+            return writeThrough(customer, change);
+        }
+        // The change commits with the key after the lambda returns, and a replay reports an
+        // older balance, so neither result is cached
+        AccountCache.Ticket ticket = accounts.beginWrite(customer.getId());
+        try {
+            String outcome = idempotencyStore.executeOnce(scope, idempotencyKey, customer.getId(),
+                () -> encodeOutcome(change.apply(getAccountByCustomerId(customer.getId()))));
+            return decodeOutcome(outcome);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            System.out.println(failure + ": " + e.getMessage());
+            return null;
+        } finally {
+            ticket.complete(null);
+        }
+    }
+    
+    private static String encodeOutcome(DepositAccount account) {
+        if (account == null) {
+            return null;
+        }
+        return account.getAccountId() + '|' + account.getCustomerId() + '|' + account.getBalance().toPlainString()
+            + '|' + account.getStatus() + '|' + account.getHeldBalance().toPlainString();
+    }
+    
+    private static DepositAccount decodeOutcome(String outcome) {
+        if (outcome == null) {
+            return null;
+        }
+        // Outcomes recorded before holds existed have no held balance
+        String[] fields = outcome.split("\\|", 5);
+        DepositAccount account = new DepositAccount(fields[0], fields[1], new BigDecimal(fields[2]));
+        account.setStatus(fields[3]);
+        if (fields.length > 4) {
+            account.setHeldBalance(new BigDecimal(fields[4]));
+        }
+        return account;
+    }
+    
+    private DepositAccount debit(DepositAccount account, BigDecimal amount) {
         // Check if deposit account exists
-        DepositAccount account = getAccountByIdentificationNo(identificationNo);
         if (account == null) {
             System.out.println("Withdrawal failed: no deposit account is found");
             return null;
@@ -300,35 +636,85 @@ public class DepositAccountServiceImpl implements IDepositAccountService {
             return null;
         }
         
-        // Validate sufficient balance
-        if (account.getBalance().compareTo(amount) < 0) {
-            System.out.println("Withdrawal failed: insufficient balance");
-            return null;
-        }
-        
-        // Debit amount
-        BigDecimal oldBalance = account.getBalance();
-        BigDecimal newBalance = oldBalance.subtract(amount);
-        
-        String sql = "UPDATE DEPOSIT_ACCOUNT SET BALANCE = ? WHERE ACCOUNT_ID = ?";
-        try (Connection connection = dataSource.getConnection();
-             PreparedStatement ps = connection.prepareStatement(sql)) {
-            ps.setBigDecimal(1, newBalance);
-            ps.setString(2, account.getAccountId());
-            ps.executeUpdate();
+        // Debit amount; the balance check happens in the same statement
+        BigDecimal newBalance;
+        try {
+            newBalance = applyDebit(account.getAccountId(), amount);
         } catch (SQLException e) {
             System.out.println("Withdrawal failed: " + e.getMessage());
             return null;
         }
+        if (newBalance == null) {
+            DepositAccount current = loadAccount(account.getCustomerId());
+            if (current != null && !current.isActive()) {
+                System.out.printf("Withdrawal failed: Cannot withdraw funds. Account status is %s (must be Active)%n",
+                    current.getStatus());
+            } else {
+                System.out.println("Withdrawal failed: insufficient available balance");
+            }
+            return null;
+        }
         
         System.out.printf("Withdrew $%s from account %s%n", amount, account.getAccountId());
         account.setBalance(newBalance);
         return account;
     }
     
+    // Closing balance on a past date
+    @Override
+    public BalanceAsOf getBalanceAsOf(String identificationNo, String profilePassword, LocalDate date) {
+        if (identificationNo == null || identificationNo.trim().isEmpty()) {
+            System.out.println("Balance query failed: Identification number is required");
+            return null;
+        }
+        
+        if (profilePassword == null || profilePassword.trim().isEmpty()) {
+            System.out.println("Balance query failed: Profile password is required");
+            return null;
+        }
+        
+        if (date == null) {
+            System.out.println("Balance query failed: Date is required");
+            return null;
+        }
+        
+        if (!customerService.verifyLogin(identificationNo, profilePassword)) {
+            System.out.println("Balance query failed: password is incorrect");
+            return null;
+        }
+        return balanceAsOf(getAccountByIdentificationNo(identificationNo), date);
+    }
+    
+    @Override
+    public BalanceAsOf getBalanceAsOf(SessionToken session, LocalDate date) {
+        if (date == null) {
+            System.out.println("Balance query failed: Date is required");
+            return null;
+        }
+        Customer customer = sessionCustomer(session, "Balance query failed");
+        return customer == null ? null : balanceAsOf(getAccountByCustomerId(customer.getId()), date);
+    }
+    
+    private BalanceAsOf balanceAsOf(DepositAccount account, LocalDate date) {
+        if (account == null) {
+            System.out.println("Balance query failed: no deposit account is found");
+            return null;
+        }
+        try {
+            BalanceAsOf balance = snapshots.balanceAsOf(account.getAccountId(), date);
+            if (balance == null) {
+                System.out.println("Balance query failed: no end-of-day snapshot for " + date);
+            }
+            return balance;
+        } catch (SQLException e) {
+            System.out.println("Balance query failed: " + e.getMessage());
+            return null;
+        }
+    }
+    
     // Freezes or unfreezes
     @Override
-    public synchronized DepositAccount updateDepositAccountStatus(String identificationNo, String profilePassword, String action) {
+    public DepositAccount updateDepositAccountStatus(String identificationNo, String profilePassword, String action) {
         if (identificationNo == null || identificationNo.trim().isEmpty()) {
             System.out.println("Status update failed: Identification number is required");
             return null;
@@ -348,9 +734,21 @@ public class DepositAccountServiceImpl implements IDepositAccountService {
             System.out.println("Status update failed: password is incorrect");
             return null;
         }
-        
+        return updateLocked(customerService.getCustomer(identificationNo), account -> changeStatus(account, action));
+    }
+    
+    @Override
+    public DepositAccount updateDepositAccountStatus(SessionToken session, String action) {
+        if (action == null || (!action.equalsIgnoreCase("FREEZE") && !action.equalsIgnoreCase("UNFREEZE"))) {
+            System.out.println("Status update failed: Action must be either 'FREEZE' or 'UNFREEZE'");
+            return null;
+        }
+        Customer customer = sessionCustomer(session, "Status update failed");
+        return customer == null ? null : updateLocked(customer, account -> changeStatus(account, action));
+    }
+    
+    private DepositAccount changeStatus(DepositAccount account, String action) {
         // Check if deposit account exists
-        DepositAccount account = getAccountByIdentificationNo(identificationNo);
         if (account == null) {
             System.out.println("Status update failed: no deposit account is found");
             return null;
@@ -411,4 +809,331 @@ public class DepositAccountServiceImpl implements IDepositAccountService {
             }
         }
     }
+    
+    // Trusted lookups for other bundles: no credentials, the caller has authenticated already
+    @Override
+    public DepositAccount findByAccountId(String accountId) {
+        if (accountId == null) {
+            return null;
+        }
+        return findByAccountIds(List.of(accountId)).get(accountId);
+    }
+    
+    @Override
+    public DepositAccount findByCustomerId(String customerId) {
+        return customerId == null ? null : getAccountByCustomerId(customerId);
+    }
+    
+    @Override
+    public DepositAccount findByIdentificationNo(String identificationNo) {
+        if (identificationNo == null) {
+            return null;
+        }
+        String customerId;
+        long generation;
+        synchronized (accountHolders) {
+            customerId = accountHolders.get(identificationNo);
+            generation = accountHoldersGeneration;
+        }
+        if (customerId != null) {
+            return getAccountByCustomerId(customerId);
+        }
+        Customer customer = customerService.getCustomer(identificationNo);
+        DepositAccount account = customer == null ? null : getAccountByCustomerId(customer.getId());
+        if (account != null) {
+            synchronized (accountHolders) {
+                if (generation == accountHoldersGeneration) {
+                    accountHolders.put(identificationNo, account.getCustomerId());
+                }
+            }
+        }
+        return account;
+    }
+    
+    @Override
+    public Map<String, DepositAccount> findByAccountIds(Collection<String> accountIds) {
+        Map<String, DepositAccount> found = new LinkedHashMap<>();
+        if (accountIds == null || accountIds.isEmpty()) {
+            return found;
+        }
+        String sql = ACCOUNT_SQL + "WHERE A.ACCOUNT_ID = ANY(?)";
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setArray(1, connection.createArrayOf("VARCHAR", new LinkedHashSet<>(accountIds).toArray()));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    DepositAccount account = mapAccount(rs);
+                    found.put(account.getAccountId(), account);
+                }
+            }
+        } catch (SQLException e) {
+            System.out.println("Failed to retrieve accounts: " + e.getMessage());
+        }
+        return found;
+    }
+    
+    @Override
+    public Map<String, DepositAccount> findByCustomerIds(Collection<String> customerIds) {
+        Map<String, DepositAccount> found = new LinkedHashMap<>();
+        if (customerIds == null || customerIds.isEmpty()) {
+            return found;
+        }
+        // Cached accounts are served as they are; the rest are read in one query
+        Map<String, AccountCache.Ticket> missing = new LinkedHashMap<>();
+        for (String customerId : customerIds) {
+            if (customerId == null || found.containsKey(customerId) || missing.containsKey(customerId)) {
+                continue;
+            }
+            DepositAccount cached = accounts.get(customerId);
+            if (cached != null) {
+                found.put(customerId, cached);
+            } else {
+                missing.put(customerId, accounts.beginRead(customerId));
+            }
+        }
+        if (missing.isEmpty()) {
+            return found;
+        }
+        String sql = ACCOUNT_SQL + "WHERE A.CUSTOMER_ID = ANY(?)";
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setArray(1, connection.createArrayOf("VARCHAR", missing.keySet().toArray()));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    DepositAccount account = mapAccount(rs);
+                    AccountCache.Ticket ticket = missing.remove(account.getCustomerId());
+                    if (ticket != null) {
+                        ticket.complete(account);
+                    }
+                    found.put(account.getCustomerId(), account);
+                }
+            }
+        } catch (SQLException e) {
+            System.out.println("Failed to retrieve accounts: " + e.getMessage());
+        }
+        return found;
+    }
+    
+    @Override
+    public void balancesChanged(Collection<String> customerIds) {
+        for (String customerId : customerIds) {
+            accounts.invalidate(customerId);
+        }
+    }
+    
+    // Keeps the identification number mapping in step with the customer bundle
+    @Override
+    public void customerChanged(CustomerChangeEvent event) {
+        if (event.getType() != CustomerChangeEvent.Type.IDENTIFICATION_CHANGED) {
+            return;
+        }
+        synchronized (accountHolders) {
+            accountHoldersGeneration++;
+            if (event.getPreviousIdentificationNo() != null) {
+                accountHolders.remove(event.getPreviousIdentificationNo());
+            }
+            accountHolders.remove(event.getCustomer().getIdentificationNo());
+        }
+    }
+    
+    // Batch postings: authorised by the configured operator, not by each customer's password
+    @Override
+    public List<PostingResult> postBatch(String operatorId, String operatorSecret, List<BalancePosting> postings) {
+        DepositConfig current = config;
+        if (!isOperator(current, operatorId, operatorSecret)) {
+            System.out.println("Batch posting failed: operator credential rejected");
+            return null;
+        }
+        if (postings == null || postings.isEmpty()) {
+            return List.of();
+        }
+        List<PostingResult> results;
+        try {
+            results = new BatchPostingProcessor(dataSource, current.batch_chunk_size()).apply(postings);
+        } finally {
+            // Postings update rows by account ID, not through the per-customer write path
+            accounts.invalidateAll();
+        }
+        long applied = results.stream().filter(PostingResult::isApplied).count();
+        System.out.printf("Batch posting by %s: %d of %d postings applied%n", operatorId, applied, postings.size());
+        return results;
+    }
+    
+    // Holds: trusted like the lookups below; callers authorise the payment themselves
+    @Override
+    public AccountHold placeHold(String accountId, BigDecimal amount, String reference, Duration validFor) {
+        if (accountId == null || amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
+            System.out.println("Hold failed: account and a positive amount are required");
+            return null;
+        }
+        if (validFor == null || validFor.isNegative() || validFor.isZero()) {
+            System.out.println("Hold failed: validity period must be positive");
+            return null;
+        }
+        AccountHold hold;
+        try {
+            hold = holds.place(accountId, amount, reference, validFor);
+        } catch (SQLException e) {
+            System.out.println("Hold failed: " + e.getMessage());
+            return null;
+        }
+        if (hold == null) {
+            System.out.println("Hold failed: account is not Active or available balance is insufficient");
+            return null;
+        }
+        System.out.printf("Held $%s on account %s until %s%n", amount, accountId, hold.getExpiresAt());
+        return hold;
+    }
+    
+    @Override
+    public boolean releaseHold(String holdId) {
+        if (holdId == null) {
+            return false;
+        }
+        try {
+            String accountId = holds.release(holdId);
+            if (accountId == null) {
+                System.out.println("Hold release failed: hold not found or expired");
+                return false;
+            }
+            System.out.printf("Released hold %s on account %s%n", holdId, accountId);
+            return true;
+        } catch (SQLException e) {
+            System.out.println("Hold release failed: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    @Override
+    public DepositAccount captureHold(String holdId, BigDecimal amount) {
+        if (holdId == null || amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
+            System.out.println("Hold capture failed: hold and a positive amount are required");
+            return null;
+        }
+        String customerId;
+        try {
+            customerId = holds.capture(holdId, amount);
+        } catch (SQLException e) {
+            System.out.println("Hold capture failed: " + e.getMessage());
+            return null;
+        }
+        if (customerId == null) {
+            System.out.println("Hold capture failed: hold not found, expired or smaller than the amount");
+            return null;
+        }
+        System.out.printf("Captured $%s from hold %s%n", amount, holdId);
+        return loadAccount(customerId);
+    }
+    
+    @Override
+    public List<AccountHold> getActiveHolds(String accountId) {
+        try {
+            return holds.active(accountId);
+        } catch (SQLException e) {
+            System.out.println("Failed to retrieve holds: " + e.getMessage());
+            return List.of();
+        }
+    }
+    
+    // Hot accounts: authorised like batch postings
+    @Override
+    public boolean setHotAccountSlots(String operatorId, String operatorSecret, String accountId, int slots) {
+        if (!isOperator(config, operatorId, operatorSecret)) {
+            System.out.println("Hot account update failed: operator credential rejected");
+            return false;
+        }
+        if (accountId == null || slots < 0 || slots > HotAccountLedger.MAX_SLOTS) {
+            System.out.println("Hot account update failed: slots must be between 0 and " + HotAccountLedger.MAX_SLOTS);
+            return false;
+        }
+        try {
+            if (!hotAccounts.setSlots(accountId, slots)) {
+                System.out.println("Hot account update failed: no deposit account is found");
+                return false;
+            }
+        } catch (SQLException e) {
+            System.out.println("Hot account update failed: " + e.getMessage());
+            return false;
+        } finally {
+            accounts.invalidateAll();
+        }
+        System.out.printf("Account %s now has %d balance slots%n", accountId, slots);
+        publish(DepositAccountChangeEvent.Type.HOT_SLOTS_CHANGED, accountId, null);
+        return true;
+    }
+    
+    // Slot credits and drains for the transaction bundle's transfers, on its connection
+    @Override
+    public boolean credit(Connection connection, String accountId, int slots, BigDecimal amount) throws SQLException {
+        return HotAccountLedger.credit(connection, accountId, slots, amount);
+    }
+    
+    @Override
+    public BigDecimal drain(Connection connection, String accountId, String... alsoLock) throws SQLException {
+        return HotAccountLedger.drain(connection, accountId, alsoLock);
+    }
+    
+    // End-of-day interest: authorised like batch postings
+    @Override
+    public AccrualReport accrueInterest(String operatorId, String operatorSecret, LocalDate businessDate) {
+        DepositConfig current = config;
+        if (!isOperator(current, operatorId, operatorSecret)) {
+            System.out.println("Interest accrual failed: operator credential rejected");
+            return null;
+        }
+        if (businessDate == null) {
+            System.out.println("Interest accrual failed: business date is required");
+            return null;
+        }
+        BigDecimal annualRate;
+        try {
+            annualRate = new BigDecimal(current.interest_annual_rate().trim());
+        } catch (NumberFormatException e) {
+            System.out.println("Interest accrual failed: invalid interest rate " + current.interest_annual_rate());
+            return null;
+        }
+        if (annualRate.signum() <= 0 || current.interest_day_count() <= 0) {
+            System.out.println("Interest accrual failed: no interest rate is configured");
+            return null;
+        }
+        AccrualReport report;
+        try {
+            report = new InterestAccrualEngine(dataSource, current.interest_chunk_size(), ForkJoinPool.commonPool())
+                .run(businessDate, annualRate, current.interest_day_count());
+        } catch (SQLException e) {
+            System.out.println("Interest accrual failed: " + e.getMessage());
+            return null;
+        } finally {
+            // Balances were credited by account ID, not through the per-customer write path
+            accounts.invalidateAll();
+        }
+        if (report != null) {
+            System.out.println(report);
+        }
+        return report;
+    }
+    
+    private static boolean isOperator(DepositConfig config, String operatorId, String operatorSecret) {
+        if (config == null || config.operator_id().isEmpty() || config.operator_secret_sha256().isEmpty()
+                || operatorId == null || operatorSecret == null) {
+            return false;
+        }
+        byte[] expected = config.operator_secret_sha256().trim().toLowerCase(Locale.ROOT).getBytes(StandardCharsets.US_ASCII);
+        byte[] actual = sha256Hex(operatorSecret).getBytes(StandardCharsets.US_ASCII);
+        // Constant-time comparison of the digests; the ID check is not secret
+        return MessageDigest.isEqual(expected, actual) && config.operator_id().equals(operatorId);
+    }
+    
+    static String sha256Hex(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (Exception e) {
+            throw new RuntimeException("Error hashing operator secret", e);
+        }
+    }
 }
@@ -0,0 +1,45 @@
+package com.bank.deposit;
+
+/**
+ * Configuration for {@link DepositAccountServiceImpl}, bound to the
+ * {@code com.bank.deposit} PID. Method names map to dotted property keys,
+ * e.g. {@code batch_chunk_size()} is read from {@code batch.chunk.size}.
+ */
+public @interface DepositConfig {
+
+    /** Operator allowed to submit batch postings; empty disables batch posting. */
+    String operator_id() default "";
+
+    /** Hex SHA-256 of the operator secret, so the secret itself never sits in configuration. */
+    String operator_secret_sha256() default "";
+
+    /** Postings sent per JDBC batch; each chunk commits as one transaction. */
+    int batch_chunk_size() default 500;
+
+    /**
+     * How long a cached account may be served without reading the database; 0 disables
+     * the cache. Balances changed by transfers can appear stale for up to this long.
+     */
+    long account_cache_ttl_ms() default 2000;
+
+    /** Maximum number of customers whose account is cached. */
+    int account_cache_size() default 10000;
+
+    /** Annual interest rate as a fraction, e.g. {@code 0.025} for 2.5%; 0 disables accrual. */
+    String interest_annual_rate() default "0";
+
+    /** Days per year used to turn the annual rate into a daily one. */
+    int interest_day_count() default 365;
+
+    /** Accounts read, accrued and committed per interest accrual chunk. */
+    int interest_chunk_size() default 1000;
+
+    /** Local time (HH:mm) of the daily balance snapshot; empty disables it. */
+    String balance_snapshot_time() default "23:59";
+
+    /** How often hot accounts' balance slots are folded into their rows; 0 disables it. */
+    long hot_account_consolidation_ms() default 1000;
+
+    /** How often expired holds are released; 0 disables it (holds then expire only when in the way). */
+    long hold_expiry_sweep_ms() default 60000;
+}
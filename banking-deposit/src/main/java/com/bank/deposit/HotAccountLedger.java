@@ -0,0 +1,236 @@
+package com.bank.deposit;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+/**
+ * Sub-ledger slots for hot accounts. An account with {@code HOT_SLOTS = n} takes
+ * transfer credits on one of n rows in {@code ACCOUNT_BALANCE_SLOT} instead of
+ * its own {@code DEPOSIT_ACCOUNT} row, so concurrent credits no longer queue on
+ * one row lock. Its balance is the row balance plus the slots.
+ *
+ * <p>Slots only ever grow between drains, so a debit that the row balance alone
+ * covers is always safe. A debit that it does not cover drains the slots into
+ * the row first, in the debit's transaction. A drain reads and zeroes the slots
+ * in one statement, so a credit committed meanwhile is never lost. The slots are
+ * also drained periodically to keep the row balance close to the total.
+ */
+final class HotAccountLedger {
+
+    /** Most slots one account may have. */
+    static final int MAX_SLOTS = 64;
+
+    /** Slot total for the {@code DEPOSIT_ACCOUNT} row aliased {@code A}; 0 for ordinary accounts. */
+    static final String SLOT_TOTAL =
+        "CASE WHEN A.HOT_SLOTS > 0 THEN COALESCE((SELECT SUM(S.AMOUNT) FROM ACCOUNT_BALANCE_SLOT S "
+        + "WHERE S.ACCOUNT_ID = A.ACCOUNT_ID), 0) ELSE 0 END";
+
+    // Credits only land on an active account, as the deposit service's own postings do
+    private static final String CREDIT_SQL =
+        "UPDATE ACCOUNT_BALANCE_SLOT SET AMOUNT = AMOUNT + ?1 WHERE ACCOUNT_ID = ?2 AND SLOT = ?3 "
+        + "AND EXISTS (SELECT 1 FROM DEPOSIT_ACCOUNT WHERE ACCOUNT_ID = ?2 AND STATUS = 'Active')";
+    private static final String DRAIN_ACCOUNT_SQL =
+        "SELECT COALESCE(SUM(AMOUNT), 0) AS DRAINED FROM OLD TABLE ("
+        + "UPDATE ACCOUNT_BALANCE_SLOT SET AMOUNT = 0 WHERE ACCOUNT_ID = ? AND AMOUNT <> 0)";
+    private static final String DRAIN_ACCOUNTS_SQL =
+        "SELECT ACCOUNT_ID, SUM(AMOUNT) AS DRAINED FROM OLD TABLE ("
+        + "UPDATE ACCOUNT_BALANCE_SLOT SET AMOUNT = 0 WHERE ACCOUNT_ID = ANY(?) AND AMOUNT <> 0) GROUP BY ACCOUNT_ID";
+    private static final String DRAIN_ALL_SQL =
+        "SELECT ACCOUNT_ID, SUM(AMOUNT) AS DRAINED FROM OLD TABLE ("
+        + "UPDATE ACCOUNT_BALANCE_SLOT SET AMOUNT = 0 WHERE AMOUNT <> 0) GROUP BY ACCOUNT_ID";
+    private static final String LOCK_ROW_SQL =
+        "SELECT ACCOUNT_ID FROM DEPOSIT_ACCOUNT WHERE ACCOUNT_ID = ? FOR UPDATE";
+    private static final String FOLD_SQL =
+        "UPDATE DEPOSIT_ACCOUNT SET BALANCE = BALANCE + ? WHERE ACCOUNT_ID = ?";
+
+    private final DataSource dataSource;
+    private ScheduledExecutorService consolidator;
+
+    HotAccountLedger(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Credits a random one of the account's first {@code slots} slots; the caller commits.
+     * False if that slot is gone or the account is not Active.
+     */
+    static boolean credit(Connection connection, String accountId, int slots, BigDecimal amount) throws SQLException {
+        if (slots <= 0) {
+            return false;
+        }
+        try (PreparedStatement ps = connection.prepareStatement(CREDIT_SQL)) {
+            ps.setBigDecimal(1, amount);
+            ps.setString(2, accountId);
+            ps.setInt(3, ThreadLocalRandom.current().nextInt(slots));
+            return ps.executeUpdate() > 0;
+        }
+    }
+
+    /**
+     * Moves the account's slots into its row; the caller commits. Returns the amount moved.
+     * The slots are locked first, then the account's row and the rows of {@code alsoLock}
+     * in ACCOUNT_ID order, so callers that go on to update those rows lock them in the
+     * same order whichever way round they are paying.
+     */
+    static BigDecimal drain(Connection connection, String accountId, String... alsoLock) throws SQLException {
+        BigDecimal drained;
+        try (PreparedStatement ps = connection.prepareStatement(DRAIN_ACCOUNT_SQL)) {
+            ps.setString(1, accountId);
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                drained = rs.getBigDecimal("DRAINED");
+            }
+        }
+        if (alsoLock.length > 0) {
+            TreeSet<String> rows = new TreeSet<>(Arrays.asList(alsoLock));
+            rows.add(accountId);
+            try (PreparedStatement ps = connection.prepareStatement(LOCK_ROW_SQL)) {
+                for (String row : rows) {
+                    ps.setString(1, row);
+                    ps.executeQuery().close();
+                }
+            }
+        }
+        if (drained.signum() != 0) {
+            fold(connection, Map.of(accountId, drained));
+        }
+        return drained;
+    }
+
+    /** Moves the slots of all the given accounts into their rows; the caller commits. */
+    static void drain(Connection connection, Object[] accountIds) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(DRAIN_ACCOUNTS_SQL)) {
+            ps.setArray(1, connection.createArrayOf("VARCHAR", accountIds));
+            fold(connection, drained(ps));
+        }
+    }
+
+    private static Map<String, BigDecimal> drained(PreparedStatement ps) throws SQLException {
+        Map<String, BigDecimal> drained = new LinkedHashMap<>();
+        try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                drained.put(rs.getString("ACCOUNT_ID"), rs.getBigDecimal("DRAINED"));
+            }
+        }
+        return drained;
+    }
+
+    private static void fold(Connection connection, Map<String, BigDecimal> drained) throws SQLException {
+        if (drained.isEmpty()) {
+            return;
+        }
+        try (PreparedStatement ps = connection.prepareStatement(FOLD_SQL)) {
+            for (Map.Entry<String, BigDecimal> entry : drained.entrySet()) {
+                ps.setBigDecimal(1, entry.getValue());
+                ps.setString(2, entry.getKey());
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+
+    /** Drains every hot account in one transaction and returns how many had credits waiting. */
+    int consolidate() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (PreparedStatement ps = connection.prepareStatement(DRAIN_ALL_SQL)) {
+                Map<String, BigDecimal> drained = drained(ps);
+                fold(connection, drained);
+                connection.commit();
+                return drained.size();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    /**
+     * Gives the account the number of slots (0 turns hot mode off). Existing slots are
+     * drained into the row first. Returns false if there is no such account.
+     */
+    boolean setSlots(String accountId, int slots) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                try (PreparedStatement ps = connection.prepareStatement(
+                        "UPDATE DEPOSIT_ACCOUNT SET HOT_SLOTS = ? WHERE ACCOUNT_ID = ?")) {
+                    ps.setInt(1, slots);
+                    ps.setString(2, accountId);
+                    if (ps.executeUpdate() == 0) {
+                        connection.rollback();
+                        return false;
+                    }
+                }
+                drain(connection, accountId);
+                try (PreparedStatement ps = connection.prepareStatement(
+                        "DELETE FROM ACCOUNT_BALANCE_SLOT WHERE ACCOUNT_ID = ?")) {
+                    ps.setString(1, accountId);
+                    ps.executeUpdate();
+                }
+                if (slots > 0) {
+                    try (PreparedStatement ps = connection.prepareStatement(
+                            "INSERT INTO ACCOUNT_BALANCE_SLOT (ACCOUNT_ID, SLOT, AMOUNT) VALUES (?, ?, 0)")) {
+                        for (int slot = 0; slot < slots; slot++) {
+                            ps.setString(1, accountId);
+                            ps.setInt(2, slot);
+                            ps.addBatch();
+                        }
+                        ps.executeBatch();
+                    }
+                }
+                connection.commit();
+                return true;
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    /** Drains all hot accounts at a fixed interval, replacing any earlier schedule; 0 stops it. */
+    synchronized void schedule(long periodMillis) {
+        stop();
+        if (periodMillis <= 0) {
+            return;
+        }
+        consolidator = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "bank-hot-account-consolidator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        consolidator.scheduleWithFixedDelay(() -> {
+            try {
+                consolidate();
+            } catch (SQLException e) {
+                System.out.println("Hot account consolidation failed: " + e.getMessage());
+            }
+        }, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    synchronized void stop() {
+        if (consolidator != null) {
+            consolidator.shutdownNow();
+            consolidator = null;
+        }
+    }
+}
@@ -0,0 +1,310 @@
+package com.bank.deposit;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import javax.sql.DataSource;
+
+import com.bank.api.AccrualReport;
+
+/**
+ * Credits one day of interest to every Active account with a positive balance.
+ * Accounts are read in ACCOUNT_ID order, one chunk at a time, so memory stays
+ * flat however many accounts there are. The interest for a chunk is computed in
+ * parallel on a fork/join pool and written back with one JDBC batch.
+ *
+ * <p>Each chunk's credits and the run's checkpoint in {@code INTEREST_ACCRUAL_RUN}
+ * commit in the same transaction, so a run stopped at any point resumes after the
+ * last committed account and no account is credited twice for a date. The
+ * checkpoint update is conditional on the position it was read at, which also
+ * stops a second run for the same date from overlapping the first.
+ *
+ * <p>Interest is {@code balance * annualRate / dayCount}, rounded once to cents
+ * with {@link RoundingMode#HALF_EVEN}; a result that rounds to zero is skipped.
+ */
+final class InterestAccrualEngine {
+
+    // Interest is on the whole balance, including a hot account's slots
+    private static final String CHUNK_SQL =
+        "SELECT ACCOUNT_ID, BALANCE FROM (SELECT A.ACCOUNT_ID, A.BALANCE + " + HotAccountLedger.SLOT_TOTAL
+        + " AS BALANCE FROM DEPOSIT_ACCOUNT A WHERE A.ACCOUNT_ID > ? AND A.STATUS = 'Active') T "
+        + "WHERE BALANCE > 0 ORDER BY ACCOUNT_ID FETCH FIRST ? ROWS ONLY";
+    private static final String CREDIT_SQL =
+        "UPDATE DEPOSIT_ACCOUNT SET BALANCE = BALANCE + ? WHERE ACCOUNT_ID = ? AND STATUS = 'Active'";
+    private static final String LOAD_RUN_SQL =
+        "SELECT ANNUAL_RATE, DAY_COUNT, LAST_ACCOUNT_ID, ACCOUNTS_ACCRUED, TOTAL_INTEREST, STATUS "
+        + "FROM INTEREST_ACCRUAL_RUN WHERE BUSINESS_DATE = ?";
+    private static final String START_RUN_SQL =
+        "INSERT INTO INTEREST_ACCRUAL_RUN (BUSINESS_DATE, ANNUAL_RATE, DAY_COUNT, STATUS, STARTED_AT, UPDATED_AT) "
+        + "VALUES (?, ?, ?, 'RUNNING', ?, ?)";
+    // ?1 = new position, ?2 = accounts, ?3 = interest, ?4 = status, ?5 = now, ?6 = date, ?7 = position read
+    private static final String CHECKPOINT_SQL =
+        "UPDATE INTEREST_ACCRUAL_RUN SET LAST_ACCOUNT_ID = ?1, ACCOUNTS_ACCRUED = ACCOUNTS_ACCRUED + ?2, "
+        + "TOTAL_INTEREST = TOTAL_INTEREST + ?3, STATUS = ?4, UPDATED_AT = ?5 "
+        + "WHERE BUSINESS_DATE = ?6 AND STATUS = 'RUNNING' AND LAST_ACCOUNT_ID IS NOT DISTINCT FROM ?7";
+
+    // Accounts per fork/join leaf; below this, splitting costs more than it saves
+    private static final int PARALLEL_THRESHOLD = 64;
+
+    private final DataSource dataSource;
+    private final int chunkSize;
+    private final ForkJoinPool pool;
+
+    InterestAccrualEngine(DataSource dataSource, int chunkSize, ForkJoinPool pool) {
+        this.dataSource = dataSource;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.pool = pool;
+    }
+
+    /**
+     * Runs or resumes the accrual for the date. A resumed run keeps the rate and day
+     * count the date was started with. Returns null if the run could not proceed.
+     */
+    AccrualReport run(LocalDate businessDate, BigDecimal annualRate, int dayCount) throws SQLException {
+        long started = System.nanoTime();
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                Run run = loadOrStart(connection, businessDate, annualRate, dayCount);
+                if (run.completed) {
+                    return run.report(businessDate, 0, BigDecimal.ZERO, 0, elapsedMillis(started));
+                }
+                long accounts = 0;
+                BigDecimal interest = BigDecimal.ZERO;
+                int chunks = 0;
+                while (true) {
+                    List<String> ids = new ArrayList<>(chunkSize);
+                    List<BigDecimal> balances = new ArrayList<>(chunkSize);
+                    readChunk(connection, run.lastAccountId, ids, balances);
+                    boolean last = ids.size() < chunkSize;
+                    BigDecimal[] accruals = accrue(balances, run.annualRate, run.dayCount);
+                    Chunk chunk = credit(connection, ids, accruals);
+                    String position = ids.isEmpty() ? run.lastAccountId : ids.get(ids.size() - 1);
+                    if (!checkpoint(connection, businessDate, run.lastAccountId, position, chunk, last)) {
+                        connection.rollback();
+                        System.out.println("Interest accrual stopped: another run for " + businessDate + " moved the checkpoint");
+                        return null;
+                    }
+                    connection.commit();
+                    chunks++;
+                    accounts += chunk.accounts;
+                    interest = interest.add(chunk.interest);
+                    run.advance(position, chunk);
+                    if (last) {
+                        run.completed = true;
+                        return run.report(businessDate, accounts, interest, chunks, elapsedMillis(started));
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    private Run loadOrStart(Connection connection, LocalDate businessDate, BigDecimal annualRate, int dayCount)
+            throws SQLException {
+        Run existing = load(connection, businessDate);
+        if (existing != null) {
+            return existing;
+        }
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        try (PreparedStatement ps = connection.prepareStatement(START_RUN_SQL)) {
+            ps.setDate(1, Date.valueOf(businessDate));
+            ps.setBigDecimal(2, annualRate);
+            ps.setInt(3, dayCount);
+            ps.setTimestamp(4, now);
+            ps.setTimestamp(5, now);
+            ps.executeUpdate();
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            if (!"23505".equals(e.getSQLState())) {
+                throw e;
+            }
+            // Another run started the date first; continue from its checkpoint
+            return load(connection, businessDate);
+        }
+        return new Run(annualRate, dayCount, null, 0, BigDecimal.ZERO, false, false);
+    }
+
+    private Run load(Connection connection, LocalDate businessDate) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(LOAD_RUN_SQL)) {
+            ps.setDate(1, Date.valueOf(businessDate));
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+                boolean completed = "COMPLETED".equals(rs.getString("STATUS"));
+                return new Run(rs.getBigDecimal("ANNUAL_RATE"), rs.getInt("DAY_COUNT"), rs.getString("LAST_ACCOUNT_ID"),
+                    rs.getLong("ACCOUNTS_ACCRUED"), rs.getBigDecimal("TOTAL_INTEREST"), completed, !completed);
+            }
+        }
+    }
+
+    private void readChunk(Connection connection, String after, List<String> ids, List<BigDecimal> balances)
+            throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(CHUNK_SQL)) {
+            ps.setString(1, after == null ? "" : after);
+            ps.setInt(2, chunkSize);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    ids.add(rs.getString("ACCOUNT_ID"));
+                    balances.add(rs.getBigDecimal("BALANCE"));
+                }
+            }
+        }
+    }
+
+    private BigDecimal[] accrue(List<BigDecimal> balances, BigDecimal annualRate, int dayCount) {
+        BigDecimal[] accruals = new BigDecimal[balances.size()];
+        if (!balances.isEmpty()) {
+            pool.invoke(new AccrualTask(balances, accruals, 0, accruals.length, annualRate, BigDecimal.valueOf(dayCount)));
+        }
+        return accruals;
+    }
+
+    static BigDecimal dailyInterest(BigDecimal balance, BigDecimal annualRate, BigDecimal dayCount) {
+        // Multiply first and divide once, so the only rounding is to the final cent
+        return balance.multiply(annualRate).divide(dayCount, 2, RoundingMode.HALF_EVEN);
+    }
+
+    private Chunk credit(Connection connection, List<String> ids, BigDecimal[] accruals) throws SQLException {
+        List<Integer> batched = new ArrayList<>();
+        int[] counts;
+        try (PreparedStatement ps = connection.prepareStatement(CREDIT_SQL)) {
+            for (int i = 0; i < accruals.length; i++) {
+                if (accruals[i].signum() <= 0) {
+                    continue;
+                }
+                ps.setBigDecimal(1, accruals[i]);
+                ps.setString(2, ids.get(i));
+                ps.addBatch();
+                batched.add(i);
+            }
+            if (batched.isEmpty()) {
+                return new Chunk(0, BigDecimal.ZERO);
+            }
+            counts = ps.executeBatch();
+        }
+        long accounts = 0;
+        BigDecimal interest = BigDecimal.ZERO;
+        for (int k = 0; k < counts.length; k++) {
+            // An account frozen or closed since the chunk was read is skipped
+            if (counts[k] > 0 || counts[k] == Statement.SUCCESS_NO_INFO) {
+                accounts++;
+                interest = interest.add(accruals[batched.get(k)]);
+            }
+        }
+        return new Chunk(accounts, interest);
+    }
+
+    private boolean checkpoint(Connection connection, LocalDate businessDate, String readAt, String position,
+                               Chunk chunk, boolean last) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(CHECKPOINT_SQL)) {
+            ps.setString(1, position);
+            ps.setLong(2, chunk.accounts);
+            ps.setBigDecimal(3, chunk.interest);
+            ps.setString(4, last ? "COMPLETED" : "RUNNING");
+            ps.setTimestamp(5, new Timestamp(System.currentTimeMillis()));
+            ps.setDate(6, Date.valueOf(businessDate));
+            ps.setString(7, readAt);
+            return ps.executeUpdate() == 1;
+        }
+    }
+
+    private static long elapsedMillis(long startedNanos) {
+        return (System.nanoTime() - startedNanos) / 1_000_000;
+    }
+
+    private static final class AccrualTask extends RecursiveAction {
+        private final List<BigDecimal> balances;
+        private final BigDecimal[] accruals;
+        private final int from;
+        private final int to;
+        private final BigDecimal annualRate;
+        private final BigDecimal dayCount;
+
+        private AccrualTask(List<BigDecimal> balances, BigDecimal[] accruals, int from, int to,
+                            BigDecimal annualRate, BigDecimal dayCount) {
+            this.balances = balances;
+            this.accruals = accruals;
+            this.from = from;
+            this.to = to;
+            this.annualRate = annualRate;
+            this.dayCount = dayCount;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PARALLEL_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    accruals[i] = dailyInterest(balances.get(i), annualRate, dayCount);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new AccrualTask(balances, accruals, from, mid, annualRate, dayCount),
+                      new AccrualTask(balances, accruals, mid, to, annualRate, dayCount));
+        }
+    }
+
+    private static final class Chunk {
+        private final long accounts;
+        private final BigDecimal interest;
+
+        private Chunk(long accounts, BigDecimal interest) {
+            this.accounts = accounts;
+            this.interest = interest;
+        }
+    }
+
+    // The checkpoint as last committed
+    private static final class Run {
+        private final BigDecimal annualRate;
+        private final int dayCount;
+        private final boolean resumed;
+        private String lastAccountId;
+        private long totalAccounts;
+        private BigDecimal totalInterest;
+        private boolean completed;
+
+        private Run(BigDecimal annualRate, int dayCount, String lastAccountId, long totalAccounts,
+                    BigDecimal totalInterest, boolean completed, boolean resumed) {
+            this.annualRate = annualRate;
+            this.dayCount = dayCount;
+            this.lastAccountId = lastAccountId;
+            this.totalAccounts = totalAccounts;
+            this.totalInterest = totalInterest;
+            this.completed = completed;
+            this.resumed = resumed;
+        }
+
+        private void advance(String position, Chunk chunk) {
+            lastAccountId = position;
+            totalAccounts += chunk.accounts;
+            totalInterest = totalInterest.add(chunk.interest);
+        }
+
+        private AccrualReport report(LocalDate businessDate, long accounts, BigDecimal interest, int chunks,
+                                     long elapsedMillis) {
+            return new AccrualReport(businessDate, completed, resumed, accounts, interest, totalAccounts,
+                totalInterest, chunks, elapsedMillis);
+        }
+    }
+}
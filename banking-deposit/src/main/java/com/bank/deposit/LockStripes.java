@@ -0,0 +1,34 @@
+package com.bank.deposit;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed set of locks shared out by key hash. Operations on the same key always
+ * take the same lock; different keys usually land on different stripes and run
+ * in parallel. The stripe count is rounded up to a power of two.
+ */
+final class LockStripes {
+
+    private final ReentrantLock[] locks;
+    private final int mask;
+
+    LockStripes(int stripes) {
+        int size = stripes <= 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+        this.locks = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+    }
+
+    ReentrantLock lockFor(Object key) {
+        int h = key.hashCode();
+        // Spread the high bits so keys that differ only there do not share a stripe
+        h ^= (h >>> 16);
+        return locks[h & mask];
+    }
+
+    int size() {
+        return locks.length;
+    }
+}
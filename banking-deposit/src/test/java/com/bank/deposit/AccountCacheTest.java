@@ -0,0 +1,90 @@
+package com.bank.deposit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.bank.api.DepositAccount;
+
+class AccountCacheTest {
+
+    private final AtomicLong now = new AtomicLong(1_000);
+    private AccountCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new AccountCache(now::get);
+        cache.configure(500, 2);
+    }
+
+    @Test
+    void readResultIsCachedUntilItExpires() {
+        cache.beginRead("C1").complete(account("100.00"));
+
+        DepositAccount cached = cache.get("C1");
+        assertEquals(new BigDecimal("100.00"), cached.getBalance());
+        // Callers get a copy they may modify
+        cached.setBalance(BigDecimal.ZERO);
+        assertEquals(new BigDecimal("100.00"), cache.get("C1").getBalance());
+
+        now.addAndGet(500);
+        assertNull(cache.get("C1"));
+    }
+
+    @Test
+    void readThatOverlapsAWriteIsNotCached() {
+        AccountCache.Ticket read = cache.beginRead("C1");
+        cache.beginWrite("C1").complete(account("150.00"));
+        read.complete(account("100.00"));
+
+        assertEquals(new BigDecimal("150.00"), cache.get("C1").getBalance());
+    }
+
+    @Test
+    void overlappingWritesEmptyTheSlot() {
+        cache.beginRead("C1").complete(account("100.00"));
+
+        AccountCache.Ticket first = cache.beginWrite("C1");
+        AccountCache.Ticket second = cache.beginWrite("C1");
+        // Completion order says nothing about commit order, so neither result is trusted
+        second.complete(account("150.00"));
+        first.complete(account("200.00"));
+
+        assertNull(cache.get("C1"));
+        cache.beginWrite("C1").complete(account("250.00"));
+        assertEquals(new BigDecimal("250.00"), cache.get("C1").getBalance());
+    }
+
+    @Test
+    void writeWithUnknownOutcomeInvalidates() {
+        cache.beginRead("C1").complete(account("100.00"));
+        cache.beginWrite("C1").complete(null);
+
+        assertNull(cache.get("C1"));
+    }
+
+    @Test
+    void fullCacheMakesRoomOnlyFromExpiredEntries() {
+        cache.beginRead("C1").complete(account("1.00"));
+        cache.beginRead("C2").complete(account("2.00"));
+        cache.beginRead("C3").complete(account("3.00"));
+        assertNull(cache.get("C3"));
+
+        now.addAndGet(500);
+        cache.beginRead("C3").complete(account("3.00"));
+        assertNotNull(cache.get("C3"));
+        assertEquals(1, cache.size());
+    }
+
+    private static DepositAccount account(String balance) {
+        DepositAccount account = new DepositAccount("DA1", "C1", new BigDecimal(balance));
+        account.setStatus("Active");
+        return account;
+    }
+}
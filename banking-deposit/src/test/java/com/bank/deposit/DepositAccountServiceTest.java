@@ -5,22 +5,47 @@ import java.math.BigDecimal;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import javax.sql.DataSource;
 
 import org.junit.jupiter.api.AfterEach;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import static org.mockito.Mockito.when;
 
+import com.bank.api.AccountHold;
+import com.bank.api.AccrualReport;
+import com.bank.api.BalanceAsOf;
+import com.bank.api.BalancePosting;
 import com.bank.api.Customer;
+import com.bank.api.CustomerChangeEvent;
 import com.bank.api.DepositAccount;
+import com.bank.api.DepositAccountChangeEvent;
 import com.bank.api.ICustomerService;
+import com.bank.api.IDepositAccountChangeListener;
+import com.bank.api.IIdempotencyStore;
+import com.bank.api.IUnitOfWork;
+import com.bank.api.PostingResult;
+import com.bank.api.SessionToken;
+import com.bank.persistence.TestSchema;
 
 public class DepositAccountServiceTest {
     
@@ -33,6 +58,8 @@ public class DepositAccountServiceTest {
     private static final String ID_NO = "030119-08-3006";
     private static final String PROFILE_PASSWORD = "alice123";
     private static final String WRONG_PASSWORD = "wrongpass";
+    private static final String OPERATOR_ID = "payroll";
+    private static final String OPERATOR_SECRET = "s3cret-operator";
     
     @BeforeEach
     public void setUp() throws Exception {
@@ -56,22 +83,58 @@ public class DepositAccountServiceTest {
         depositService = new DepositAccountServiceImpl();
         injectDependency(depositService, "customerService", mockCustomerService);
         injectDependency(depositService, "dataSource", mockDataSource);
-        
-        depositService.activate();
+        injectDependency(depositService, "idempotencyStore", new InMemoryIdempotencyStore());
         
         testConnection = DriverManager.getConnection(dbUrl, "sa", "");
+        TestSchema.recreate(testConnection);
+        
+        depositService.activate(depositConfig(3));
     }
     
     @AfterEach
     public void tearDown() throws SQLException {
         if (testConnection != null && !testConnection.isClosed()) {
-            // Clean up database
-            testConnection.createStatement().execute("DROP TABLE IF EXISTS DEPOSIT_ACCOUNT");
             testConnection.close();
         }
     }
     
 
+    private DepositConfig depositConfig(int batchChunkSize) {
+        DepositConfig config = Mockito.mock(DepositConfig.class);
+        when(config.operator_id()).thenReturn(OPERATOR_ID);
+        when(config.operator_secret_sha256()).thenReturn(DepositAccountServiceImpl.sha256Hex(OPERATOR_SECRET));
+        when(config.batch_chunk_size()).thenReturn(batchChunkSize);
+        when(config.account_cache_ttl_ms()).thenReturn(60_000L);
+        when(config.account_cache_size()).thenReturn(100);
+        // 3.65% over 365 days: 0.01% of the balance per day
+        when(config.interest_annual_rate()).thenReturn("0.0365");
+        when(config.interest_day_count()).thenReturn(365);
+        when(config.interest_chunk_size()).thenReturn(2);
+        return config;
+    }
+    
+    // Stand-in for the persistence bundle's store: remembers successful outcomes per scope and key
+    private static final class InMemoryIdempotencyStore implements IIdempotencyStore {
+        private final Map<String, String> outcomes = new HashMap<>();
+        
+        @Override
+        public String executeOnce(String scope, String key, String owner, IUnitOfWork.Work<String> work) {
+            String id = scope + "/" + key;
+            if (outcomes.containsKey(id)) {
+                return outcomes.get(id);
+            }
+            try {
+                String outcome = work.run();
+                if (outcome != null) {
+                    outcomes.put(id, outcome);
+                }
+                return outcome;
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+    
     private void injectDependency(Object target, String fieldName, Object dependency) throws Exception {
         Field field = target.getClass().getDeclaredField(fieldName);
         field.setAccessible(true);
@@ -171,6 +234,21 @@ public class DepositAccountServiceTest {
         assertEquals("Closed", result.getStatus());
     }
     
+    @Test
+    @DisplayName("Close deposit account - Listeners are told about the closure")
+    public void testCloseDepositAccount_PublishesEvent() throws Exception {
+        List<DepositAccountChangeEvent> events = new ArrayList<>();
+        injectDependency(depositService, "changeListeners", List.<IDepositAccountChangeListener>of(events::add));
+        String accountId = depositService.createDepositAccount(ID_NO, PROFILE_PASSWORD, null).getAccountId();
+        
+        depositService.closeDepositAccount(ID_NO, PROFILE_PASSWORD);
+        
+        assertEquals(1, events.size());
+        assertEquals(DepositAccountChangeEvent.Type.CLOSED, events.get(0).getType());
+        assertEquals(accountId, events.get(0).getAccountId());
+        assertEquals(CUSTOMER_ID, events.get(0).getCustomerId());
+    }
+    
     @Test
     @DisplayName("Close deposit account - Invalid password")
     public void testCloseDepositAccount_InvalidPassword() {
@@ -434,4 +512,400 @@ public class DepositAccountServiceTest {
         assertEquals("Active", getResult.getStatus());
         assertEquals(new BigDecimal("700.00"), getResult.getBalance());
     }
+    
+    @Test
+    @DisplayName("Session variants - Operate without password verification")
+    public void testSessionVariants_SkipPasswordVerification() {
+        SessionToken session = new SessionToken("session-1", Instant.MAX);
+        Customer customer = new Customer(CUSTOMER_ID, "Alice Johnson", "alice@example.com");
+        customer.setIdentificationNo(ID_NO);
+        when(mockCustomerService.validateSession(session)).thenReturn(customer);
+        
+        assertNotNull(depositService.createDepositAccount(session, new BigDecimal("100.00")));
+        assertEquals(new BigDecimal("150.00"), depositService.depositFunds(session, new BigDecimal("50.00")).getBalance());
+        assertEquals(new BigDecimal("120.00"), depositService.withdrawFunds(session, new BigDecimal("30.00")).getBalance());
+        assertEquals("Frozen", depositService.updateDepositAccountStatus(session, "FREEZE").getStatus());
+        assertEquals("Closed", depositService.closeDepositAccount(session).getStatus());
+        
+        Mockito.verify(mockCustomerService, Mockito.never()).verifyLogin(Mockito.anyString(), Mockito.anyString());
+    }
+    
+    @Test
+    @DisplayName("Session variants - Fail - Unknown session")
+    public void testSessionVariants_UnknownSession() {
+        SessionToken session = new SessionToken("expired", Instant.MAX);
+        
+        assertNull(depositService.createDepositAccount(session, null));
+        assertNull(depositService.getDepositAccount(session));
+        assertNull(depositService.depositFunds(session, new BigDecimal("10.00")));
+    }
+    
+    @Test
+    @DisplayName("Concurrent deposits and withdrawals on one account - No lost updates")
+    public void testConcurrentUpdates_SameAccountStaysConsistent() throws Exception {
+        depositService.createDepositAccount(ID_NO, PROFILE_PASSWORD, new BigDecimal("1000.00"));
+        
+        int threads = 8;
+        int operations = 25;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                boolean deposit = t % 2 == 0;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < operations; i++) {
+                        DepositAccount result = deposit
+                            ? depositService.depositFunds(ID_NO, PROFILE_PASSWORD, new BigDecimal("3.00"))
+                            : depositService.withdrawFunds(ID_NO, PROFILE_PASSWORD, new BigDecimal("1.00"));
+                        assertNotNull(result);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        
+        // 4 threads deposit 25 x 3.00, 4 threads withdraw 25 x 1.00
+        assertEquals(new BigDecimal("1200.00"), depositService.getDepositAccount(ID_NO, PROFILE_PASSWORD).getBalance());
+    }
+    
+    @Test
+    @DisplayName("Balance changes - Applied to the stored balance, not the one read earlier")
+    public void testBalanceChanges_UseStoredBalance() throws SQLException {
+        depositService.createDepositAccount(ID_NO, PROFILE_PASSWORD, new BigDecimal("100.00"));
+        // Another bundle (e.g. a transfer) moves money out behind the service's back
+        testConnection.createStatement().executeUpdate("UPDATE DEPOSIT_ACCOUNT SET BALANCE = 10.00");
+        
+        assertNull(depositService.withdrawFunds(ID_NO, PROFILE_PASSWORD, new BigDecimal("50.00")));
+        assertEquals(new BigDecimal("15.00"), depositService.depositFunds(ID_NO, PROFILE_PASSWORD, new BigDecimal("5.00")).getBalance());
+        assertEquals(new BigDecimal("0.00"), depositService.withdrawFunds(ID_NO, PROFILE_PASSWORD, new BigDecimal("15.00")).getBalance());
+    }
+    
+    @Test
+    @DisplayName("Batch posting - Applies postings in order with per-entry results")
+    public void testPostBatch_PerEntryResults() throws SQLException {
+        String accountId = depositService.createDepositAccount(ID_NO, PROFILE_PASSWORD, new BigDecimal("100.00")).getAccountId();
+        testConnection.createStatement().execute("INSERT INTO DEPOSIT_ACCOUNT (ACCOUNT_ID, CUSTOMER_ID, BALANCE, STATUS, CREATED_AT) "
+            + "VALUES ('DAFROZEN', 'CUSTFROZEN', 50.00, 'Frozen', CURRENT_TIMESTAMP)");
+        
+        // Chunk size is 3, so the postings span three transactions
+        List<PostingResult> results = depositService.postBatch(OPERATOR_ID, OPERATOR_SECRET, List.of(
+            BalancePosting.debit(accountId, new BigDecimal("150.00")),
+            BalancePosting.credit(accountId, new BigDecimal("100.00")),
+            BalancePosting.debit(accountId, new BigDecimal("150.00")),
+            BalancePosting.credit("DAMISSING", new BigDecimal("10.00")),
+            BalancePosting.credit("DAFROZEN", new BigDecimal("10.00")),
+            BalancePosting.credit(accountId, BigDecimal.ZERO),
+            BalancePosting.debit(accountId, new BigDecimal("60.00"))));
+        
+        assertEquals(7, results.size());
+        assertEquals(PostingResult.Status.INSUFFICIENT_FUNDS, results.get(0).getStatus());
+        assertEquals(PostingResult.Status.APPLIED, results.get(1).getStatus());
+        assertEquals(PostingResult.Status.APPLIED, results.get(2).getStatus());
+        assertEquals(PostingResult.Status.ACCOUNT_NOT_FOUND, results.get(3).getStatus());
+        assertEquals(PostingResult.Status.ACCOUNT_NOT_ACTIVE, results.get(4).getStatus());
+        assertEquals(PostingResult.Status.INVALID, results.get(5).getStatus());
+        assertEquals(PostingResult.Status.INSUFFICIENT_FUNDS, results.get(6).getStatus());
+        assertEquals(new BigDecimal("50.00"), depositService.getDepositAccount(ID_NO, PROFILE_PASSWORD).getBalance());
+        
+        Mockito.verify(mockCustomerService, Mockito.never()).verifyLogin(Mockito.anyString(), Mockito.eq(OPERATOR_SECRET));
+    }
+    
+    @Test
+    @DisplayName("Batch posting - Fail - Operator credential rejected")
+    public void testPostBatch_RejectsWrongOperatorSecret() {
+        String accountId = depositService.createDepositAccount(ID_NO, PROFILE_PASSWORD, new BigDecimal("100.00")).getAccountId();
+        
+        assertNull(depositService.postBatch(OPERATOR_ID, "guess", List.of(BalancePosting.credit(accountId, BigDecimal.TEN))));
+        assertNull(depositService.postBatch("someone", OPERATOR_SECRET, List.of(BalancePosting.credit(accountId, BigDecimal.TEN))));
+        assertEquals(new BigDecimal("100.00"), depositService.getDepositAccount(ID_NO, PROFILE_PASSWORD).getBalance());
+    }
+    
+    @Test
+    @DisplayName("Idempotent deposit and withdrawal - Retry returns the first outcome")
+    public void testIdempotencyKey_RetryReturnsFirstOutcome() {
+        depositService.createDepositAccount(ID_NO, PROFILE_PASSWORD, new BigDecimal("100.00"));
+        
+        DepositAccount first = depositService.depositFunds(ID_NO, PROFILE_PASSWORD, new BigDecimal("50.00"), "dep-1");
+        DepositAccount retry = depositService.depositFunds(ID_NO, PROFILE_PASSWORD, new BigDecimal("50.00"), "dep-1");
+        assertEquals(new BigDecimal("150.00"), first.getBalance());
+        assertEquals(first.getAccountId(), retry.getAccountId());
+        assertEquals(new BigDecimal("150.00"), retry.getBalance());
+        
+        assertEquals(new BigDecimal("120.00"), depositService.withdrawFunds(ID_NO, PROFILE_PASSWORD, new BigDecimal("30.00"), "wd-1").getBalance());
+        assertEquals(new BigDecimal("120.00"), depositService.withdrawFunds(ID_NO, PROFILE_PASSWORD, new BigDecimal("30.00"), "wd-1").getBalance());
+        assertEquals(new BigDecimal("120.00"), depositService.getDepositAccount(ID_NO, PROFILE_PASSWORD).getBalance());
+        
+        // A rejected withdrawal is not remembered, so the key can be retried once funds arrive
+        assertNull(depositService.withdrawFunds(ID_NO, PROFILE_PASSWORD, new BigDecimal("500.00"), "wd-2"));
+        depositService.depositFunds(ID_NO, PROFILE_PASSWORD, new BigDecimal("400.00"));
+        assertEquals(new BigDecimal("20.00"), depositService.withdrawFunds(ID_NO, PROFILE_PASSWORD, new BigDecimal("500.00"), "wd-2").getBalance());
+    }
+    
+    @Test
+    @DisplayName("Account cache - Reads are served from memory and refreshed by the service's writes")
+    public void testAccountCache_ServesReadsFromMemory() throws SQLException {
+        depositService.createDepositAccount(ID_NO, PROFILE_PASSWORD, new BigDecimal("100.00"));
+        // Changed behind the service's back: not visible until the entry expires or the service writes
+        testConnection.createStatement().executeUpdate("UPDATE DEPOSIT_ACCOUNT SET BALANCE = 70.00");
+        assertEquals(new BigDecimal("100.00"), depositService.getDepositAccount(ID_NO, PROFILE_PASSWORD).getBalance());
+        
+        // The credit is applied to the stored balance and its result replaces the cached one
+        assertEquals(new BigDecimal("80.00"), depositService.depositFunds(ID_NO, PROFILE_PASSWORD, new BigDecimal("10.00")).getBalance());
+        assertEquals(new BigDecimal("80.00"), depositService.getDepositAccount(ID_NO, PROFILE_PASSWORD).getBalance());
+        
+        // A transfer from the transaction bundle reports the balances it changed once committed
+        testConnection.createStatement().executeUpdate("UPDATE DEPOSIT_ACCOUNT SET BALANCE = 95.00");
+        depositService.balancesChanged(List.of(CUSTOMER_ID, "SOMEONE-ELSE"));
+        assertEquals(new BigDecimal("95.00"), depositService.getDepositAccount(ID_NO, PROFILE_PASSWORD).getBalance());
+        
+        // Status changes write through as well
+        depositService.updateDepositAccountStatus(ID_NO, PROFILE_PASSWORD, "FREEZE");
+        assertEquals("Frozen", depositService.getDepositAccount(ID_NO, PROFILE_PASSWORD).getStatus());
+        
+        // Disabling the cache goes back to reading the table
+        DepositConfig uncached = depositConfig(3);
+        when(uncached.account_cache_ttl_ms()).thenReturn(0L);
+        depositService.modified(uncached);
+        testConnection.createStatement().executeUpdate("UPDATE DEPOSIT_ACCOUNT SET BALANCE = 70.00");
+        assertEquals(new BigDecimal("70.00"), depositService.getDepositAccount(ID_NO, PROFILE_PASSWORD).getBalance());
+    }
+    
+    @Test
+    @DisplayName("Trusted lookups - By account ID, customer ID and identification number, single and batched")
+    public void testLookups_FindAccountsWithoutCredentials() throws SQLException {
+        String accountId = depositService.createDepositAccount(ID_NO, PROFILE_PASSWORD, new BigDecimal("100.00")).getAccountId();
+        testConnection.createStatement().execute("INSERT INTO DEPOSIT_ACCOUNT (ACCOUNT_ID, CUSTOMER_ID, BALANCE, STATUS, CREATED_AT) "
+            + "VALUES ('DAOTHER', 'CUSTOTHER', 5.00, 'Frozen', CURRENT_TIMESTAMP)");
+        
+        assertEquals(CUSTOMER_ID, depositService.findByAccountId(accountId).getCustomerId());
+        assertEquals(accountId, depositService.findByCustomerId(CUSTOMER_ID).getAccountId());
+        assertNull(depositService.findByAccountId("DAMISSING"));
+        
+        Map<String, DepositAccount> byAccount = depositService.findByAccountIds(List.of(accountId, "DAOTHER", "DAMISSING"));
+        assertEquals(2, byAccount.size());
+        assertEquals("Frozen", byAccount.get("DAOTHER").getStatus());
+        
+        Map<String, DepositAccount> byCustomer = depositService.findByCustomerIds(List.of(CUSTOMER_ID, "CUSTOTHER", "CUSTMISSING"));
+        assertEquals(2, byCustomer.size());
+        assertEquals(accountId, byCustomer.get(CUSTOMER_ID).getAccountId());
+        assertEquals(new BigDecimal("5.00"), byCustomer.get("CUSTOTHER").getBalance());
+        
+        Mockito.verify(mockCustomerService, Mockito.times(1)).verifyLogin(Mockito.anyString(), Mockito.anyString());
+    }
+    
+    @Test
+    @DisplayName("Trusted lookups - Identification number mapping is cached until the number changes")
+    public void testLookups_IdentificationMappingFollowsChangeEvents() {
+        String accountId = depositService.createDepositAccount(ID_NO, PROFILE_PASSWORD, new BigDecimal("100.00")).getAccountId();
+        
+        assertEquals(accountId, depositService.findByIdentificationNo(ID_NO).getAccountId());
+        assertEquals(accountId, depositService.findByIdentificationNo(ID_NO).getAccountId());
+        // createDepositAccount resolved the customer once, the first lookup once, the second not at all
+        Mockito.verify(mockCustomerService, Mockito.times(2)).getCustomer(ID_NO);
+        
+        // The customer re-registers under a new number; the old one no longer resolves
+        Customer renamed = new Customer(CUSTOMER_ID, "Alice Johnson", "alice@example.com");
+        renamed.setIdentificationNo("990101-01-0001");
+        when(mockCustomerService.getCustomer(ID_NO)).thenReturn(null);
+        when(mockCustomerService.getCustomer("990101-01-0001")).thenReturn(renamed);
+        depositService.customerChanged(new CustomerChangeEvent(CustomerChangeEvent.Type.IDENTIFICATION_CHANGED, renamed, ID_NO));
+        
+        assertNull(depositService.findByIdentificationNo(ID_NO));
+        assertEquals(accountId, depositService.findByIdentificationNo("990101-01-0001").getAccountId());
+        assertNull(depositService.findByIdentificationNo("UNKNOWN"));
+    }
+    
+    @Test
+    @DisplayName("Interest accrual - Credits Active accounts once per business date")
+    public void testAccrueInterest_CreditsOncePerDate() throws SQLException {
+        insertAccounts("('DA1', 'C1', 1000.00, 'Active'), ('DA2', 'C2', 150.00, 'Active'), ('DA3', 'C3', 50.00, 'Active'), "
+            + "('DA4', 'C4', 1000.00, 'Frozen'), ('DA5', 'C5', 0.00, 'Active')");
+        LocalDate date = LocalDate.of(2026, 10, 16);
+        
+        AccrualReport report = depositService.accrueInterest(OPERATOR_ID, OPERATOR_SECRET, date);
+        
+        // 150.00 accrues 0.015 and 50.00 accrues 0.005; HALF_EVEN takes both to the even cent
+        assertEquals(new BigDecimal("1000.10"), balanceOf("DA1"));
+        assertEquals(new BigDecimal("150.02"), balanceOf("DA2"));
+        assertEquals(new BigDecimal("50.00"), balanceOf("DA3"));
+        assertEquals(new BigDecimal("1000.00"), balanceOf("DA4"));
+        assertTrue(report.isCompleted());
+        assertEquals(2, report.getAccountsAccrued());
+        assertEquals(new BigDecimal("0.12"), report.getInterestAccrued());
+        assertEquals(2, report.getChunks());
+        
+        AccrualReport again = depositService.accrueInterest(OPERATOR_ID, OPERATOR_SECRET, date);
+        assertTrue(again.isCompleted());
+        assertEquals(0, again.getAccountsAccrued());
+        assertEquals(2, again.getTotalAccounts());
+        assertEquals(new BigDecimal("1000.10"), balanceOf("DA1"));
+        
+        assertNull(depositService.accrueInterest(OPERATOR_ID, "wrong", date.plusDays(1)));
+    }
+    
+    @Test
+    @DisplayName("Interest accrual - Resumes after the last committed chunk with the original rate")
+    public void testAccrueInterest_ResumesFromCheckpoint() throws SQLException {
+        insertAccounts("('DA1', 'C1', 1000.00, 'Active'), ('DA2', 'C2', 1000.00, 'Active'), "
+            + "('DA3', 'C3', 1000.00, 'Active'), ('DA4', 'C4', 1000.00, 'Active')");
+        // An earlier run at twice the rate committed DA1 and DA2, then stopped
+        testConnection.createStatement().execute("INSERT INTO INTEREST_ACCRUAL_RUN "
+            + "(BUSINESS_DATE, ANNUAL_RATE, DAY_COUNT, LAST_ACCOUNT_ID, ACCOUNTS_ACCRUED, TOTAL_INTEREST, STATUS, STARTED_AT, UPDATED_AT) "
+            + "VALUES (DATE '2026-10-16', 0.073, 365, 'DA2', 2, 0.40, 'RUNNING', CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)");
+        
+        AccrualReport report = depositService.accrueInterest(OPERATOR_ID, OPERATOR_SECRET, LocalDate.of(2026, 10, 16));
+        
+        assertTrue(report.isResumed());
+        assertEquals(new BigDecimal("1000.00"), balanceOf("DA2"));
+        assertEquals(new BigDecimal("1000.20"), balanceOf("DA3"));
+        assertEquals(new BigDecimal("1000.20"), balanceOf("DA4"));
+        assertEquals(2, report.getAccountsAccrued());
+        assertEquals(4, report.getTotalAccounts());
+        assertEquals(new BigDecimal("0.80"), report.getTotalInterest());
+    }
+    
+    private void insertAccounts(String rows) throws SQLException {
+        testConnection.createStatement().execute("INSERT INTO DEPOSIT_ACCOUNT (ACCOUNT_ID, CUSTOMER_ID, BALANCE, STATUS, CREATED_AT) "
+            + "SELECT ID, CUST, BAL, ST, CURRENT_TIMESTAMP FROM (VALUES " + rows + ") AS V(ID, CUST, BAL, ST)");
+    }
+    
+    private BigDecimal balanceOf(String accountId) throws SQLException {
+        try (var rs = testConnection.createStatement().executeQuery(
+                "SELECT BALANCE FROM DEPOSIT_ACCOUNT WHERE ACCOUNT_ID = '" + accountId + "'")) {
+            rs.next();
+            return rs.getBigDecimal(1);
+        }
+    }
+    
+    @Test
+    @DisplayName("Balance as of a date - Only the date's own snapshot is used")
+    public void testGetBalanceAsOf_ReadsTheDatesSnapshot() throws SQLException {
+        String accountId = depositService.createDepositAccount(ID_NO, PROFILE_PASSWORD, new BigDecimal("100.00")).getAccountId();
+        testConnection.createStatement().execute("INSERT INTO BALANCE_SNAPSHOT VALUES "
+            + "('" + accountId + "', DATE '2020-03-10', 500.00, TIMESTAMP '2020-03-10 23:59:00'), "
+            + "('" + accountId + "', DATE '2020-03-12', 700.00, TIMESTAMP '2020-03-13 00:05:00')");
+        
+        BalanceAsOf snapshotDay = depositService.getBalanceAsOf(ID_NO, PROFILE_PASSWORD, LocalDate.of(2020, 3, 10));
+        assertEquals(new BigDecimal("500.00"), snapshotDay.getBalance());
+        assertTrue(snapshotDay.isFromSnapshot());
+        assertEquals(new BigDecimal("700.00"), depositService.getBalanceAsOf(ID_NO, PROFILE_PASSWORD, LocalDate.of(2020, 3, 12)).getBalance());
+        
+        // Deposits and withdrawals leave no ledger entry, so a day without a snapshot is not
+        // worked out from a neighbouring one
+        depositService.depositFunds(ID_NO, PROFILE_PASSWORD, new BigDecimal("25.00"));
+        assertNull(depositService.getBalanceAsOf(ID_NO, PROFILE_PASSWORD, LocalDate.of(2020, 3, 11)));
+        assertNull(depositService.getBalanceAsOf(ID_NO, PROFILE_PASSWORD, LocalDate.of(2020, 3, 9)));
+        assertNull(depositService.getBalanceAsOf(ID_NO, WRONG_PASSWORD, LocalDate.of(2020, 3, 10)));
+    }
+    
+    @Test
+    @DisplayName("Balance snapshots - One row per account per date")
+    public void testBalanceSnapshots_TakeOncePerDate() throws SQLException {
+        depositService.createDepositAccount(ID_NO, PROFILE_PASSWORD, new BigDecimal("100.00"));
+        insertAccounts("('DA1', 'C1', 10.00, 'Closed')");
+        BalanceSnapshots snapshots = new BalanceSnapshots(mockDataSource);
+        
+        assertEquals(2, snapshots.take(LocalDate.of(2020, 3, 10)));
+        assertEquals(0, snapshots.take(LocalDate.of(2020, 3, 10)));
+        assertEquals(2, snapshots.take(LocalDate.of(2020, 3, 11)));
+    }
+    
+    @Test
+    @DisplayName("Hot account - Slot credits count towards reads and cover withdrawals")
+    public void testHotAccount_SlotsCountTowardsBalance() throws SQLException {
+        String accountId = depositService.createDepositAccount(ID_NO, PROFILE_PASSWORD, new BigDecimal("100.00")).getAccountId();
+        assertTrue(depositService.setHotAccountSlots(OPERATOR_ID, OPERATOR_SECRET, accountId, 4));
+        // Transfers from the transaction bundle credit the slots
+        testConnection.createStatement().executeUpdate(
+            "UPDATE ACCOUNT_BALANCE_SLOT SET AMOUNT = AMOUNT + 30.00 WHERE ACCOUNT_ID = '" + accountId + "' AND SLOT IN (1, 3)");
+        
+        assertEquals(new BigDecimal("160.00"), depositService.getDepositAccount(ID_NO, PROFILE_PASSWORD).getBalance());
+        assertEquals(new BigDecimal("170.00"), depositService.depositFunds(ID_NO, PROFILE_PASSWORD, new BigDecimal("10.00")).getBalance());
+        assertEquals(new BigDecimal("110.00"), balanceOf(accountId));
+        
+        // The row alone no longer covers this, so the slots are folded in first
+        assertEquals(new BigDecimal("20.00"), depositService.withdrawFunds(ID_NO, PROFILE_PASSWORD, new BigDecimal("150.00")).getBalance());
+        assertEquals(new BigDecimal("20.00"), balanceOf(accountId));
+        assertNull(depositService.withdrawFunds(ID_NO, PROFILE_PASSWORD, new BigDecimal("20.01")));
+    }
+    
+    @Test
+    @DisplayName("Hot account - Consolidation and turning hot mode off fold the slots into the row")
+    public void testHotAccount_ConsolidateAndTurnOff() throws SQLException {
+        String accountId = depositService.createDepositAccount(ID_NO, PROFILE_PASSWORD, new BigDecimal("100.00")).getAccountId();
+        assertTrue(depositService.setHotAccountSlots(OPERATOR_ID, OPERATOR_SECRET, accountId, 2));
+        testConnection.createStatement().executeUpdate(
+            "UPDATE ACCOUNT_BALANCE_SLOT SET AMOUNT = 5.00 WHERE ACCOUNT_ID = '" + accountId + "'");
+        
+        HotAccountLedger ledger = new HotAccountLedger(mockDataSource);
+        assertEquals(1, ledger.consolidate());
+        assertEquals(0, ledger.consolidate());
+        assertEquals(new BigDecimal("110.00"), balanceOf(accountId));
+        
+        testConnection.createStatement().executeUpdate(
+            "UPDATE ACCOUNT_BALANCE_SLOT SET AMOUNT = 7.50 WHERE ACCOUNT_ID = '" + accountId + "' AND SLOT = 0");
+        assertTrue(depositService.setHotAccountSlots(OPERATOR_ID, OPERATOR_SECRET, accountId, 0));
+        assertEquals(new BigDecimal("117.50"), balanceOf(accountId));
+        try (var rs = testConnection.createStatement().executeQuery("SELECT COUNT(*) FROM ACCOUNT_BALANCE_SLOT")) {
+            rs.next();
+            assertEquals(0, rs.getInt(1));
+        }
+        
+        assertFalse(depositService.setHotAccountSlots(OPERATOR_ID, OPERATOR_SECRET, "DAMISSING", 2));
+        assertFalse(depositService.setHotAccountSlots(OPERATOR_ID, OPERATOR_SECRET, accountId, HotAccountLedger.MAX_SLOTS + 1));
+        assertFalse(depositService.setHotAccountSlots(OPERATOR_ID, "guess", accountId, 2));
+    }
+    
+    @Test
+    @DisplayName("Holds - Withdrawals see only the available balance until a hold is captured or released")
+    public void testHolds_ReserveCaptureRelease() throws SQLException {
+        String accountId = depositService.createDepositAccount(ID_NO, PROFILE_PASSWORD, new BigDecimal("100.00")).getAccountId();
+        
+        AccountHold card = depositService.placeHold(accountId, new BigDecimal("60.00"), "card auth 1", Duration.ofMinutes(30));
+        assertNotNull(card);
+        assertNull(depositService.placeHold(accountId, new BigDecimal("40.01"), "card auth 2", Duration.ofMinutes(30)));
+        AccountHold pending = depositService.placeHold(accountId, new BigDecimal("30.00"), "pending transfer", Duration.ofMinutes(30));
+        assertEquals(2, depositService.getActiveHolds(accountId).size());
+        
+        DepositAccount account = depositService.getDepositAccount(ID_NO, PROFILE_PASSWORD);
+        assertEquals(new BigDecimal("100.00"), account.getBalance());
+        assertEquals(new BigDecimal("10.00"), account.getAvailableBalance());
+        assertNull(depositService.withdrawFunds(ID_NO, PROFILE_PASSWORD, new BigDecimal("10.01")));
+        
+        // The merchant settles for less than was authorised; the rest becomes available again
+        assertNull(depositService.captureHold(card.getHoldId(), new BigDecimal("60.01")));
+        DepositAccount captured = depositService.captureHold(card.getHoldId(), new BigDecimal("45.00"));
+        assertEquals(new BigDecimal("55.00"), captured.getBalance());
+        assertEquals(new BigDecimal("30.00"), captured.getHeldBalance());
+        assertNull(depositService.captureHold(card.getHoldId(), new BigDecimal("1.00")));
+        
+        assertTrue(depositService.releaseHold(pending.getHoldId()));
+        assertFalse(depositService.releaseHold(pending.getHoldId()));
+        assertEquals(new BigDecimal("0.00"), depositService.withdrawFunds(ID_NO, PROFILE_PASSWORD, new BigDecimal("55.00")).getBalance());
+    }
+    
+    @Test
+    @DisplayName("Holds - Expired holds stop reserving funds")
+    public void testHolds_Expire() throws SQLException {
+        String accountId = depositService.createDepositAccount(ID_NO, PROFILE_PASSWORD, new BigDecimal("100.00")).getAccountId();
+        AccountHold first = depositService.placeHold(accountId, new BigDecimal("70.00"), "card auth 1", Duration.ofMinutes(30));
+        depositService.placeHold(accountId, new BigDecimal("20.00"), "card auth 2", Duration.ofMinutes(30));
+        testConnection.createStatement().executeUpdate("UPDATE ACCOUNT_HOLD SET EXPIRES_AT = DATEADD(MINUTE, -1, CURRENT_TIMESTAMP)");
+        
+        assertTrue(depositService.getActiveHolds(accountId).isEmpty());
+        assertFalse(depositService.releaseHold(first.getHoldId()));
+        // The withdrawal releases the expired holds it needs
+        assertEquals(new BigDecimal("5.00"), depositService.withdrawFunds(ID_NO, PROFILE_PASSWORD, new BigDecimal("95.00")).getBalance());
+        
+        depositService.placeHold(accountId, new BigDecimal("5.00"), "card auth 3", Duration.ofMinutes(30));
+        testConnection.createStatement().executeUpdate("UPDATE ACCOUNT_HOLD SET EXPIRES_AT = DATEADD(MINUTE, -1, CURRENT_TIMESTAMP)");
+        AccountHoldLedger ledger = new AccountHoldLedger(mockDataSource, customerId -> { });
+        assertEquals(1, ledger.sweep());
+        assertEquals(0, ledger.sweep());
+        assertEquals(new BigDecimal("5.00"), depositService.getDepositAccount(ID_NO, PROFILE_PASSWORD).getAvailableBalance());
+    }
 }
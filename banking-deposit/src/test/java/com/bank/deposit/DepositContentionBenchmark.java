@@ -0,0 +1,171 @@
+package com.bank.deposit;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.h2.jdbcx.JdbcConnectionPool;
+
+import com.bank.api.Customer;
+import com.bank.api.ICustomerService;
+import com.bank.api.SessionToken;
+import com.bank.persistence.TestSchema;
+
+/**
+ * Throughput of {@link DepositAccountServiceImpl#depositFunds} as the thread count
+ * grows from 1 to the number of cores. The spread scenario picks a random account
+ * per call and should scale; the hot scenario sends every call to one account and
+ * shows the cost of contention on a single stripe.
+ *
+ * <p>Not a unit test; run it from the IDE or with
+ * {@code mvn -pl banking-deposit -am test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.bank.deposit.DepositContentionBenchmark [-Dexec.args=seconds]}.
+ */
+public final class DepositContentionBenchmark {
+
+    private static final int ACCOUNTS = 1024;
+    private static final String PASSWORD = "Password1";
+
+    public static void main(String[] args) throws Exception {
+        long seconds = args.length > 0 ? Long.parseLong(args[0]) : 2;
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        JdbcConnectionPool pool = JdbcConnectionPool.create("jdbc:h2:mem:deposit-bench;DB_CLOSE_DELAY=-1", "sa", "");
+        pool.setMaxConnections(cores * 2);
+        try (Connection connection = pool.getConnection()) {
+            TestSchema.recreate(connection);
+        }
+
+        DepositAccountServiceImpl service = new DepositAccountServiceImpl();
+        inject(service, "customerService", new StubCustomerService());
+        inject(service, "dataSource", pool);
+
+        // The service logs every operation; keep the console for the results
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            for (int i = 0; i < ACCOUNTS; i++) {
+                service.createDepositAccount("IC" + i, PASSWORD, BigDecimal.ZERO);
+            }
+
+            console.printf("%d cores, %d accounts, %d s per run%n", cores, ACCOUNTS, seconds);
+            console.printf("%-8s %8s %14s %8s%n", "scenario", "threads", "ops/s", "speedup");
+            for (boolean hot : new boolean[] { false, true }) {
+                double baseline = 0;
+                for (int threads : threadCounts(cores)) {
+                    double throughput = run(service, threads, seconds, hot);
+                    if (threads == 1) {
+                        baseline = throughput;
+                    }
+                    console.printf("%-8s %8d %14.0f %7.2fx%n",
+                        hot ? "hot" : "spread", threads, throughput, throughput / baseline);
+                }
+            }
+        } finally {
+            System.setOut(console);
+            pool.dispose();
+        }
+    }
+
+    private static List<Integer> threadCounts(int cores) {
+        List<Integer> counts = new ArrayList<>();
+        for (int threads = 1; threads < cores; threads *= 2) {
+            counts.add(threads);
+        }
+        counts.add(cores);
+        return counts;
+    }
+
+    private static double run(DepositAccountServiceImpl service, int threads, long seconds, boolean hot)
+            throws InterruptedException {
+        LongAdder operations = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L + 100_000_000L;
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < deadline) {
+                    String identificationNo = hot ? "IC0" : "IC" + random.nextInt(ACCOUNTS);
+                    if (service.depositFunds(identificationNo, PASSWORD, BigDecimal.ONE) != null) {
+                        operations.increment();
+                    }
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        long began = System.nanoTime();
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return operations.sum() / ((System.nanoTime() - began) / 1e9);
+    }
+
+    private static void inject(Object target, String fieldName, Object value) throws Exception {
+        Field field = target.getClass().getDeclaredField(fieldName);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+
+    // Every customer "IC<n>" has ID "C<n>"; verifyLogin pays for one SHA-256 like the real service
+    private static final class StubCustomerService implements ICustomerService {
+
+        @Override
+        public boolean verifyLogin(String id, String password) {
+            try {
+                MessageDigest.getInstance("SHA-256").digest(password.getBytes(StandardCharsets.UTF_8));
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            return PASSWORD.equals(password);
+        }
+
+        @Override
+        public Customer getCustomer(String id) {
+            Customer customer = new Customer("C" + id.substring(2), "Customer " + id, id + "@example.com");
+            customer.setIdentificationNo(id);
+            customer.setStatus("ACTIVE");
+            return customer;
+        }
+
+        @Override
+        public Customer createCustomer(String name, String email) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Customer updateCustomer(String id, String name, String email) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public SessionToken login(String id, String password) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Customer validateSession(SessionToken token) {
+            return null;
+        }
+
+        @Override
+        public void logout(SessionToken token) {
+        }
+    }
+}
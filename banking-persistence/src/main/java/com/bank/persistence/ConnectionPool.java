@@ -0,0 +1,293 @@
+package com.bank.persistence;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.sql.DataSource;
+
+/**
+ * Bounded pool of physical JDBC connections. Borrowers receive a proxy whose
+ * {@code close()} hands the physical connection back instead of closing it.
+ */
+final class ConnectionPool implements AutoCloseable {
+
+    private static final long HOUSEKEEPING_PERIOD_MILLIS = 30_000;
+    private static final long VALIDATION_BYPASS_MILLIS = 500;
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    private final DataSource source;
+    private final int minSize;
+    private final int maxSize;
+    private final long acquireTimeoutMillis;
+    private final long idleTimeoutMillis;
+    private final int statementCacheSize;
+
+    private final Semaphore permits;
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final AtomicInteger totalConnections = new AtomicInteger();
+    private final AtomicInteger activeConnections = new AtomicInteger();
+    private final AtomicInteger awaitingConnection = new AtomicInteger();
+    private final LongAdder acquired = new LongAdder();
+    private final LongAdder created = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+    private final LongAdder acquireTimeouts = new LongAdder();
+    private final LongAdder validationFailures = new LongAdder();
+    private final LongAdder statementCacheHits = new LongAdder();
+    private final LongAdder statementCacheMisses = new LongAdder();
+    private final ScheduledExecutorService housekeeper;
+
+    private volatile boolean closed;
+
+    ConnectionPool(DataSource source, int minSize, int maxSize, long acquireTimeoutMillis, long idleTimeoutMillis,
+                   int statementCacheSize) {
+        if (maxSize < 1 || minSize < 0 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool bounds: min=" + minSize + ", max=" + maxSize);
+        }
+        this.source = source;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.statementCacheSize = statementCacheSize;
+        this.permits = new Semaphore(maxSize, true);
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "bank-connection-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        fillToMinimum();
+        housekeeper.scheduleWithFixedDelay(this::housekeep,
+            HOUSEKEEPING_PERIOD_MILLIS, HOUSEKEEPING_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    Connection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+        awaitingConnection.incrementAndGet();
+        try {
+            if (!permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                acquireTimeouts.increment();
+                throw new SQLTransientConnectionException(String.format(
+                    "Timed out after %dms waiting for a connection (active=%d, max=%d)",
+                    acquireTimeoutMillis, activeConnections.get(), maxSize));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a connection", e);
+        } finally {
+            awaitingConnection.decrementAndGet();
+        }
+
+        try {
+            if (closed) {
+                throw new SQLException("Connection pool is closed");
+            }
+            PooledConnection connection;
+            while ((connection = idle.pollFirst()) != null) {
+                if (isUsable(connection)) {
+                    return lease(connection);
+                }
+                validationFailures.increment();
+                destroy(connection);
+            }
+            return lease(open());
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    void release(PooledConnection connection) {
+        activeConnections.decrementAndGet();
+        try {
+            boolean reusable = !closed
+                && !connection.isBroken()
+                && totalConnections.get() <= maxSize
+                && connection.reset();
+            if (reusable) {
+                connection.markReturned();
+                idle.offerFirst(connection);
+            } else {
+                destroy(connection);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+        PooledConnection connection;
+        while ((connection = idle.pollFirst()) != null) {
+            destroy(connection);
+        }
+    }
+
+    /**
+     * Closes the pool and waits for borrowed connections to be returned; each one
+     * is closed as it comes back. Returns false if some were still out at the deadline.
+     */
+    boolean drain(long timeoutMillis) {
+        close();
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (activeConnections.get() > 0) {
+            if (System.currentTimeMillis() >= deadline) {
+                return false;
+            }
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks that the pool reached its minimum size and that a connection answers, so a new
+     * pool can be rejected before it replaces a working one. Warm-up failures are only logged.
+     */
+    void verify(int timeoutSeconds) throws SQLException {
+        fillToMinimum();
+        if (totalConnections.get() < minSize) {
+            throw new SQLException("Opened only " + totalConnections.get() + " of " + minSize + " connections");
+        }
+        try (Connection connection = borrow()) {
+            if (!connection.isValid(timeoutSeconds)) {
+                throw new SQLException("Connection did not answer within " + timeoutSeconds + "s");
+            }
+        }
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    private Connection lease(PooledConnection connection) {
+        activeConnections.incrementAndGet();
+        acquired.increment();
+        return connection.lease();
+    }
+
+    private PooledConnection open() throws SQLException {
+        Connection physical = source.getConnection();
+        StatementCache statements = statementCacheSize > 0
+            ? new StatementCache(physical, statementCacheSize, statementCacheHits, statementCacheMisses)
+            : null;
+        PooledConnection connection = new PooledConnection(this, physical, statements);
+        totalConnections.incrementAndGet();
+        created.increment();
+        return connection;
+    }
+
+    private boolean isUsable(PooledConnection connection) {
+        if (System.currentTimeMillis() - connection.getLastReturnedAt() < VALIDATION_BYPASS_MILLIS) {
+            return true;
+        }
+        return connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+    }
+
+    private void destroy(PooledConnection connection) {
+        connection.closePhysical();
+        totalConnections.decrementAndGet();
+        evicted.increment();
+    }
+
+    private void housekeep() {
+        try {
+            evictIdle();
+            fillToMinimum();
+        } catch (RuntimeException e) {
+            System.err.println("Connection pool housekeeping failed: " + e.getMessage());
+        }
+    }
+
+    // Idle connections are kept most-recently-used first, so the oldest sit at the tail
+    private void evictIdle() {
+        long now = System.currentTimeMillis();
+        PooledConnection oldest;
+        while (totalConnections.get() > minSize && (oldest = idle.peekLast()) != null) {
+            if (now - oldest.getLastReturnedAt() < idleTimeoutMillis || !idle.removeLastOccurrence(oldest)) {
+                break;
+            }
+            destroy(oldest);
+        }
+    }
+
+    private void fillToMinimum() {
+        while (!closed && totalConnections.get() < minSize) {
+            try {
+                PooledConnection connection = open();
+                connection.markReturned();
+                idle.offerLast(connection);
+            } catch (SQLException e) {
+                System.err.println("Failed to open pooled connection: " + e.getMessage());
+                return;
+            }
+        }
+    }
+
+    int getActiveConnections() {
+        return activeConnections.get();
+    }
+
+    int getIdleConnections() {
+        return idle.size();
+    }
+
+    int getTotalConnections() {
+        return totalConnections.get();
+    }
+
+    int getMinSize() {
+        return minSize;
+    }
+
+    int getMaxSize() {
+        return maxSize;
+    }
+
+    int getThreadsAwaitingConnection() {
+        return awaitingConnection.get();
+    }
+
+    long getConnectionsAcquired() {
+        return acquired.sum();
+    }
+
+    long getConnectionsCreated() {
+        return created.sum();
+    }
+
+    long getConnectionsEvicted() {
+        return evicted.sum();
+    }
+
+    long getAcquireTimeouts() {
+        return acquireTimeouts.sum();
+    }
+
+    long getValidationFailures() {
+        return validationFailures.sum();
+    }
+
+    long getStatementCacheHits() {
+        return statementCacheHits.sum();
+    }
+
+    long getStatementCacheMisses() {
+        return statementCacheMisses.sum();
+    }
+}
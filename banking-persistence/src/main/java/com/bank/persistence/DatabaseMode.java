@@ -0,0 +1,24 @@
+package com.bank.persistence;
+
+/**
+ * How the shared H2 database is opened.
+ */
+public enum DatabaseMode {
+    /** File database opened exclusively by this JVM. */
+    EMBEDDED,
+    /** File database that other processes (e.g. the H2 console) may attach to. */
+    AUTO_SERVER,
+    /** Private in-memory database, discarded when the framework stops. */
+    MEMORY;
+
+    String baseUrl(String databasePath) {
+        switch (this) {
+            case MEMORY:
+                return "jdbc:h2:mem:bankdb;DB_CLOSE_DELAY=-1";
+            case AUTO_SERVER:
+                return "jdbc:h2:" + databasePath + ";AUTO_SERVER=TRUE";
+            default:
+                return "jdbc:h2:" + databasePath;
+        }
+    }
+}
@@ -4,6 +4,8 @@ import java.io.PrintWriter;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.SQLFeatureNotSupportedException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
 import javax.sql.DataSource;
@@ -13,49 +15,231 @@ import org.h2.tools.Server;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Modified;
+
+import com.bank.api.IConnectionPoolMetrics;
+import com.bank.api.IIdempotencyStore;
+import com.bank.api.IQueryStatistics;
+import com.bank.api.IUnitOfWork;
+import com.bank.api.LatencyStatistics;
+import com.bank.api.StatementStatistics;
 
 /**
- * Provides a shared H2 DataSource as an OSGi service for all bundles.
+ * Provides a shared, pooled H2 DataSource as an OSGi service for all bundles.
+ * Pool gauges are published alongside it as {@link IConnectionPoolMetrics}, and
+ * {@link IUnitOfWork} lets a call chain share one connection and transaction.
+ * Handed-out connections are instrumented (see {@link QueryStatistics}) and the
+ * results are published as {@link IQueryStatistics}. {@link IIdempotencyStore}
+ * records retried operations in the same unit of work as the operation itself.
+ *
+ * <p>Settings come from the {@code com.bank.persistence} configuration PID
+ * (see {@link PersistenceConfig}). A configuration update builds and verifies a
+ * new pool first, swaps it in, then drains the old one in the background, so
+ * callers never see a gap and an unreachable database is rejected up front.
+ *
+ * <p>The schema is migrated (see {@link SchemaMigrator}) before the service is
+ * usable, so components referencing the DataSource always see current tables.
  */
-@Component(service = DataSource.class, immediate = true)
-public class H2DataSourceProvider implements DataSource {
+@Component(
+    service = { DataSource.class, IConnectionPoolMetrics.class, IUnitOfWork.class, IQueryStatistics.class,
+                IIdempotencyStore.class },
+    immediate = true,
+    configurationPid = H2DataSourceProvider.PID
+)
+public class H2DataSourceProvider
+        implements DataSource, IConnectionPoolMetrics, IUnitOfWork, IQueryStatistics, IIdempotencyStore {
+
+    static final String PID = "com.bank.persistence";
 
-    private static final String JDBC_URL = "jdbc:h2:./bankdb;AUTO_SERVER=TRUE";
-    private static final String JDBC_USER = "sa";
-    private static final String JDBC_PASSWORD = "";
+    private static final int VERIFY_TIMEOUT_SECONDS = 5;
 
-    private JdbcDataSource delegate;
+    private final UnitOfWorkScope unitOfWork = new UnitOfWorkScope();
+    private final QueryStatistics statistics = new QueryStatistics(0);
+    private final IdempotencyStore idempotency =
+        new IdempotencyStore(unitOfWork, this::borrowPooled, this::getConnection, 0);
+
+    private volatile PersistenceConfig config;
+    private volatile JdbcDataSource delegate;
+    private volatile ConnectionPool pool;
     private Server webServer;
 
     @Activate
-    void activate() {
+    void activate(PersistenceConfig config) {
+        this.config = config;
+        statistics.setSlowQueryThresholdMillis(config.slow_query_threshold_ms());
+        idempotency.setRetentionMillis(TimeUnit.HOURS.toMillis(config.idempotency_retention_hours()));
+        this.delegate = createDelegate(config);
+        this.pool = createPool(delegate, config);
+        try {
+            migrateSchema(pool);
+        } catch (IllegalStateException e) {
+            pool.close();
+            throw e;
+        }
+        if (config.console_enabled()) {
+            startConsole(config.console_port());
+        }
+        System.out.println("H2 DataSource started at " + delegate.getURL()
+            + " (pool " + config.pool_min_size() + ".." + config.pool_max_size() + ")");
+    }
 
+    @Modified
+    synchronized void modified(PersistenceConfig newConfig) {
+        PersistenceConfig oldConfig = this.config;
+        JdbcDataSource newDelegate = createDelegate(newConfig);
+        ConnectionPool newPool = createPool(newDelegate, newConfig);
         try {
-            webServer = Server.createWebServer("-webPort", "8082", "-tcpAllowOthers").start();
-            System.out.println("H2 Web Console started at: " + webServer.getURL());
-        } catch (SQLException e) {
-            System.err.println("Failed to start H2 Web Console: " + e.getMessage());
+            newPool.verify(VERIFY_TIMEOUT_SECONDS);
+            migrateSchema(newPool);
+        } catch (SQLException | IllegalStateException e) {
+            newPool.close();
+            System.err.println("Reconfiguration rejected, keeping " + delegate.getURL() + ": " + e.getMessage());
+            return;
+        }
+
+        ConnectionPool oldPool = this.pool;
+        statistics.setSlowQueryThresholdMillis(newConfig.slow_query_threshold_ms());
+        idempotency.setRetentionMillis(TimeUnit.HOURS.toMillis(newConfig.idempotency_retention_hours()));
+        this.config = newConfig;
+        this.delegate = newDelegate;
+        this.pool = newPool;
+        System.out.println("H2 DataSource reconfigured to " + newDelegate.getURL()
+            + " (pool " + newConfig.pool_min_size() + ".." + newConfig.pool_max_size() + ")");
+
+        drainInBackground(oldPool, newConfig.pool_drain_timeout_ms());
+
+        if (oldConfig.console_enabled() != newConfig.console_enabled()
+                || oldConfig.console_port() != newConfig.console_port()) {
+            stopConsole();
+            if (newConfig.console_enabled()) {
+                startConsole(newConfig.console_port());
+            }
         }
+    }
 
-        delegate = new JdbcDataSource();
-        delegate.setURL(JDBC_URL);
-        delegate.setUser(JDBC_USER);
-        delegate.setPassword(JDBC_PASSWORD);
-        System.out.println("H2 DataSource started at " + JDBC_URL);
+    // Off the Config Admin thread: a long-running borrower must not hold up other configuration
+    private void drainInBackground(ConnectionPool oldPool, long timeoutMillis) {
+        Thread drainer = new Thread(() -> {
+            if (!oldPool.drain(timeoutMillis)) {
+                System.err.println("Previous connection pool still had " + oldPool.getActiveConnections()
+                    + " borrowed connection(s) after " + timeoutMillis + "ms; they will be closed on return.");
+            }
+        }, "bank-connection-pool-drain");
+        drainer.setDaemon(true);
+        drainer.start();
     }
 
     @Deactivate
     void deactivate() {
+        if (pool != null) {
+            pool.close();
+            pool = null;
+        }
         delegate = null;
+        stopConsole();
+    }
+
+    private JdbcDataSource createDelegate(PersistenceConfig config) {
+        String url = config.mode().baseUrl(config.database_path())
+            + storeSettings(config.cache_size_kb(), config.page_split_size(), config.compress());
+
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL(url);
+        dataSource.setUser(config.user());
+        dataSource.setPassword(config.password());
+        return dataSource;
+    }
+
+    /**
+     * URL settings for the store, as H2 2.2 reads them. H2 has no PAGE_SPLIT_SIZE setting: the
+     * MVStore page split size is taken from PAGE_SIZE. COMPRESS=TRUE fixes the split size at
+     * 64 KB, so a configured split size is dropped (with a warning) when compression is on.
+     */
+    static String storeSettings(int cacheSizeKb, int pageSplitSize, boolean compress) {
+        StringBuilder settings = new StringBuilder();
+        if (cacheSizeKb > 0) {
+            settings.append(";CACHE_SIZE=").append(cacheSizeKb);
+        }
+        if (compress) {
+            if (pageSplitSize > 0) {
+                System.err.println("page.split.size=" + pageSplitSize + " ignored: H2 uses 64 KB pages when compress is on");
+            }
+            settings.append(";COMPRESS=TRUE");
+        } else if (pageSplitSize > 0) {
+            settings.append(";PAGE_SIZE=").append(pageSplitSize);
+        }
+        return settings.toString();
+    }
+
+    private ConnectionPool createPool(JdbcDataSource dataSource, PersistenceConfig config) {
+        return new ConnectionPool(dataSource,
+            config.pool_min_size(),
+            config.pool_max_size(),
+            config.pool_acquire_timeout_ms(),
+            config.pool_idle_timeout_ms(),
+            config.statement_cache_size());
+    }
+
+    private void migrateSchema(ConnectionPool target) {
+        try (Connection connection = target.borrow()) {
+            int version = SchemaMigrator.migrate(connection);
+            System.out.println("Database schema at version " + version);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to migrate database schema", e);
+        }
+    }
+
+    private void startConsole(int port) {
+        try {
+            webServer = Server.createWebServer("-webPort", String.valueOf(port), "-tcpAllowOthers").start();
+            System.out.println("H2 Web Console started at: " + webServer.getURL());
+        } catch (SQLException e) {
+            System.err.println("Failed to start H2 Web Console: " + e.getMessage());
+        }
+    }
+
+    private void stopConsole() {
         if (webServer != null) {
             webServer.stop();
+            webServer = null;
             System.out.println("H2 Web Console stopped.");
         }
     }
 
     @Override
     public Connection getConnection() throws SQLException {
-        return delegate.getConnection();
+        Connection bound = unitOfWork.participant();
+        Connection connection = bound != null ? bound : borrowPooled();
+        return config.query_statistics_enabled() ? statistics.instrument(connection) : connection;
+    }
+
+    @Override
+    public <T> T execute(Work<T> work) {
+        return unitOfWork.execute(this::borrowPooled, work);
+    }
+
+    @Override
+    public boolean isActive() {
+        return unitOfWork.isActive();
+    }
+
+    @Override
+    public String executeOnce(String scope, String key, String owner, Work<String> work) {
+        return idempotency.executeOnce(scope, key, owner, work);
+    }
+
+    private Connection borrowPooled() throws SQLException {
+        while (true) {
+            ConnectionPool current = pool;
+            try {
+                return current.borrow();
+            } catch (SQLException e) {
+                // Lost a race with reconfiguration: the pool we read was drained meanwhile
+                if (!current.isClosed() || pool == current || pool == null) {
+                    throw e;
+                }
+            }
+        }
     }
 
     @Override
@@ -97,4 +281,94 @@ public class H2DataSourceProvider implements DataSource {
     public boolean isWrapperFor(Class<?> iface) throws SQLException {
         return delegate.isWrapperFor(iface);
     }
+
+    @Override
+    public int getActiveConnections() {
+        return pool.getActiveConnections();
+    }
+
+    @Override
+    public int getIdleConnections() {
+        return pool.getIdleConnections();
+    }
+
+    @Override
+    public int getTotalConnections() {
+        return pool.getTotalConnections();
+    }
+
+    @Override
+    public int getMinPoolSize() {
+        return pool.getMinSize();
+    }
+
+    @Override
+    public int getMaxPoolSize() {
+        return pool.getMaxSize();
+    }
+
+    @Override
+    public int getThreadsAwaitingConnection() {
+        return pool.getThreadsAwaitingConnection();
+    }
+
+    @Override
+    public long getConnectionsAcquired() {
+        return pool.getConnectionsAcquired();
+    }
+
+    @Override
+    public long getConnectionsCreated() {
+        return pool.getConnectionsCreated();
+    }
+
+    @Override
+    public long getConnectionsEvicted() {
+        return pool.getConnectionsEvicted();
+    }
+
+    @Override
+    public long getAcquireTimeouts() {
+        return pool.getAcquireTimeouts();
+    }
+
+    @Override
+    public long getValidationFailures() {
+        return pool.getValidationFailures();
+    }
+
+    @Override
+    public long getStatementCacheHits() {
+        return pool.getStatementCacheHits();
+    }
+
+    @Override
+    public long getStatementCacheMisses() {
+        return pool.getStatementCacheMisses();
+    }
+
+    @Override
+    public List<StatementStatistics> getStatementStatistics() {
+        return statistics.getStatementStatistics();
+    }
+
+    @Override
+    public LatencyStatistics getConnectionHoldTime() {
+        return statistics.getConnectionHoldTime();
+    }
+
+    @Override
+    public long getSlowQueryThresholdMillis() {
+        return statistics.getSlowQueryThresholdMillis();
+    }
+
+    @Override
+    public long getSlowQueryCount() {
+        return statistics.getSlowQueryCount();
+    }
+
+    @Override
+    public void reset() {
+        statistics.reset();
+    }
 }
@@ -0,0 +1,183 @@
+package com.bank.persistence;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.bank.api.IIdempotencyStore;
+import com.bank.api.IUnitOfWork;
+
+/**
+ * Backs {@link IIdempotencyStore} with the {@code IDEMPOTENCY_KEY} table. The
+ * key is claimed with an insert in the same unit of work as the operation, so
+ * the operation and its recorded outcome commit together; a concurrent claim of
+ * the same key waits on the primary key and then replays. Recently completed
+ * keys are also held in memory so most replays cost no query.
+ */
+final class IdempotencyStore {
+
+    static final int MAX_KEY_LENGTH = 128;
+    private static final int RECENT_KEYS = 10_000;
+    // Expired keys are purged on every Nth claim
+    private static final int PURGE_INTERVAL = 1024;
+
+    private final UnitOfWorkScope unitOfWork;
+    // Opens the connection that starts a unit of work
+    private final UnitOfWorkScope.ConnectionSource pooled;
+    // What DataSource.getConnection() returns: the unit's connection while one is active
+    private final UnitOfWorkScope.ConnectionSource connections;
+    private final AtomicInteger claimsSincePurge = new AtomicInteger();
+    private final LinkedHashMap<String, Completed> recent = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Completed> eldest) {
+            return size() > RECENT_KEYS;
+        }
+    };
+    private volatile long retentionMillis;
+
+    IdempotencyStore(UnitOfWorkScope unitOfWork, UnitOfWorkScope.ConnectionSource pooled,
+                     UnitOfWorkScope.ConnectionSource connections, long retentionMillis) {
+        this.unitOfWork = unitOfWork;
+        this.pooled = pooled;
+        this.connections = connections;
+        this.retentionMillis = retentionMillis;
+    }
+
+    void setRetentionMillis(long retentionMillis) {
+        this.retentionMillis = retentionMillis;
+    }
+
+    String executeOnce(String scope, String key, String owner, IUnitOfWork.Work<String> work) {
+        if (scope == null || key == null || key.isEmpty() || owner == null) {
+            throw new IllegalArgumentException("Scope, idempotency key and owner are required");
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency key is longer than " + MAX_KEY_LENGTH + " characters");
+        }
+        String cacheKey = scope + '\0' + key;
+        Completed completed;
+        synchronized (recent) {
+            completed = recent.get(cacheKey);
+        }
+        if (completed != null) {
+            return completed.replayFor(owner);
+        }
+
+        // Only a unit this call owns has committed when execute returns
+        boolean outermost = !unitOfWork.isActive();
+        if (outermost && claimsSincePurge.incrementAndGet() >= PURGE_INTERVAL) {
+            claimsSincePurge.set(0);
+            purgeExpired();
+        }
+        Completed outcome = unitOfWork.execute(pooled, () -> claimAndRun(scope, key, owner, work));
+        if (outcome.outcome != null && (outcome.replayed || outermost)) {
+            synchronized (recent) {
+                recent.put(cacheKey, outcome);
+            }
+        }
+        return outcome.replayed ? outcome.replayFor(owner) : outcome.outcome;
+    }
+
+    private Completed claimAndRun(String scope, String key, String owner, IUnitOfWork.Work<String> work) throws Exception {
+        try (Connection connection = connections.open()) {
+            if (!claim(connection, scope, key, owner)) {
+                Completed stored = load(connection, scope, key);
+                if (stored == null) {
+                    throw new IllegalStateException("Idempotency key " + key + " is being released; retry");
+                }
+                return stored;
+            }
+            String outcome = work.run();
+            if (outcome == null) {
+                // The operation had no effect, so a retry with the same key may run it again
+                release(connection, scope, key);
+                return new Completed(owner, null, false);
+            }
+            try (PreparedStatement ps = connection.prepareStatement(
+                    "UPDATE IDEMPOTENCY_KEY SET OUTCOME = ? WHERE SCOPE = ? AND KEY_VALUE = ?")) {
+                ps.setString(1, outcome);
+                ps.setString(2, scope);
+                ps.setString(3, key);
+                ps.executeUpdate();
+            }
+            return new Completed(owner, outcome, false);
+        }
+    }
+
+    private boolean claim(Connection connection, String scope, String key, String owner) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(
+                "INSERT INTO IDEMPOTENCY_KEY (SCOPE, KEY_VALUE, OWNER, CREATED_AT) VALUES (?, ?, ?, ?)")) {
+            ps.setString(1, scope);
+            ps.setString(2, key);
+            ps.setString(3, owner);
+            ps.setTimestamp(4, new Timestamp(System.currentTimeMillis()));
+            ps.executeUpdate();
+            return true;
+        } catch (SQLException e) {
+            if ("23505".equals(e.getSQLState())) {
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    private Completed load(Connection connection, String scope, String key) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(
+                "SELECT OWNER, OUTCOME FROM IDEMPOTENCY_KEY WHERE SCOPE = ? AND KEY_VALUE = ?")) {
+            ps.setString(1, scope);
+            ps.setString(2, key);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? new Completed(rs.getString("OWNER"), rs.getString("OUTCOME"), true) : null;
+            }
+        }
+    }
+
+    private void release(Connection connection, String scope, String key) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(
+                "DELETE FROM IDEMPOTENCY_KEY WHERE SCOPE = ? AND KEY_VALUE = ?")) {
+            ps.setString(1, scope);
+            ps.setString(2, key);
+            ps.executeUpdate();
+        }
+    }
+
+    private void purgeExpired() {
+        try (Connection connection = connections.open();
+             PreparedStatement ps = connection.prepareStatement("DELETE FROM IDEMPOTENCY_KEY WHERE CREATED_AT < ?")) {
+            ps.setTimestamp(1, new Timestamp(System.currentTimeMillis() - retentionMillis));
+            int purged = ps.executeUpdate();
+            if (!connection.getAutoCommit()) {
+                connection.commit();
+            }
+            if (purged > 0) {
+                System.out.println("Purged " + purged + " expired idempotency keys");
+            }
+        } catch (SQLException e) {
+            System.err.println("Idempotency key purge failed: " + e.getMessage());
+        }
+    }
+
+    private static final class Completed {
+        private final String owner;
+        private final String outcome;
+        private final boolean replayed;
+
+        private Completed(String owner, String outcome, boolean replayed) {
+            this.owner = owner;
+            this.outcome = outcome;
+            this.replayed = replayed;
+        }
+
+        private String replayFor(String caller) {
+            if (!owner.equals(caller)) {
+                throw new IllegalArgumentException("Idempotency key was already used by another caller");
+            }
+            return outcome;
+        }
+    }
+}
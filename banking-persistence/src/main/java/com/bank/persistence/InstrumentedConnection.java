@@ -0,0 +1,190 @@
+package com.bank.persistence;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import com.bank.persistence.QueryStatistics.StatementMetrics;
+
+/**
+ * Proxies a connection, its statements and their result sets so that every
+ * execution, every row read and the connection's lifetime are reported to
+ * {@link QueryStatistics}.
+ */
+final class InstrumentedConnection {
+
+    private static final String BATCH_SHAPE = "<statement batch>";
+
+    private InstrumentedConnection() {
+    }
+
+    static Connection wrap(Connection connection, QueryStatistics statistics) {
+        return proxy(Connection.class, new ConnectionHandler(connection, statistics));
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, handler));
+    }
+
+    private static Object invokeTarget(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static final class ConnectionHandler implements InvocationHandler {
+
+        private final Connection target;
+        private final QueryStatistics statistics;
+        private final long openedAt = System.nanoTime();
+        private boolean closed;
+
+        private ConnectionHandler(Connection target, QueryStatistics statistics) {
+            this.target = target;
+            this.statistics = statistics;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        statistics.recordConnectionHold(System.nanoTime() - openedAt);
+                    }
+                    return invokeTarget(target, method, args);
+                case "createStatement":
+                case "prepareStatement":
+                case "prepareCall": {
+                    Statement statement = (Statement) invokeTarget(target, method, args);
+                    StatementMetrics prepared = args != null && args[0] instanceof String
+                        ? statistics.metricsFor((String) args[0])
+                        : null;
+                    @SuppressWarnings("unchecked")
+                    Class<Statement> type = (Class<Statement>) method.getReturnType();
+                    return proxy(type, new StatementHandler(statement, prepared, (Connection) proxy, statistics));
+                }
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Instrumented[" + target + "]";
+                default:
+                    return invokeTarget(target, method, args);
+            }
+        }
+    }
+
+    private static final class StatementHandler implements InvocationHandler {
+
+        private final Statement target;
+        private final StatementMetrics prepared;
+        private final Connection connection;
+        private final QueryStatistics statistics;
+        private StatementMetrics lastExecuted;
+
+        private StatementHandler(Statement target, StatementMetrics prepared, Connection connection,
+                                 QueryStatistics statistics) {
+            this.target = target;
+            this.prepared = prepared;
+            this.connection = connection;
+            this.statistics = statistics;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.startsWith("execute")) {
+                return execute((Statement) proxy, method, args);
+            }
+            switch (name) {
+                case "getResultSet": {
+                    ResultSet resultSet = (ResultSet) invokeTarget(target, method, args);
+                    return wrapResultSet(resultSet, (Statement) proxy, lastExecuted);
+                }
+                case "getConnection":
+                    return connection;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Instrumented[" + target + "]";
+                default:
+                    return invokeTarget(target, method, args);
+            }
+        }
+
+        private Object execute(Statement proxy, Method method, Object[] args) throws Throwable {
+            StatementMetrics metrics = metricsFor(method, args);
+            lastExecuted = metrics;
+            long start = System.nanoTime();
+            boolean failed = true;
+            try {
+                Object result = invokeTarget(target, method, args);
+                failed = false;
+                return result instanceof ResultSet ? wrapResultSet((ResultSet) result, proxy, metrics) : result;
+            } finally {
+                statistics.recordExecution(metrics, System.nanoTime() - start, failed);
+            }
+        }
+
+        private StatementMetrics metricsFor(Method method, Object[] args) {
+            if (args != null && args.length > 0 && args[0] instanceof String) {
+                return statistics.metricsFor((String) args[0]);
+            }
+            if (prepared != null) {
+                return prepared;
+            }
+            return statistics.metricsFor(BATCH_SHAPE);
+        }
+
+        private ResultSet wrapResultSet(ResultSet resultSet, Statement statement, StatementMetrics metrics) {
+            if (resultSet == null || metrics == null) {
+                return resultSet;
+            }
+            return proxy(ResultSet.class, new ResultSetHandler(resultSet, statement, metrics));
+        }
+    }
+
+    private static final class ResultSetHandler implements InvocationHandler {
+
+        private final ResultSet target;
+        private final Statement statement;
+        private final StatementMetrics metrics;
+
+        private ResultSetHandler(ResultSet target, Statement statement, StatementMetrics metrics) {
+            this.target = target;
+            this.statement = statement;
+            this.metrics = metrics;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "next": {
+                    boolean hasRow = target.next();
+                    if (hasRow) {
+                        metrics.rowReturned();
+                    }
+                    return hasRow;
+                }
+                case "getStatement":
+                    return statement;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    return invokeTarget(target, method, args);
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.bank.persistence;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.bank.api.LatencyStatistics;
+
+/**
+ * Lock-free latency histogram with power-of-two microsecond buckets
+ * (1us, 2us, 4us ... ~16.8s, then overflow).
+ */
+final class LatencyHistogram {
+
+    private static final int BOUNDED_BUCKETS = 25;
+    private static final double[] UPPER_BOUNDS_MILLIS = new double[BOUNDED_BUCKETS + 1];
+
+    static {
+        for (int i = 0; i < BOUNDED_BUCKETS; i++) {
+            UPPER_BOUNDS_MILLIS[i] = (1L << i) / 1000.0;
+        }
+        UPPER_BOUNDS_MILLIS[BOUNDED_BUCKETS] = Double.POSITIVE_INFINITY;
+    }
+
+    private final AtomicLongArray counts = new AtomicLongArray(BOUNDED_BUCKETS + 1);
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Long::max, 0);
+
+    void record(long nanos) {
+        long micros = Math.max(nanos / 1000, 1);
+        // ceil(log2(micros)): the smallest bucket whose bound is >= micros
+        int bucket = 64 - Long.numberOfLeadingZeros(micros - 1);
+        counts.incrementAndGet(Math.min(bucket, BOUNDED_BUCKETS));
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+    }
+
+    void reset() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+        totalNanos.reset();
+        maxNanos.reset();
+    }
+
+    LatencyStatistics snapshot() {
+        long[] snapshot = new long[counts.length()];
+        long count = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            snapshot[i] = counts.get(i);
+            count += snapshot[i];
+        }
+        double maxMillis = maxNanos.get() / 1_000_000.0;
+        return new LatencyStatistics(count, totalNanos.sum() / 1_000_000.0, maxMillis,
+            percentile(snapshot, count, 0.50, maxMillis),
+            percentile(snapshot, count, 0.95, maxMillis),
+            percentile(snapshot, count, 0.99, maxMillis),
+            UPPER_BOUNDS_MILLIS, snapshot);
+    }
+
+    private static double percentile(long[] buckets, long count, double quantile, double maxMillis) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(quantile * count);
+        long seen = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i];
+            if (seen >= rank) {
+                return Math.min(UPPER_BOUNDS_MILLIS[i], maxMillis);
+            }
+        }
+        return maxMillis;
+    }
+}
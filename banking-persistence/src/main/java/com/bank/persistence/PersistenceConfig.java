@@ -0,0 +1,53 @@
+package com.bank.persistence;
+
+/**
+ * Configuration for {@link H2DataSourceProvider}, bound to the
+ * {@code com.bank.persistence} PID. Method names map to dotted property keys,
+ * e.g. {@code pool_max_size()} is read from {@code pool.max.size}.
+ */
+public @interface PersistenceConfig {
+
+    DatabaseMode mode() default DatabaseMode.AUTO_SERVER;
+
+    String database_path() default "./bankdb";
+
+    String user() default "sa";
+
+    String password() default "";
+
+    /** H2 page cache size in KB; 0 keeps the H2 default. */
+    int cache_size_kb() default 0;
+
+    /** MVStore page split size in bytes, passed as H2's PAGE_SIZE; 0 keeps the H2 default. Ignored when compressing. */
+    int page_split_size() default 0;
+
+    /** Compress MVStore pages on disk; H2 then splits pages at 64 KB. */
+    boolean compress() default false;
+
+    boolean console_enabled() default true;
+
+    int console_port() default 8082;
+
+    int pool_min_size() default 2;
+
+    int pool_max_size() default 10;
+
+    long pool_acquire_timeout_ms() default 5_000;
+
+    long pool_idle_timeout_ms() default 600_000;
+
+    /** How long a reconfiguration waits for borrowed connections to come back to the old pool. */
+    long pool_drain_timeout_ms() default 30_000;
+
+    /** Prepared statements cached per pooled connection, keyed by SQL text; 0 disables the cache. */
+    int statement_cache_size() default 64;
+
+    /** Record statement latency, rows returned and connection hold time. */
+    boolean query_statistics_enabled() default true;
+
+    /** Statements at least this slow are logged with their caller; 0 disables the log. */
+    long slow_query_threshold_ms() default 250;
+
+    /** How long idempotency keys are kept, i.e. how late a retry is still recognised. */
+    long idempotency_retention_hours() default 24;
+}
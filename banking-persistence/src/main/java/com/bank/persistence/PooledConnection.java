@@ -0,0 +1,145 @@
+package com.bank.persistence;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A physical connection owned by {@link ConnectionPool}. Each borrow hands out a
+ * fresh proxy so a stale reference cannot touch the connection after it was returned.
+ * {@code prepareStatement(String)} is served from a per-connection {@link StatementCache}
+ * when the pool has one enabled.
+ */
+final class PooledConnection {
+
+    private final ConnectionPool pool;
+    private final Connection physical;
+    private final StatementCache statements;
+    private volatile long lastReturnedAt;
+    private volatile boolean broken;
+
+    PooledConnection(ConnectionPool pool, Connection physical, StatementCache statements) {
+        this.pool = pool;
+        this.physical = physical;
+        this.statements = statements;
+        this.lastReturnedAt = System.currentTimeMillis();
+    }
+
+    Connection lease() {
+        return (Connection) Proxy.newProxyInstance(
+            Connection.class.getClassLoader(),
+            new Class<?>[] { Connection.class },
+            new LeaseHandler());
+    }
+
+    long getLastReturnedAt() {
+        return lastReturnedAt;
+    }
+
+    void markReturned() {
+        lastReturnedAt = System.currentTimeMillis();
+    }
+
+    boolean isBroken() {
+        return broken;
+    }
+
+    boolean isValid(int timeoutSeconds) {
+        try {
+            return physical.isValid(timeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    // Undo anything a borrower may have left behind before the connection is reused
+    boolean reset() {
+        try {
+            if (physical.isClosed()) {
+                return false;
+            }
+            if (!physical.getAutoCommit()) {
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+            physical.clearWarnings();
+            return true;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    void closePhysical() {
+        if (statements != null) {
+            statements.closeAll();
+        }
+        try {
+            physical.close();
+        } catch (SQLException e) {
+            System.err.println("Failed to close pooled connection: " + e.getMessage());
+        }
+    }
+
+    private final class LeaseHandler implements InvocationHandler {
+
+        private final AtomicBoolean returned = new AtomicBoolean();
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (returned.compareAndSet(false, true)) {
+                        pool.release(PooledConnection.this);
+                    }
+                    return null;
+                case "isClosed":
+                    return returned.get() || physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + physical + "]";
+                default:
+                    break;
+            }
+            if (returned.get()) {
+                throw new SQLException("Connection has already been returned to the pool");
+            }
+            try {
+                if (statements != null && isPlainPrepare(method)) {
+                    return statements.prepare((String) args[0], (Connection) proxy);
+                }
+                return method.invoke(physical, args);
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof SQLException && isConnectionFailure((SQLException) cause)) {
+                    broken = true;
+                }
+                throw cause;
+            } catch (SQLException e) {
+                if (isConnectionFailure(e)) {
+                    broken = true;
+                }
+                throw e;
+            }
+        }
+
+        // Only the single-argument form is cached; variants with key or cursor options are rare here
+        private boolean isPlainPrepare(Method method) {
+            return method.getName().equals("prepareStatement")
+                && method.getParameterCount() == 1
+                && method.getReturnType() == PreparedStatement.class;
+        }
+
+        private boolean isConnectionFailure(SQLException e) {
+            String state = e.getSQLState();
+            return state != null && state.startsWith("08");
+        }
+    }
+}
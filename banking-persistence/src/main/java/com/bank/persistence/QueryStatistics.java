@@ -0,0 +1,137 @@
+package com.bank.persistence;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.bank.api.IQueryStatistics;
+import com.bank.api.LatencyStatistics;
+import com.bank.api.StatementStatistics;
+
+/**
+ * Collects per-SQL-shape latency histograms, rows returned and connection hold
+ * times for connections wrapped by {@link #instrument(Connection)}, and logs
+ * statements slower than the configured threshold together with the component
+ * that issued them.
+ */
+final class QueryStatistics implements IQueryStatistics {
+
+    // Guards against unbounded growth when callers build SQL with unusual literals
+    static final int MAX_SHAPES = 500;
+    static final String OTHER_SHAPE = "<other statements>";
+
+    private static final StackWalker STACK_WALKER = StackWalker.getInstance();
+
+    private final ConcurrentMap<String, StatementMetrics> statements = new ConcurrentHashMap<>();
+    private final LatencyHistogram connectionHold = new LatencyHistogram();
+    private final LongAdder slowQueries = new LongAdder();
+    private volatile long slowThresholdNanos;
+
+    QueryStatistics(long slowThresholdMillis) {
+        setSlowQueryThresholdMillis(slowThresholdMillis);
+    }
+
+    void setSlowQueryThresholdMillis(long millis) {
+        this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    Connection instrument(Connection connection) {
+        return InstrumentedConnection.wrap(connection, this);
+    }
+
+    StatementMetrics metricsFor(String sql) {
+        String shape = SqlShape.of(sql);
+        StatementMetrics metrics = statements.get(shape);
+        if (metrics != null) {
+            return metrics;
+        }
+        if (statements.size() >= MAX_SHAPES) {
+            shape = OTHER_SHAPE;
+        }
+        return statements.computeIfAbsent(shape, StatementMetrics::new);
+    }
+
+    void recordExecution(StatementMetrics metrics, long nanos, boolean failed) {
+        metrics.latency.record(nanos);
+        if (failed) {
+            metrics.failures.increment();
+        }
+        if (slowThresholdNanos > 0 && nanos >= slowThresholdNanos) {
+            slowQueries.increment();
+            metrics.slowExecutions.increment();
+            System.err.printf("Slow query (%.1f ms) from %s: %s%n",
+                nanos / 1_000_000.0, callingComponent(), metrics.sql);
+        }
+    }
+
+    void recordConnectionHold(long nanos) {
+        connectionHold.record(nanos);
+    }
+
+    // First banking frame outside this bundle; only walked for slow statements
+    private static String callingComponent() {
+        return STACK_WALKER.walk(frames -> frames
+            .filter(frame -> frame.getClassName().startsWith("com.bank.")
+                && !frame.getClassName().startsWith("com.bank.persistence."))
+            .map(frame -> frame.getClassName() + "." + frame.getMethodName())
+            .findFirst()
+            .orElse("unknown caller"));
+    }
+
+    @Override
+    public List<StatementStatistics> getStatementStatistics() {
+        List<StatementStatistics> result = new ArrayList<>(statements.size());
+        for (StatementMetrics metrics : statements.values()) {
+            result.add(metrics.snapshot());
+        }
+        result.sort(Comparator.comparingDouble((StatementStatistics s) -> s.getLatency().getTotalMillis()).reversed());
+        return result;
+    }
+
+    @Override
+    public LatencyStatistics getConnectionHoldTime() {
+        return connectionHold.snapshot();
+    }
+
+    @Override
+    public long getSlowQueryThresholdMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(slowThresholdNanos);
+    }
+
+    @Override
+    public long getSlowQueryCount() {
+        return slowQueries.sum();
+    }
+
+    @Override
+    public void reset() {
+        statements.clear();
+        connectionHold.reset();
+        slowQueries.reset();
+    }
+
+    static final class StatementMetrics {
+        private final String sql;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder rowsReturned = new LongAdder();
+        private final LongAdder slowExecutions = new LongAdder();
+
+        private StatementMetrics(String sql) {
+            this.sql = sql;
+        }
+
+        void rowReturned() {
+            rowsReturned.increment();
+        }
+
+        private StatementStatistics snapshot() {
+            return new StatementStatistics(sql, latency.snapshot(), failures.sum(), rowsReturned.sum(), slowExecutions.sum());
+        }
+    }
+}
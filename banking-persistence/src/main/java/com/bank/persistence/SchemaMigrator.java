@@ -0,0 +1,262 @@
+package com.bank.persistence;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Owns the DDL for every banking table. Migrations are applied in version order
+ * and recorded in {@code SCHEMA_VERSION}, so each one runs exactly once per
+ * database. {@link H2DataSourceProvider} runs this before it hands out
+ * connections, which means no dependent component can activate against an
+ * outdated schema.
+ *
+ * <p>Never edit a migration that has shipped; append a new version instead.
+ */
+final class SchemaMigrator {
+
+    private static final List<Migration> MIGRATIONS = List.of(
+        new Migration(1, "Baseline banking tables",
+            "CREATE TABLE IF NOT EXISTS CUSTOMER ("
+                + "ID VARCHAR(36) PRIMARY KEY, "
+                + "NAME VARCHAR(255) NOT NULL, "
+                + "EMAIL VARCHAR(255), "
+                + "IDENTIFICATION_NO VARCHAR(255), "
+                + "PASSWORD_HASH VARCHAR(255) NOT NULL, "
+                + "STATUS VARCHAR(32), "
+                + "CREATED_AT TIMESTAMP"
+                + ")",
+            "CREATE TABLE IF NOT EXISTS DEPOSIT_ACCOUNT ("
+                + "ACCOUNT_ID VARCHAR(36) PRIMARY KEY, "
+                + "CUSTOMER_ID VARCHAR(255) NOT NULL, "
+                + "BALANCE DECIMAL(19, 2) NOT NULL DEFAULT 0.00, "
+                + "STATUS VARCHAR(32) NOT NULL DEFAULT 'Active', "
+                + "CREATED_AT TIMESTAMP NOT NULL"
+                + ")",
+            "CREATE TABLE IF NOT EXISTS TRANSACTION ("
+                + "TXN_ID VARCHAR(64) PRIMARY KEY, "
+                + "ACCOUNT_ID VARCHAR(64) NOT NULL, "
+                + "TYPE VARCHAR(32) NOT NULL, "
+                + "AMOUNT DECIMAL(18,2) NOT NULL, "
+                + "NOTE VARCHAR(255), "
+                + "CREATED_AT TIMESTAMP NOT NULL"
+                + ")",
+            "CREATE TABLE IF NOT EXISTS CARD ("
+                + "ID VARCHAR(36) PRIMARY KEY, "
+                + "ACCOUNT_ID VARCHAR(36) NOT NULL,"
+                + "CARD_NUMBER VARCHAR(36) NOT NULL UNIQUE, "
+                + "TRANSACTION_LIMIT INT NOT NULL, "
+                + "STATUS VARCHAR(32) NOT NULL DEFAULT 'INACTIVE', "
+                + "PIN_NUMBER VARCHAR(6) NOT NULL, "
+                + "CREATED_AT TIMESTAMP NOT NULL"
+                + ")",
+            "CREATE TABLE IF NOT EXISTS SUPPORT_TICKET ("
+                + "ID VARCHAR(36) PRIMARY KEY, "
+                + "CUSTOMER_ID VARCHAR(255) NOT NULL, "
+                + "CUSTOMER_IDENTIFICATION VARCHAR(255), "
+                + "TITLE VARCHAR(255) NOT NULL, "
+                + "DESCRIPTION CLOB NOT NULL, "
+                + "ASSIGNED_STAFF_ID VARCHAR(255), "
+                + "STATUS VARCHAR(32) NOT NULL, "
+                + "CREATED_AT TIMESTAMP NOT NULL, "
+                + "UPDATED_AT TIMESTAMP NOT NULL"
+                + ")"),
+        new Migration(2, "Secondary indexes for customer, account, transaction and card lookups",
+            "CREATE INDEX IF NOT EXISTS IDX_CUSTOMER_IDENTIFICATION_NO ON CUSTOMER (IDENTIFICATION_NO)",
+            // ACCOUNT_ID is included so account-id resolution by customer never touches the table
+            "CREATE INDEX IF NOT EXISTS IDX_DEPOSIT_ACCOUNT_CUSTOMER ON DEPOSIT_ACCOUNT (CUSTOMER_ID, ACCOUNT_ID)",
+            "CREATE INDEX IF NOT EXISTS IDX_TRANSACTION_ACCOUNT_CREATED ON TRANSACTION (ACCOUNT_ID, CREATED_AT)",
+            "CREATE INDEX IF NOT EXISTS IDX_CARD_ACCOUNT ON CARD (ACCOUNT_ID)"),
+        new Migration(3, "Unique customer identification numbers",
+            // Which registration owns a shared identification number is for an operator to decide,
+            // so the migration stops and names the customers instead of clearing any of them
+            new Precondition("customers share an identification number; resolve these before upgrading",
+                "SELECT 'IDENTIFICATION_NO ''' || IDENTIFICATION_NO || ''' is held by CUSTOMER IDs: ' "
+                    + "|| LISTAGG(ID, ', ') WITHIN GROUP (ORDER BY ID) "
+                    + "FROM CUSTOMER WHERE IDENTIFICATION_NO IS NOT NULL "
+                    + "GROUP BY IDENTIFICATION_NO HAVING COUNT(*) > 1 ORDER BY IDENTIFICATION_NO"),
+            "DROP INDEX IF EXISTS IDX_CUSTOMER_IDENTIFICATION_NO",
+            "CREATE UNIQUE INDEX IF NOT EXISTS UX_CUSTOMER_IDENTIFICATION_NO ON CUSTOMER (IDENTIFICATION_NO)"),
+        new Migration(4, "Idempotency keys for retried postings",
+            "CREATE TABLE IF NOT EXISTS IDEMPOTENCY_KEY ("
+                + "SCOPE VARCHAR(32) NOT NULL, "
+                + "KEY_VALUE VARCHAR(128) NOT NULL, "
+                + "OWNER VARCHAR(255) NOT NULL, "
+                + "OUTCOME VARCHAR(1024), "
+                + "CREATED_AT TIMESTAMP NOT NULL, "
+                + "PRIMARY KEY (SCOPE, KEY_VALUE)"
+                + ")",
+            // Expired keys are purged by age
+            "CREATE INDEX IF NOT EXISTS IDX_IDEMPOTENCY_KEY_CREATED ON IDEMPOTENCY_KEY (CREATED_AT)"),
+        new Migration(5, "Checkpoints for daily interest accrual",
+            "CREATE TABLE IF NOT EXISTS INTEREST_ACCRUAL_RUN ("
+                + "BUSINESS_DATE DATE PRIMARY KEY, "
+                + "ANNUAL_RATE DECIMAL(9, 6) NOT NULL, "
+                + "DAY_COUNT INT NOT NULL, "
+                + "LAST_ACCOUNT_ID VARCHAR(36), "
+                + "ACCOUNTS_ACCRUED BIGINT NOT NULL DEFAULT 0, "
+                + "TOTAL_INTEREST DECIMAL(19, 2) NOT NULL DEFAULT 0.00, "
+                + "STATUS VARCHAR(16) NOT NULL, "
+                + "STARTED_AT TIMESTAMP NOT NULL, "
+                + "UPDATED_AT TIMESTAMP NOT NULL"
+                + ")"),
+        new Migration(6, "End-of-day balance snapshots",
+            // The key serves "latest snapshot on or before a date" for one account as an index seek
+            "CREATE TABLE IF NOT EXISTS BALANCE_SNAPSHOT ("
+                + "ACCOUNT_ID VARCHAR(36) NOT NULL, "
+                + "BUSINESS_DATE DATE NOT NULL, "
+                + "BALANCE DECIMAL(19, 2) NOT NULL, "
+                + "TAKEN_AT TIMESTAMP NOT NULL, "
+                + "PRIMARY KEY (ACCOUNT_ID, BUSINESS_DATE)"
+                + ")"),
+        new Migration(7, "Sub-ledger balance slots for hot accounts",
+            "ALTER TABLE DEPOSIT_ACCOUNT ADD COLUMN IF NOT EXISTS HOT_SLOTS INT NOT NULL DEFAULT 0",
+            "CREATE TABLE IF NOT EXISTS ACCOUNT_BALANCE_SLOT ("
+                + "ACCOUNT_ID VARCHAR(36) NOT NULL, "
+                + "SLOT INT NOT NULL, "
+                + "AMOUNT DECIMAL(19, 2) NOT NULL DEFAULT 0.00, "
+                + "PRIMARY KEY (ACCOUNT_ID, SLOT)"
+                + ")"),
+        new Migration(8, "Account holds and held balances",
+            "ALTER TABLE DEPOSIT_ACCOUNT ADD COLUMN IF NOT EXISTS HELD_BALANCE DECIMAL(19, 2) NOT NULL DEFAULT 0.00",
+            "CREATE TABLE IF NOT EXISTS ACCOUNT_HOLD ("
+                + "HOLD_ID VARCHAR(36) PRIMARY KEY, "
+                + "ACCOUNT_ID VARCHAR(36) NOT NULL, "
+                + "AMOUNT DECIMAL(19, 2) NOT NULL, "
+                + "REFERENCE VARCHAR(255), "
+                + "CREATED_AT TIMESTAMP NOT NULL, "
+                + "EXPIRES_AT TIMESTAMP NOT NULL"
+                + ")",
+            "CREATE INDEX IF NOT EXISTS IDX_ACCOUNT_HOLD_ACCOUNT ON ACCOUNT_HOLD (ACCOUNT_ID, EXPIRES_AT)",
+            "CREATE INDEX IF NOT EXISTS IDX_ACCOUNT_HOLD_EXPIRES ON ACCOUNT_HOLD (EXPIRES_AT)"),
+        new Migration(9, "Keyset index for paging transaction history",
+            // Stored in page order, so a page is read straight off the index without sorting
+            "CREATE INDEX IF NOT EXISTS IDX_TRANSACTION_ACCOUNT_PAGE ON TRANSACTION (ACCOUNT_ID, CREATED_AT DESC, TXN_ID DESC)"),
+        new Migration(10, "Daily transaction rollups for summaries",
+            // SLOT spreads a hot account's rollup the way ACCOUNT_BALANCE_SLOT spreads its balance
+            "CREATE TABLE IF NOT EXISTS TRANSACTION_DAILY_ROLLUP ("
+                + "ACCOUNT_ID VARCHAR(64) NOT NULL, "
+                + "TXN_DATE DATE NOT NULL, "
+                + "TYPE VARCHAR(32) NOT NULL, "
+                + "SLOT INT NOT NULL DEFAULT 0, "
+                + "TOTAL DECIMAL(19, 2) NOT NULL DEFAULT 0.00, "
+                + "PRIMARY KEY (ACCOUNT_ID, TXN_DATE, TYPE, SLOT)"
+                + ")",
+            "INSERT INTO TRANSACTION_DAILY_ROLLUP (ACCOUNT_ID, TXN_DATE, TYPE, SLOT, TOTAL) "
+                + "SELECT ACCOUNT_ID, CAST(CREATED_AT AS DATE), TYPE, 0, SUM(AMOUNT) FROM TRANSACTION "
+                + "GROUP BY ACCOUNT_ID, CAST(CREATED_AT AS DATE), TYPE")
+    );
+
+    private SchemaMigrator() {
+    }
+
+    /**
+     * Brings the schema up to the latest version and returns that version.
+     */
+    static int migrate(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS SCHEMA_VERSION ("
+                + "VERSION INT PRIMARY KEY, "
+                + "DESCRIPTION VARCHAR(255) NOT NULL, "
+                + "APPLIED_AT TIMESTAMP NOT NULL"
+                + ")");
+        }
+
+        int current = currentVersion(connection);
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            for (Migration migration : MIGRATIONS) {
+                if (migration.version <= current) {
+                    continue;
+                }
+                apply(connection, migration);
+                current = migration.version;
+                System.out.println("Applied schema migration V" + migration.version + ": " + migration.description);
+            }
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+        return current;
+    }
+
+    private static int currentVersion(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT COALESCE(MAX(VERSION), 0) FROM SCHEMA_VERSION")) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    private static void apply(Connection connection, Migration migration) throws SQLException {
+        try {
+            if (migration.precondition != null) {
+                migration.precondition.check(connection);
+            }
+            try (Statement statement = connection.createStatement()) {
+                for (String sql : migration.statements) {
+                    statement.execute(sql);
+                }
+            }
+            try (PreparedStatement ps = connection.prepareStatement(
+                    "INSERT INTO SCHEMA_VERSION (VERSION, DESCRIPTION, APPLIED_AT) VALUES (?, ?, ?)")) {
+                ps.setInt(1, migration.version);
+                ps.setString(2, migration.description);
+                ps.setTimestamp(3, Timestamp.valueOf(LocalDateTime.now()));
+                ps.executeUpdate();
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw new SQLException("Schema migration V" + migration.version + " failed: " + e.getMessage(), e);
+        }
+    }
+
+    private static final class Migration {
+        private final int version;
+        private final String description;
+        private final Precondition precondition;
+        private final String[] statements;
+
+        private Migration(int version, String description, String... statements) {
+            this(version, description, null, statements);
+        }
+
+        private Migration(int version, String description, Precondition precondition, String... statements) {
+            this.version = version;
+            this.description = description;
+            this.precondition = precondition;
+            this.statements = statements;
+        }
+    }
+
+    /** Data a migration cannot apply over; the query returns one line per conflict, or nothing. */
+    private static final class Precondition {
+        private final String problem;
+        private final String conflictsQuery;
+
+        private Precondition(String problem, String conflictsQuery) {
+            this.problem = problem;
+            this.conflictsQuery = conflictsQuery;
+        }
+
+        private void check(Connection connection) throws SQLException {
+            List<String> conflicts = new ArrayList<>();
+            try (Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery(conflictsQuery)) {
+                while (rs.next()) {
+                    conflicts.add(rs.getString(1));
+                }
+            }
+            if (!conflicts.isEmpty()) {
+                throw new SQLException(problem + ": " + String.join("; ", conflicts));
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.bank.persistence;
+
+/**
+ * Reduces SQL text to its shape so that executions differing only in literal
+ * values or whitespace are aggregated together.
+ */
+final class SqlShape {
+
+    private SqlShape() {
+    }
+
+    static String of(String sql) {
+        StringBuilder shape = new StringBuilder(sql.length());
+        int i = 0;
+        int length = sql.length();
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (c == '\'') {
+                // String literal; '' is an escaped quote inside it
+                i++;
+                while (i < length) {
+                    if (sql.charAt(i) == '\'') {
+                        if (i + 1 < length && sql.charAt(i + 1) == '\'') {
+                            i += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    i++;
+                }
+                shape.append('?');
+                i++;
+            } else if (Character.isDigit(c) && !continuesIdentifier(shape)) {
+                while (i < length && (Character.isDigit(sql.charAt(i)) || sql.charAt(i) == '.')) {
+                    i++;
+                }
+                shape.append('?');
+            } else if (Character.isWhitespace(c)) {
+                while (i < length && Character.isWhitespace(sql.charAt(i))) {
+                    i++;
+                }
+                if (shape.length() > 0 && i < length) {
+                    shape.append(' ');
+                }
+            } else {
+                shape.append(c);
+                i++;
+            }
+        }
+        return shape.toString();
+    }
+
+    private static boolean continuesIdentifier(StringBuilder shape) {
+        if (shape.length() == 0) {
+            return false;
+        }
+        char previous = shape.charAt(shape.length() - 1);
+        // '?' keeps indexed parameters such as ?1 intact
+        return Character.isLetterOrDigit(previous) || previous == '_' || previous == '?';
+    }
+}
@@ -0,0 +1,157 @@
+package com.bank.persistence;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LRU cache of prepared statements for one physical connection, keyed by SQL text.
+ * A cached statement is handed out to one borrower at a time; closing the handle
+ * clears its parameters and puts it back instead of closing it.
+ *
+ * <p>Not thread-safe: a pooled connection is only used by the thread that leased it.
+ */
+final class StatementCache {
+
+    private final Connection physical;
+    private final int capacity;
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final LinkedHashMap<String, PreparedStatement> idle;
+
+    StatementCache(Connection physical, int capacity, LongAdder hits, LongAdder misses) {
+        this.physical = physical;
+        this.capacity = capacity;
+        this.hits = hits;
+        this.misses = misses;
+        this.idle = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                if (size() > StatementCache.this.capacity) {
+                    closeQuietly(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    PreparedStatement prepare(String sql, Connection owner) throws SQLException {
+        PreparedStatement statement = idle.remove(sql);
+        if (statement != null && !statement.isClosed()) {
+            hits.increment();
+        } else {
+            misses.increment();
+            statement = physical.prepareStatement(sql);
+        }
+        return (PreparedStatement) Proxy.newProxyInstance(
+            PreparedStatement.class.getClassLoader(),
+            new Class<?>[] { PreparedStatement.class },
+            new CachedStatementHandler(sql, statement, owner));
+    }
+
+    void closeAll() {
+        List<PreparedStatement> statements = new ArrayList<>(idle.values());
+        idle.clear();
+        statements.forEach(StatementCache::closeQuietly);
+    }
+
+    private void giveBack(String sql, PreparedStatement statement) {
+        try {
+            if (statement.isClosed()) {
+                return;
+            }
+            statement.clearParameters();
+            statement.clearBatch();
+        } catch (SQLException e) {
+            closeQuietly(statement);
+            return;
+        }
+        // Another handle for the same SQL may have been returned first
+        PreparedStatement previous = idle.put(sql, statement);
+        if (previous != null && previous != statement) {
+            closeQuietly(previous);
+        }
+    }
+
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            System.err.println("Failed to close cached statement: " + e.getMessage());
+        }
+    }
+
+    private final class CachedStatementHandler implements InvocationHandler {
+
+        private final String sql;
+        private final PreparedStatement statement;
+        private final Connection owner;
+        private ResultSet openResultSet;
+        private boolean closed;
+
+        private CachedStatementHandler(String sql, PreparedStatement statement, Connection owner) {
+            this.sql = sql;
+            this.statement = statement;
+            this.owner = owner;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        closeResultSet();
+                        giveBack(sql, statement);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || statement.isClosed();
+                case "getConnection":
+                    return owner;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "CachedStatement[" + sql + "]";
+                default:
+                    break;
+            }
+            if (closed) {
+                throw new SQLException("Statement is closed");
+            }
+            try {
+                Object result = method.invoke(statement, args);
+                if (result instanceof ResultSet) {
+                    openResultSet = (ResultSet) result;
+                }
+                return result;
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        private void closeResultSet() {
+            if (openResultSet != null) {
+                try {
+                    openResultSet.close();
+                } catch (SQLException e) {
+                    // the statement is reset or closed right after this anyway
+                }
+                openResultSet = null;
+            }
+        }
+    }
+}
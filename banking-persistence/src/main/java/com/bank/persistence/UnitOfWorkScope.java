@@ -0,0 +1,153 @@
+package com.bank.persistence;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import com.bank.api.IUnitOfWork;
+
+/**
+ * Thread-bound connection holder behind {@link IUnitOfWork}. The outermost
+ * unit borrows a connection and owns its transaction; everything else on the
+ * thread receives a participant handle whose transaction-control calls are
+ * deferred to that owner.
+ */
+final class UnitOfWorkScope {
+
+    interface ConnectionSource {
+        Connection open() throws SQLException;
+    }
+
+    private final ThreadLocal<Unit> current = new ThreadLocal<>();
+
+    <T> T execute(ConnectionSource source, IUnitOfWork.Work<T> work) {
+        Unit unit = current.get();
+        if (unit != null) {
+            try {
+                return work.run();
+            } catch (Exception e) {
+                unit.rollbackOnly = true;
+                throw propagate(e);
+            } catch (Error e) {
+                unit.rollbackOnly = true;
+                throw e;
+            }
+        }
+
+        try (Connection connection = source.open()) {
+            connection.setAutoCommit(false);
+            unit = new Unit(connection);
+            current.set(unit);
+            try {
+                T result = work.run();
+                if (unit.rollbackOnly) {
+                    connection.rollback();
+                } else {
+                    connection.commit();
+                }
+                return result;
+            } catch (Exception | Error e) {
+                rollbackQuietly(connection);
+                throw e;
+            } finally {
+                current.remove();
+            }
+        } catch (Exception e) {
+            throw propagate(e);
+        }
+    }
+
+    boolean isActive() {
+        return current.get() != null;
+    }
+
+    /**
+     * Returns a participant handle on the thread's unit connection, or null when
+     * the thread is not inside a unit of work.
+     */
+    Connection participant() {
+        Unit unit = current.get();
+        if (unit == null) {
+            return null;
+        }
+        return (Connection) Proxy.newProxyInstance(
+            Connection.class.getClassLoader(),
+            new Class<?>[] { Connection.class },
+            new ParticipantHandler(unit));
+    }
+
+    private static void rollbackQuietly(Connection connection) {
+        try {
+            connection.rollback();
+        } catch (SQLException e) {
+            System.err.println("Unit of work rollback failed: " + e.getMessage());
+        }
+    }
+
+    private static RuntimeException propagate(Exception e) {
+        if (e instanceof RuntimeException) {
+            return (RuntimeException) e;
+        }
+        return new RuntimeException("Unit of work failed", e);
+    }
+
+    private static final class Unit {
+        private final Connection connection;
+        private volatile boolean rollbackOnly;
+
+        private Unit(Connection connection) {
+            this.connection = connection;
+        }
+    }
+
+    private static final class ParticipantHandler implements InvocationHandler {
+
+        private final Unit unit;
+        private boolean closed;
+
+        private ParticipantHandler(Unit unit) {
+            this.unit = unit;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    closed = true;
+                    return null;
+                case "isClosed":
+                    return closed || unit.connection.isClosed();
+                case "commit":
+                case "setAutoCommit":
+                    return null;
+                case "getAutoCommit":
+                    return false;
+                case "rollback":
+                    if (args == null) {
+                        unit.rollbackOnly = true;
+                        return null;
+                    }
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "UnitOfWorkConnection[" + unit.connection + "]";
+                default:
+                    break;
+            }
+            if (closed) {
+                throw new SQLException("Connection is closed");
+            }
+            try {
+                return method.invoke(unit.connection, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
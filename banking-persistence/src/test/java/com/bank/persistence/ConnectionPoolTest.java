@@ -0,0 +1,164 @@
+package com.bank.persistence;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ConnectionPoolTest {
+
+    private JdbcDataSource source;
+    private ConnectionPool pool;
+
+    @BeforeEach
+    void setUp() {
+        source = new JdbcDataSource();
+        source.setURL("jdbc:h2:mem:pool-test;DB_CLOSE_DELAY=-1");
+        source.setUser("sa");
+        source.setPassword("");
+        pool = new ConnectionPool(source, 1, 2, 200, 60_000, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    @Test
+    void warmsUpToMinimumSize() {
+        assertEquals(1, pool.getTotalConnections());
+        assertEquals(1, pool.getIdleConnections());
+        assertEquals(0, pool.getActiveConnections());
+    }
+
+    @Test
+    void closeReturnsPhysicalConnectionForReuse() throws SQLException {
+        Connection first = pool.borrow();
+        assertEquals(1, pool.getActiveConnections());
+        first.close();
+        assertTrue(first.isClosed());
+        assertEquals(0, pool.getActiveConnections());
+
+        try (Connection second = pool.borrow()) {
+            assertFalse(second.isClosed());
+        }
+        assertEquals(1, pool.getConnectionsCreated());
+        assertEquals(2, pool.getConnectionsAcquired());
+    }
+
+    @Test
+    void returnedProxyCannotBeUsedAgain() throws SQLException {
+        Connection connection = pool.borrow();
+        connection.close();
+        assertThrows(SQLException.class, connection::createStatement);
+    }
+
+    @Test
+    void borrowTimesOutWhenPoolIsSaturated() throws SQLException {
+        try (Connection a = pool.borrow(); Connection b = pool.borrow()) {
+            assertEquals(2, pool.getActiveConnections());
+            assertThrows(SQLTransientConnectionException.class, pool::borrow);
+            assertEquals(1, pool.getAcquireTimeouts());
+        }
+        assertEquals(0, pool.getActiveConnections());
+    }
+
+    @Test
+    void uncommittedWorkIsRolledBackOnReturn() throws SQLException {
+        try (Connection setup = pool.borrow()) {
+            setup.createStatement().execute("CREATE TABLE IF NOT EXISTS POOL_PROBE (ID INT)");
+            setup.createStatement().execute("DELETE FROM POOL_PROBE");
+        }
+        try (Connection connection = pool.borrow()) {
+            connection.setAutoCommit(false);
+            connection.createStatement().execute("INSERT INTO POOL_PROBE VALUES (1)");
+        }
+        try (Connection connection = pool.borrow()) {
+            assertTrue(connection.getAutoCommit());
+            var rs = connection.createStatement().executeQuery("SELECT COUNT(*) FROM POOL_PROBE");
+            rs.next();
+            assertEquals(0, rs.getInt(1));
+        }
+    }
+
+    @Test
+    void drainClosesBorrowedConnectionsAsTheyReturn() throws Exception {
+        Connection borrowed = pool.borrow();
+        Thread returner = new Thread(() -> {
+            try {
+                Thread.sleep(100);
+                borrowed.close();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        returner.start();
+
+        assertTrue(pool.drain(2_000));
+        returner.join();
+        assertEquals(0, pool.getTotalConnections());
+        assertThrows(SQLException.class, pool::borrow);
+    }
+
+    @Test
+    void verifyRejectsAPoolThatCannotReachItsDatabase() throws SQLException {
+        pool.verify(1);
+
+        JdbcDataSource missing = new JdbcDataSource();
+        missing.setURL("jdbc:h2:mem:no-such-db;IFEXISTS=TRUE");
+        ConnectionPool unreachable = new ConnectionPool(missing, 1, 2, 200, 60_000, 0);
+        try {
+            assertThrows(SQLException.class, () -> unreachable.verify(1));
+        } finally {
+            unreachable.close();
+        }
+    }
+
+    @Test
+    void preparedStatementsAreReusedAcrossBorrows() throws SQLException {
+        String sql = "SELECT ? + 1";
+        try (Connection connection = pool.borrow(); PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setInt(1, 1);
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                assertEquals(2, rs.getInt(1));
+            }
+        }
+        try (Connection connection = pool.borrow(); PreparedStatement ps = connection.prepareStatement(sql)) {
+            assertSame(connection, ps.getConnection());
+            assertThrows(SQLException.class, ps::executeQuery, "Parameters must be cleared when a statement is cached");
+        }
+
+        assertEquals(1, pool.getStatementCacheMisses());
+        assertEquals(1, pool.getStatementCacheHits());
+    }
+
+    @Test
+    void leastRecentlyUsedStatementIsEvictedAtCapacity() throws SQLException {
+        try (Connection connection = pool.borrow()) {
+            for (String sql : new String[] { "SELECT 1", "SELECT 2", "SELECT 3", "SELECT 3", "SELECT 1" }) {
+                connection.prepareStatement(sql).close();
+            }
+        }
+
+        assertEquals(1, pool.getStatementCacheHits());
+        assertEquals(4, pool.getStatementCacheMisses());
+    }
+
+    @Test
+    void closedStatementHandleCannotBeUsed() throws SQLException {
+        try (Connection connection = pool.borrow()) {
+            PreparedStatement ps = connection.prepareStatement("SELECT 1");
+            ps.close();
+            assertTrue(ps.isClosed());
+            assertThrows(SQLException.class, ps::executeQuery);
+        }
+    }
+}
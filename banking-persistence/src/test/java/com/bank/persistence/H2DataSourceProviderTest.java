@@ -0,0 +1,41 @@
+package com.bank.persistence;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class H2DataSourceProviderTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void storeSettingsAreUnderstoodByH2() throws SQLException {
+        assertEquals("", H2DataSourceProvider.storeSettings(0, 0, false));
+        assertEquals(";PAGE_SIZE=8192", H2DataSourceProvider.storeSettings(0, 8192, false));
+        // Compression fixes the split size, so the configured one is dropped
+        assertEquals(";CACHE_SIZE=4096;COMPRESS=TRUE", H2DataSourceProvider.storeSettings(4096, 8192, true));
+
+        String url = "jdbc:h2:" + dir.resolve("settings") + H2DataSourceProvider.storeSettings(4096, 0, true);
+        try (Connection connection = DriverManager.getConnection(url, "sa", "");
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(
+                 "SELECT SETTING_NAME, SETTING_VALUE FROM INFORMATION_SCHEMA.SETTINGS "
+                     + "WHERE SETTING_NAME IN ('CACHE_SIZE', 'COMPRESS') ORDER BY SETTING_NAME")) {
+            assertTrue(rs.next());
+            assertEquals("4096", rs.getString(2));
+            assertTrue(rs.next());
+            assertEquals("TRUE", rs.getString(2));
+        }
+        // An unknown setting name would be refused at connect time
+        assertThrows(SQLException.class,
+            () -> DriverManager.getConnection("jdbc:h2:" + dir.resolve("bad") + ";PAGE_SPLIT_SIZE=8192", "sa", ""));
+    }
+}
@@ -0,0 +1,110 @@
+package com.bank.persistence;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class IdempotencyStoreTest {
+
+    private JdbcDataSource source;
+    private UnitOfWorkScope scope;
+    private IdempotencyStore store;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        source = new JdbcDataSource();
+        source.setURL("jdbc:h2:mem:idempotency-test;DB_CLOSE_DELAY=-1");
+        source.setUser("sa");
+        source.setPassword("");
+        try (Connection connection = source.getConnection()) {
+            connection.createStatement().execute("DROP ALL OBJECTS");
+            SchemaMigrator.migrate(connection);
+            connection.createStatement().execute("CREATE TABLE LEDGER (AMOUNT INT)");
+        }
+        scope = new UnitOfWorkScope();
+        store = new IdempotencyStore(scope, source::getConnection, this::connection, 3_600_000);
+    }
+
+    // Same contract as H2DataSourceProvider.getConnection(): the unit's connection while one is active
+    private Connection connection() throws SQLException {
+        Connection bound = scope.participant();
+        return bound != null ? bound : source.getConnection();
+    }
+
+    @Test
+    void replayReturnsOriginalOutcomeWithoutRunningAgain() throws SQLException {
+        AtomicInteger runs = new AtomicInteger();
+
+        String first = store.executeOnce("DEPOSIT", "k1", "alice", () -> post(runs, 10));
+        String second = store.executeOnce("DEPOSIT", "k1", "alice", () -> post(runs, 10));
+
+        assertEquals("posted-1", first);
+        assertEquals("posted-1", second);
+        assertEquals(1, runs.get());
+        assertEquals(10, ledgerTotal());
+    }
+
+    @Test
+    void replayIsServedFromTheTableAfterARestart() throws SQLException {
+        AtomicInteger runs = new AtomicInteger();
+        store.executeOnce("DEPOSIT", "k1", "alice", () -> post(runs, 10));
+
+        IdempotencyStore restarted = new IdempotencyStore(scope, source::getConnection, this::connection, 3_600_000);
+        assertEquals("posted-1", restarted.executeOnce("DEPOSIT", "k1", "alice", () -> post(runs, 10)));
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void failedOperationReleasesTheKey() throws SQLException {
+        AtomicInteger runs = new AtomicInteger();
+
+        assertNull(store.executeOnce("DEPOSIT", "k1", "alice", () -> null));
+        assertEquals("posted-1", store.executeOnce("DEPOSIT", "k1", "alice", () -> post(runs, 10)));
+        assertEquals(10, ledgerTotal());
+    }
+
+    @Test
+    void exceptionRollsBackOperationAndClaim() throws SQLException {
+        AtomicInteger runs = new AtomicInteger();
+
+        assertThrows(IllegalStateException.class, () -> store.executeOnce("DEPOSIT", "k1", "alice", () -> {
+            post(runs, 10);
+            throw new IllegalStateException("boom");
+        }));
+
+        assertEquals(0, ledgerTotal());
+        assertEquals("posted-2", store.executeOnce("DEPOSIT", "k1", "alice", () -> post(runs, 10)));
+    }
+
+    @Test
+    void keysAreScopedAndOwned() {
+        AtomicInteger runs = new AtomicInteger();
+        store.executeOnce("DEPOSIT", "k1", "alice", () -> post(runs, 10));
+
+        assertEquals("posted-2", store.executeOnce("TRANSFER", "k1", "alice", () -> post(runs, 10)));
+        assertThrows(IllegalArgumentException.class,
+            () -> store.executeOnce("DEPOSIT", "k1", "mallory", () -> post(runs, 10)));
+        assertEquals(2, runs.get());
+    }
+
+    private String post(AtomicInteger runs, int amount) throws SQLException {
+        try (Connection connection = connection()) {
+            connection.createStatement().execute("INSERT INTO LEDGER VALUES (" + amount + ")");
+        }
+        return "posted-" + runs.incrementAndGet();
+    }
+
+    private int ledgerTotal() throws SQLException {
+        try (Connection connection = source.getConnection();
+             ResultSet rs = connection.createStatement().executeQuery("SELECT COALESCE(SUM(AMOUNT), 0) FROM LEDGER")) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.bank.persistence;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.bank.api.LatencyStatistics;
+import com.bank.api.StatementStatistics;
+
+class QueryStatisticsTest {
+
+    private JdbcDataSource source;
+    private QueryStatistics statistics;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        source = new JdbcDataSource();
+        source.setURL("jdbc:h2:mem:stats-test;DB_CLOSE_DELAY=-1");
+        source.setUser("sa");
+        source.setPassword("");
+        try (Connection connection = source.getConnection()) {
+            connection.createStatement().execute("CREATE TABLE IF NOT EXISTS STATS_PROBE (ID INT, NAME VARCHAR(32))");
+            connection.createStatement().execute("DELETE FROM STATS_PROBE");
+            connection.createStatement().execute("INSERT INTO STATS_PROBE VALUES (1, 'a'), (2, 'b'), (3, 'c')");
+        }
+        statistics = new QueryStatistics(0);
+    }
+
+    @Test
+    void shapeReplacesLiteralsAndCollapsesWhitespace() {
+        assertEquals("SELECT * FROM T1 WHERE ID = ? AND NAME = ?",
+            SqlShape.of("SELECT *  FROM T1\n WHERE ID = 42 AND NAME = 'O''Brien'"));
+        assertEquals(SqlShape.of("DELETE FROM T WHERE ID = 1"), SqlShape.of("DELETE FROM T WHERE ID = 2.5"));
+        assertEquals("UPDATE T SET A = A - ?1 WHERE ID = ?2", SqlShape.of("UPDATE T SET A = A - ?1 WHERE ID = ?2"));
+    }
+
+    @Test
+    void recordsLatencyAndRowsPerShape() throws SQLException {
+        try (Connection connection = statistics.instrument(source.getConnection())) {
+            for (int i = 0; i < 3; i++) {
+                try (PreparedStatement ps = connection.prepareStatement("SELECT NAME FROM STATS_PROBE WHERE ID <= ?")) {
+                    ps.setInt(1, 2);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            assertNotNull(rs.getString(1));
+                        }
+                        assertSame(ps, rs.getStatement());
+                    }
+                }
+            }
+            connection.createStatement().executeQuery("SELECT * FROM STATS_PROBE WHERE ID = 1").close();
+            connection.createStatement().executeQuery("SELECT * FROM STATS_PROBE WHERE ID = 2").close();
+        }
+
+        List<StatementStatistics> statements = statistics.getStatementStatistics();
+        assertEquals(2, statements.size());
+        StatementStatistics prepared = find(statements, "SELECT NAME FROM STATS_PROBE WHERE ID <= ?");
+        assertEquals(3, prepared.getExecutions());
+        assertEquals(6, prepared.getRowsReturned());
+        assertEquals(2, find(statements, "SELECT * FROM STATS_PROBE WHERE ID = ?").getExecutions());
+        assertEquals(1, statistics.getConnectionHoldTime().getCount());
+    }
+
+    @Test
+    void failedExecutionsAreCounted() throws SQLException {
+        try (Connection connection = statistics.instrument(source.getConnection())) {
+            assertThrows(SQLException.class, () -> connection.createStatement().execute("SELECT * FROM NO_SUCH_TABLE"));
+        }
+
+        StatementStatistics failed = find(statistics.getStatementStatistics(), "SELECT * FROM NO_SUCH_TABLE");
+        assertEquals(1, failed.getExecutions());
+        assertEquals(1, failed.getFailures());
+    }
+
+    @Test
+    void slowStatementsAreCountedAgainstThreshold() {
+        statistics.setSlowQueryThresholdMillis(5);
+        QueryStatistics.StatementMetrics metrics = statistics.metricsFor("SELECT 1");
+        statistics.recordExecution(metrics, 1_000_000, false);
+        statistics.recordExecution(metrics, 8_000_000, false);
+
+        assertEquals(1, statistics.getSlowQueryCount());
+        assertEquals(1, statistics.getStatementStatistics().get(0).getSlowExecutions());
+        statistics.reset();
+        assertEquals(0, statistics.getSlowQueryCount());
+        assertTrue(statistics.getStatementStatistics().isEmpty());
+    }
+
+    @Test
+    void histogramPercentilesAreBucketUpperBounds() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 99; i++) {
+            histogram.record(900_000); // 0.9ms falls into the 1.024ms bucket
+        }
+        histogram.record(50_000_000);
+
+        LatencyStatistics snapshot = histogram.snapshot();
+        assertEquals(100, snapshot.getCount());
+        assertEquals(1.024, snapshot.getP50Millis(), 1e-9);
+        assertEquals(1.024, snapshot.getP99Millis(), 1e-9);
+        assertEquals(50.0, snapshot.getMaxMillis(), 1e-9);
+    }
+
+    private static StatementStatistics find(List<StatementStatistics> statements, String sql) {
+        return statements.stream()
+            .filter(s -> s.getSql().equals(sql))
+            .findFirst()
+            .orElseThrow(() -> new AssertionError("No statistics for " + sql));
+    }
+}
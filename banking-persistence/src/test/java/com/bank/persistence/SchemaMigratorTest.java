@@ -0,0 +1,93 @@
+package com.bank.persistence;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SchemaMigratorTest {
+
+    private Connection connection;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:schema-test;DB_CLOSE_DELAY=-1", "sa", "");
+        connection.createStatement().execute("DROP ALL OBJECTS");
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    void migratesEmptyDatabaseAndRecordsEachVersion() throws SQLException {
+        int version = SchemaMigrator.migrate(connection);
+
+        assertTrue(version >= 2);
+        assertEquals(version, count("SELECT COUNT(*) FROM SCHEMA_VERSION"));
+        for (String table : new String[] { "CUSTOMER", "DEPOSIT_ACCOUNT", "TRANSACTION", "CARD", "SUPPORT_TICKET" }) {
+            assertEquals(1, count("SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_NAME = '" + table + "'"), table);
+        }
+        assertEquals(1, count("SELECT COUNT(*) FROM INFORMATION_SCHEMA.INDEXES WHERE INDEX_NAME = 'IDX_TRANSACTION_ACCOUNT_CREATED'"));
+    }
+
+    @Test
+    void secondRunIsANoOp() throws SQLException {
+        int first = SchemaMigrator.migrate(connection);
+        int second = SchemaMigrator.migrate(connection);
+
+        assertEquals(first, second);
+        assertEquals(first, count("SELECT COUNT(*) FROM SCHEMA_VERSION"));
+    }
+
+    @Test
+    void adoptsTablesCreatedBeforeMigrationsExisted() throws SQLException {
+        connection.createStatement().execute("CREATE TABLE CARD (ID VARCHAR(36) PRIMARY KEY, ACCOUNT_ID VARCHAR(36) NOT NULL, "
+            + "CARD_NUMBER VARCHAR(36) NOT NULL UNIQUE, TRANSACTION_LIMIT INT NOT NULL, STATUS VARCHAR(32) NOT NULL, "
+            + "PIN_NUMBER VARCHAR(6) NOT NULL, CREATED_AT TIMESTAMP NOT NULL)");
+        connection.createStatement().execute("INSERT INTO CARD VALUES ('c1', 'DA1', '1234', 5000, 'ACTIVE', '123456', CURRENT_TIMESTAMP)");
+
+        SchemaMigrator.migrate(connection);
+
+        assertEquals(1, count("SELECT COUNT(*) FROM CARD"));
+    }
+
+    @Test
+    void stopsAtDuplicateIdentificationNumbersAndNamesTheCustomers() throws SQLException {
+        connection.createStatement().execute("CREATE TABLE CUSTOMER (ID VARCHAR(36) PRIMARY KEY, NAME VARCHAR(255) NOT NULL, "
+            + "EMAIL VARCHAR(255), IDENTIFICATION_NO VARCHAR(255), PASSWORD_HASH VARCHAR(255) NOT NULL, "
+            + "STATUS VARCHAR(32), CREATED_AT TIMESTAMP)");
+        connection.createStatement().execute("INSERT INTO CUSTOMER VALUES "
+            + "('c1', 'First', NULL, 'IC1', 'h', 'ACTIVE', TIMESTAMP '2024-01-01 00:00:00'), "
+            + "('c2', 'Second', NULL, 'IC1', 'h', 'ACTIVE', TIMESTAMP '2024-01-02 00:00:00'), "
+            + "('c3', 'Other', NULL, 'IC2', 'h', 'ACTIVE', TIMESTAMP '2024-01-03 00:00:00')");
+
+        SQLException failure = assertThrows(SQLException.class, () -> SchemaMigrator.migrate(connection));
+
+        assertTrue(failure.getMessage().contains("Schema migration V3 failed"), failure.getMessage());
+        assertTrue(failure.getMessage().contains("'IC1' is held by CUSTOMER IDs: c1, c2"), failure.getMessage());
+        assertFalse(failure.getMessage().contains("c3"), failure.getMessage());
+        assertEquals(2, count("SELECT MAX(VERSION) FROM SCHEMA_VERSION"));
+        assertEquals(0, count("SELECT COUNT(*) FROM CUSTOMER WHERE IDENTIFICATION_NO IS NULL"));
+
+        // Once an operator has resolved the conflict the upgrade goes through
+        connection.createStatement().execute("UPDATE CUSTOMER SET IDENTIFICATION_NO = 'IC3' WHERE ID = 'c2'");
+        SchemaMigrator.migrate(connection);
+
+        assertThrows(SQLException.class, () -> connection.createStatement().execute(
+            "UPDATE CUSTOMER SET IDENTIFICATION_NO = 'IC2' WHERE ID = 'c1'"));
+    }
+
+    private int count(String sql) throws SQLException {
+        try (ResultSet rs = connection.createStatement().executeQuery(sql)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.bank.persistence;
+
+import java.lang.reflect.Proxy;
+
+/**
+ * Starts the real {@link H2DataSourceProvider} on its in-memory database, for
+ * other bundles' tests that need the pool, {@code IUnitOfWork} and
+ * {@code IIdempotencyStore} behaving as they do in the framework. Shipped in
+ * this module's test jar.
+ */
+public final class TestDataSources {
+
+    private TestDataSources() {
+    }
+
+    /** An activated provider with default settings, the MEMORY mode and no console. */
+    public static H2DataSourceProvider memory() {
+        PersistenceConfig config = (PersistenceConfig) Proxy.newProxyInstance(
+            PersistenceConfig.class.getClassLoader(),
+            new Class<?>[] { PersistenceConfig.class },
+            (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "mode":
+                        return DatabaseMode.MEMORY;
+                    case "console_enabled":
+                        return false;
+                    default:
+                        return method.getDefaultValue();
+                }
+            });
+        H2DataSourceProvider provider = new H2DataSourceProvider();
+        provider.activate(config);
+        return provider;
+    }
+
+    public static void stop(H2DataSourceProvider provider) {
+        provider.deactivate();
+    }
+}
@@ -0,0 +1,26 @@
+package com.bank.persistence;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Gives other bundles' tests the production schema by running the real
+ * {@link SchemaMigrator}, so no test keeps its own copy of the DDL. Shipped
+ * in this module's test jar.
+ */
+public final class TestSchema {
+
+    private TestSchema() {
+    }
+
+    /**
+     * Drops everything in the connection's database and migrates it to the latest version.
+     */
+    public static void recreate(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+        }
+        SchemaMigrator.migrate(connection);
+    }
+}
@@ -0,0 +1,102 @@
+package com.bank.persistence;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class UnitOfWorkScopeTest {
+
+    private JdbcDataSource source;
+    private UnitOfWorkScope scope;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        source = new JdbcDataSource();
+        source.setURL("jdbc:h2:mem:uow-test;DB_CLOSE_DELAY=-1");
+        source.setUser("sa");
+        source.setPassword("");
+        try (Connection connection = source.getConnection()) {
+            connection.createStatement().execute("CREATE TABLE IF NOT EXISTS UOW_PROBE (ID INT)");
+            connection.createStatement().execute("DELETE FROM UOW_PROBE");
+        }
+        scope = new UnitOfWorkScope();
+    }
+
+    @Test
+    void participantsShareOneConnectionAndCommitOnce() throws SQLException {
+        scope.execute(source::getConnection, () -> {
+            try (Connection first = scope.participant(); Connection second = scope.participant()) {
+                first.createStatement().execute("INSERT INTO UOW_PROBE VALUES (1)");
+                first.commit(); // deferred to the unit
+                assertEquals(1, count(second));
+                assertEquals(0, countCommitted(), "Uncommitted rows must not be visible outside the unit");
+            }
+            return null;
+        });
+
+        assertFalse(scope.isActive());
+        assertNull(scope.participant());
+        assertEquals(1, countCommitted());
+    }
+
+    @Test
+    void exceptionRollsBackEverything() {
+        assertThrows(IllegalStateException.class, () -> scope.execute(source::getConnection, () -> {
+            try (Connection connection = scope.participant()) {
+                connection.createStatement().execute("INSERT INTO UOW_PROBE VALUES (1)");
+            }
+            throw new IllegalStateException("boom");
+        }));
+
+        assertDoesNotThrow(() -> assertEquals(0, countCommitted()));
+    }
+
+    @Test
+    void participantRollbackMarksUnitRollbackOnly() throws SQLException {
+        String result = scope.execute(source::getConnection, () -> {
+            try (Connection connection = scope.participant()) {
+                connection.createStatement().execute("INSERT INTO UOW_PROBE VALUES (1)");
+                connection.rollback();
+            }
+            return "done";
+        });
+
+        assertEquals("done", result);
+        assertEquals(0, countCommitted());
+    }
+
+    @Test
+    void nestedUnitJoinsOuterUnit() throws SQLException {
+        scope.execute(source::getConnection, () -> {
+            scope.execute(source::getConnection, () -> {
+                try (Connection connection = scope.participant()) {
+                    connection.createStatement().execute("INSERT INTO UOW_PROBE VALUES (1)");
+                }
+                return null;
+            });
+            assertEquals(0, countCommitted(), "Inner unit must not commit on its own");
+            return null;
+        });
+
+        assertEquals(1, countCommitted());
+    }
+
+    // Reads through a fresh connection of its own, so only committed rows are seen
+    private int countCommitted() throws SQLException {
+        try (Connection connection = source.getConnection()) {
+            return count(connection);
+        }
+    }
+
+    private static int count(Connection connection) throws SQLException {
+        try (ResultSet rs = connection.createStatement().executeQuery("SELECT COUNT(*) FROM UOW_PROBE")) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.bank.transaction;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Resolves customer IDs to their deposit account. A customer's account ID
+ * never changes once opened, so hits are served from memory; only accounts
+ * that exist are cached, so one opened later is still found. All customers
+ * missing from one call are loaded with a single query.
+ *
+ * <p>Entries also carry the account's hot-slot count, which can change, so
+ * they are dropped when the deposit bundle reports a change to the account, and
+ * when the customer bundle reports a change to the customer. An eviction bumps
+ * a generation, and a load that raced with one is returned but not stored.
+ */
+final class AccountResolver {
+
+    // The deposit bundle stores the customer ID, never the identification number, in CUSTOMER_ID
+    private static final String ACCOUNTS_BY_CUSTOMER_SQL =
+            "SELECT ACCOUNT_ID, CUSTOMER_ID, HOT_SLOTS FROM DEPOSIT_ACCOUNT WHERE CUSTOMER_ID = ANY(?)";
+
+    private final ConcurrentHashMap<String, AccountRef> accounts = new ConcurrentHashMap<>();
+    private final int maxEntries;
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    AccountResolver(int maxEntries) {
+        this.maxEntries = Math.max(1, maxEntries);
+    }
+
+    /** Returns one account per customer ID, in order; null where the customer is unknown or has no account. */
+    AccountRef[] resolve(Connection conn, String... customerIds) throws SQLException {
+        AccountRef[] resolved = new AccountRef[customerIds.length];
+        Set<String> keys = new LinkedHashSet<>();
+        for (int i = 0; i < customerIds.length; i++) {
+            if (customerIds[i] == null) {
+                continue;
+            }
+            resolved[i] = accounts.get(customerIds[i]);
+            if (resolved[i] != null) {
+                hits.incrementAndGet();
+            } else {
+                misses.incrementAndGet();
+                keys.add(customerIds[i]);
+            }
+        }
+        if (keys.isEmpty()) {
+            return resolved;
+        }
+
+        long loadedAt = generation.get();
+        Map<String, AccountRef> byCustomer = new HashMap<>();
+        try (PreparedStatement ps = conn.prepareStatement(ACCOUNTS_BY_CUSTOMER_SQL)) {
+            ps.setArray(1, conn.createArrayOf("VARCHAR", keys.toArray()));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    byCustomer.put(rs.getString("CUSTOMER_ID"),
+                            new AccountRef(rs.getString("ACCOUNT_ID"), rs.getInt("HOT_SLOTS")));
+                }
+            }
+        }
+        for (int i = 0; i < customerIds.length; i++) {
+            if (resolved[i] == null && customerIds[i] != null) {
+                resolved[i] = byCustomer.get(customerIds[i]);
+                if (resolved[i] != null) {
+                    store(customerIds[i], resolved[i], loadedAt);
+                }
+            }
+        }
+        return resolved;
+    }
+
+    AccountRef resolve(Connection conn, String customerId) throws SQLException {
+        return resolve(conn, new String[] { customerId })[0];
+    }
+
+    // Rare (closures, operator changes), so a scan is cheaper than a reverse index
+    void evictAccount(String accountId) {
+        generation.incrementAndGet();
+        accounts.values().removeIf(account -> account.id.equals(accountId));
+    }
+
+    void evictCustomer(String customerId) {
+        generation.incrementAndGet();
+        accounts.remove(customerId);
+    }
+
+    int size() { return accounts.size(); }
+    int maxEntries() { return maxEntries; }
+    long hits() { return hits.get(); }
+    long misses() { return misses.get(); }
+    long evictions() { return evictions.get(); }
+
+    private void store(String key, AccountRef account, long loadedAt) {
+        // Full: make room by dropping an arbitrary entry; the mapping is cheap to reload
+        while (accounts.size() >= maxEntries) {
+            Iterator<String> it = accounts.keySet().iterator();
+            if (!it.hasNext()) {
+                break;
+            }
+            if (accounts.remove(it.next()) != null) {
+                evictions.incrementAndGet();
+            }
+        }
+        accounts.put(key, account);
+        if (generation.get() != loadedAt) {
+            // An eviction ran while this was loading; what was read may predate it
+            accounts.remove(key, account);
+        }
+    }
+
+    static final class AccountRef {
+        final String id;
+        final int hotSlots;
+
+        AccountRef(String id, int hotSlots) {
+            this.id = id;
+            this.hotSlots = hotSlots;
+        }
+    }
+}
@@ -1,34 +1,62 @@
 package com.bank.transaction;
 
+import com.bank.api.Customer;
+import com.bank.api.CustomerChangeEvent;
+import com.bank.api.DepositAccountChangeEvent;
+import com.bank.api.IAccountResolutionMetrics;
+import com.bank.api.IDepositAccountChangeListener;
+import com.bank.api.IDepositAccountLookup;
+import com.bank.api.IHotAccountLedger;
 import com.bank.api.ITransactionService;
+import com.bank.api.ICustomerChangeListener;
 import com.bank.api.ICustomerService;
+import com.bank.api.IIdempotencyStore;
+import com.bank.api.SessionToken;
+import com.bank.api.model.SummaryGranularity;
 import com.bank.api.model.Transaction;
+import com.bank.api.model.TransactionPage;
 import com.bank.api.model.TransactionSummary;
+import com.bank.api.model.TransactionSummaryBucket;
 import com.bank.api.model.TransactionType;
+import com.bank.api.model.TransactionView;
+import com.bank.transaction.AccountResolver.AccountRef;
 
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Reference;
-import org.osgi.service.component.annotations.Activate;
 
 import javax.sql.DataSource;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import java.sql.Connection;
-import java.sql.Statement;
 import java.sql.SQLException;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.Savepoint;
+import java.sql.Statement;
 import java.util.UUID;
-import java.sql.Timestamp;
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
+import java.util.function.Consumer;
+import java.util.concurrent.ThreadLocalRandom;
 
 
-@Component(service = ITransactionService.class, immediate = true)
-public class TransactionServiceImpl implements ITransactionService {
+@Component(
+        service = { ITransactionService.class, IAccountResolutionMetrics.class, IDepositAccountChangeListener.class,
+                    ICustomerChangeListener.class },
+        immediate = true
+)
+public class TransactionServiceImpl
+        implements ITransactionService, IAccountResolutionMetrics, IDepositAccountChangeListener,
+                   ICustomerChangeListener {
 
     @Reference
     private DataSource dataSource;
@@ -36,34 +64,71 @@ public class TransactionServiceImpl implements ITransactionService {
     @Reference
     private ICustomerService customerService;
 
-   @Activate
-void activate() {
-    try (Connection conn = dataSource.getConnection();
-         Statement stmt = conn.createStatement()) {
-
-        stmt.execute("""
-            CREATE TABLE IF NOT EXISTS TRANSACTION (
-                TXN_ID VARCHAR(64) PRIMARY KEY,
-                ACCOUNT_ID VARCHAR(64) NOT NULL,
-                TYPE VARCHAR(32) NOT NULL,
-                AMOUNT DECIMAL(18,2) NOT NULL,
-                NOTE VARCHAR(255),
-                CREATED_AT TIMESTAMP NOT NULL
-            )
-        """);
-
-    } catch (SQLException e) {
-        throw new RuntimeException("Failed to initialize TRANSACTION table", e);
-    }
-}
+    @Reference
+    private IIdempotencyStore idempotencyStore;
+
+    // TRANSACTION is created by the persistence bundle's schema migrations
 
+    // Every ledger operation starts by resolving the caller's account; the answer is cached
+    private static final int ACCOUNT_CACHE_SIZE = 10_000;
+    private final AccountResolver accounts = new AccountResolver(ACCOUNT_CACHE_SIZE);
+
+    // A hot account (HOT_SLOTS > 0, set through the deposit bundle) takes credits on one of
+    // its balance slots instead of its own row, so concurrent transfers to it do not all
+    // wait for one row lock. The deposit bundle owns the slots; see IHotAccountLedger.
+    @Reference
+    private IHotAccountLedger hotAccounts;
+
+    // Transfers change balances the deposit service caches
+    @Reference
+    private IDepositAccountLookup depositAccounts;
+
+    // Both legs of a transfer only touch active accounts, as the deposit bundle's own postings do
+    private static final String DEBIT_SQL =
+            "UPDATE DEPOSIT_ACCOUNT SET BALANCE = BALANCE - ?1 "
+            + "WHERE ACCOUNT_ID = ?2 AND STATUS = 'Active' AND BALANCE - HELD_BALANCE >= ?1";
+    private static final String CREDIT_SQL =
+            "UPDATE DEPOSIT_ACCOUNT SET BALANCE = BALANCE + ? WHERE ACCOUNT_ID = ? AND STATUS = 'Active'";
+
+    // Per-account, per-day, per-type totals, kept in step with TRANSACTION by insertTransaction
+    // in the same database transaction. A hot account spreads its rollup over as many slots as
+    // its balance, so credits to it do not start contending on one rollup row instead.
+    private static final String ROLLUP_SQL =
+            "MERGE INTO TRANSACTION_DAILY_ROLLUP R "
+            + "USING (VALUES (CAST(?1 AS VARCHAR), CAST(?2 AS DATE), CAST(?3 AS VARCHAR), CAST(?4 AS INT))) "
+            + "S (ACCOUNT_ID, TXN_DATE, TYPE, SLOT) "
+            + "ON R.ACCOUNT_ID = S.ACCOUNT_ID AND R.TXN_DATE = S.TXN_DATE AND R.TYPE = S.TYPE AND R.SLOT = S.SLOT "
+            + "WHEN MATCHED THEN UPDATE SET TOTAL = TOTAL + ?5 "
+            + "WHEN NOT MATCHED THEN INSERT (ACCOUNT_ID, TXN_DATE, TYPE, SLOT, TOTAL) "
+            + "VALUES (S.ACCOUNT_ID, S.TXN_DATE, S.TYPE, S.SLOT, ?5)";
+
+    private static final int ROLLUP_ATTEMPTS = 3;
+
+    private static final String SERIES_ROLLUP_SQL =
+            "SELECT TXN_DATE, TYPE, SUM(TOTAL) AS TOTAL FROM TRANSACTION_DAILY_ROLLUP "
+            + "WHERE ACCOUNT_ID = ? AND TXN_DATE BETWEEN ? AND ? GROUP BY TXN_DATE, TYPE";
+    private static final String SERIES_RAW_SQL =
+            "SELECT CREATED_AT, TYPE, AMOUNT FROM TRANSACTION WHERE ACCOUNT_ID = ? AND CREATED_AT >= ? AND CREATED_AT < ?";
+
+    // Keyset paging: a cursor is the (CREATED_AT, TXN_ID) of the last entry returned. The
+    // ORDER BY matches IDX_TRANSACTION_ACCOUNT_PAGE column for column, ACCOUNT_ID included,
+    // so H2 reads a page in index order and stops after it instead of sorting the history.
+    private static final int MAX_PAGE_SIZE = 500;
+    // Rows per round trip when streaming
+    private static final int STREAM_FETCH_SIZE = 500;
+    private static final String FIRST_PAGE_SQL =
+            "SELECT * FROM TRANSACTION WHERE ACCOUNT_ID = ?1 "
+            + "ORDER BY ACCOUNT_ID, CREATED_AT DESC, TXN_ID DESC FETCH FIRST ?2 ROWS ONLY";
+    private static final String NEXT_PAGE_SQL =
+            "SELECT * FROM TRANSACTION WHERE ACCOUNT_ID = ?1 AND CREATED_AT <= ?3 AND (CREATED_AT < ?3 OR TXN_ID < ?4) "
+            + "ORDER BY ACCOUNT_ID, CREATED_AT DESC, TXN_ID DESC FETCH FIRST ?2 ROWS ONLY";
 
     @Override
-public boolean recordTransaction(String identificationNo,
-                                 String password,
-                                 TransactionType type,
-                                 BigDecimal amount,
-                                 String note) {
+    public boolean recordTransaction(String identificationNo,
+                                     String password,
+                                     TransactionType type,
+                                     BigDecimal amount,
+                                     String note) {
         // Reject zero or negative amounts
         if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
             return false;
@@ -71,364 +136,815 @@ public boolean recordTransaction(String identificationNo,
         if (!customerService.verifyLogin(identificationNo, password)) {
             return false;
         }
+        return record(customerId(identificationNo), type, amount, note);
+    }
 
-        try (Connection conn = dataSource.getConnection()) {
+    @Override
+    public boolean recordTransaction(SessionToken session,
+                                     TransactionType type,
+                                     BigDecimal amount,
+                                     String note) {
+        if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
+            return false;
+        }
+        String owner = sessionOwner(session);
+        return owner != null && record(owner, type, amount, note);
+    }
 
-            // 1. Resolve account ID
-            String accountId = null;
-            try (PreparedStatement ps = conn.prepareStatement(
-                    "SELECT ACCOUNT_ID FROM DEPOSIT_ACCOUNT WHERE CUSTOMER_ID = ?")) {
+    private boolean record(String owner, TransactionType type, BigDecimal amount, String note) {
+        try (Connection conn = dataSource.getConnection()) {
 
-                ps.setString(1, identificationNo);
+            conn.setAutoCommit(false);
 
-                try (ResultSet rs = ps.executeQuery()) {
-                    if (rs.next()) {
-                        accountId = rs.getString("ACCOUNT_ID");
-                    }
-                }
+            // 1. Resolve account
+            AccountRef account = accounts.resolve(conn, owner);
+            if (account == null) {
+                conn.rollback();
+                return false;
             }
 
+            // 2. Insert transaction and its rollup together
+            insertTransaction(conn, account, type, amount, note);
+            conn.commit();
+            return true;
+
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to record transaction", e);
+        }
+    }
+
+    @Override
+    public List<Transaction> getTransactionHistory(String identificationNo,
+                                                   String password) {
+        if (!customerService.verifyLogin(identificationNo, password)) {
+            return Collections.emptyList();
+        }
+        return history(customerId(identificationNo));
+    }
+
+    @Override
+    public List<Transaction> getTransactionHistory(SessionToken session) {
+        String owner = sessionOwner(session);
+        return owner == null ? Collections.emptyList() : history(owner);
+    }
+
+    private List<Transaction> history(String owner) {
+        try (Connection conn = dataSource.getConnection()) {
+
+            String accountId = resolveAccount(conn, owner);
             if (accountId == null) {
-                return false;
+                return Collections.emptyList();
             }
 
-            // 2. Insert transaction
+            List<Transaction> transactions = new java.util.ArrayList<>();
+
             try (PreparedStatement ps = conn.prepareStatement(
-                    "INSERT INTO TRANSACTION (TXN_ID, ACCOUNT_ID, TYPE, AMOUNT, NOTE, CREATED_AT) " +
-                    "VALUES (?, ?, ?, ?, ?, ?)")) {
+                    "SELECT * FROM TRANSACTION WHERE ACCOUNT_ID = ? ORDER BY CREATED_AT DESC")) {
 
-                ps.setString(1, UUID.randomUUID().toString());
-                ps.setString(2, accountId);
-                ps.setString(3, type.name());
-                ps.setBigDecimal(4, amount);
-                ps.setString(5, note);
-                ps.setTimestamp(6, java.sql.Timestamp.valueOf(LocalDateTime.now()));
+                ps.setString(1, accountId);
 
-                ps.executeUpdate();
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        transactions.add(mapTransaction(rs));
+                    }
+                }
             }
 
-            return true;
+            return transactions;
 
         } catch (Exception e) {
-            throw new RuntimeException("Failed to record transaction", e);
+            throw new RuntimeException("Failed to fetch transaction history", e);
         }
-}
+    }
 
-@Override
-public List<Transaction> getTransactionHistory(String identificationNo,
-                                                String password) {
+    @Override
+    public TransactionPage getTransactionHistoryPage(String identificationNo, String password, int pageSize, String cursor) {
+        if (!customerService.verifyLogin(identificationNo, password)) {
+            return new TransactionPage(Collections.emptyList(), null);
+        }
+        return historyPage(customerId(identificationNo), pageSize, cursor);
+    }
 
-    if (!customerService.verifyLogin(identificationNo, password)) {
-        return Collections.emptyList();
+    @Override
+    public TransactionPage getTransactionHistoryPage(SessionToken session, int pageSize, String cursor) {
+        String owner = sessionOwner(session);
+        return owner == null ? new TransactionPage(Collections.emptyList(), null) : historyPage(owner, pageSize, cursor);
     }
 
-    try (Connection conn = dataSource.getConnection()) {
+    private TransactionPage historyPage(String owner, int pageSize, String cursor) {
+        int size = Math.max(1, Math.min(pageSize, MAX_PAGE_SIZE));
+        Cursor after = cursor == null ? null : Cursor.decode(cursor);
+        try (Connection conn = dataSource.getConnection()) {
+
+            String accountId = resolveAccount(conn, owner);
+            if (accountId == null) {
+                return new TransactionPage(Collections.emptyList(), null);
+            }
 
-        String accountId = null;
+            List<Transaction> transactions = new ArrayList<>();
 
-        try (PreparedStatement ps = conn.prepareStatement(
-                "SELECT ACCOUNT_ID FROM DEPOSIT_ACCOUNT WHERE CUSTOMER_ID = ?")) {
+            // One row more than the page shows whether there is a next page
+            try (PreparedStatement ps = conn.prepareStatement(after == null ? FIRST_PAGE_SQL : NEXT_PAGE_SQL)) {
 
-            ps.setString(1, identificationNo);
+                ps.setString(1, accountId);
+                ps.setInt(2, size + 1);
+                if (after != null) {
+                    ps.setTimestamp(3, java.sql.Timestamp.valueOf(after.createdAt));
+                    ps.setString(4, after.txnId);
+                }
 
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    accountId = rs.getString("ACCOUNT_ID");
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        transactions.add(mapTransaction(rs));
+                    }
                 }
             }
+
+            if (transactions.size() <= size) {
+                return new TransactionPage(transactions, null);
+            }
+            transactions.remove(size);
+            Transaction last = transactions.get(size - 1);
+            return new TransactionPage(transactions, new Cursor(last.getCreatedAt(), last.getTransactionId()).encode());
+
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to fetch transaction history", e);
         }
+    }
 
-        if (accountId == null) {
+    @Override
+    public List<Transaction> filterTransactions(String identificationNo,
+                                                String password,
+                                                TransactionType type,
+                                                LocalDateTime from,
+                                                LocalDateTime to) {
+        if (!customerService.verifyLogin(identificationNo, password)) {
             return Collections.emptyList();
         }
+        return filter(customerId(identificationNo), type, from, to);
+    }
 
-        List<Transaction> transactions = new java.util.ArrayList<>();
+    @Override
+    public List<Transaction> filterTransactions(SessionToken session,
+                                                TransactionType type,
+                                                LocalDateTime from,
+                                                LocalDateTime to) {
+        String owner = sessionOwner(session);
+        return owner == null ? Collections.emptyList() : filter(owner, type, from, to);
+    }
 
-        try (PreparedStatement ps = conn.prepareStatement(
-                "SELECT * FROM TRANSACTION WHERE ACCOUNT_ID = ? ORDER BY CREATED_AT DESC")) {
-
-            ps.setString(1, accountId);
-
-            try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    transactions.add(new Transaction(
-                            rs.getString("TXN_ID"),
-                            rs.getString("ACCOUNT_ID"),
-                            TransactionType.valueOf(rs.getString("TYPE")),
-                            rs.getBigDecimal("AMOUNT"),
-                            rs.getString("NOTE"),
-                            rs.getTimestamp("CREATED_AT").toLocalDateTime()
-                    ));
+    private List<Transaction> filter(String owner, TransactionType type, LocalDateTime from, LocalDateTime to) {
+        try (Connection conn = dataSource.getConnection()) {
+            String accountId = resolveAccount(conn, owner);
+            if (accountId == null) {
+                return Collections.emptyList();
+            }
+            List<Transaction> results = new java.util.ArrayList<>();
+            try (PreparedStatement ps = filterStatement(conn, accountId, type, from, to)) {
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        results.add(mapTransaction(rs));
+                    }
                 }
             }
+            return results;
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to filter transactions", e);
         }
-
-        return transactions;
-
-    } catch (Exception e) {
-        throw new RuntimeException("Failed to fetch transaction history", e);
     }
-}
 
+    // Ordered like IDX_TRANSACTION_ACCOUNT_PAGE, so rows come off the index without a sort
+    private PreparedStatement filterStatement(Connection conn, String accountId, TransactionType type,
+                                              LocalDateTime from, LocalDateTime to) throws SQLException {
+        StringBuilder sql = new StringBuilder(
+                "SELECT * FROM TRANSACTION WHERE ACCOUNT_ID = ?");
+        List<Object> params = new java.util.ArrayList<>();
+        params.add(accountId);
+        if (type != null) {
+            sql.append(" AND TYPE = ?");
+            params.add(type.name());
+        }
+        if (from != null) {
+            sql.append(" AND CREATED_AT >= ?");
+            params.add(java.sql.Timestamp.valueOf(from));
+        }
+        if (to != null) {
+            sql.append(" AND CREATED_AT <= ?");
+            params.add(java.sql.Timestamp.valueOf(to));
+        }
+        sql.append(" ORDER BY ACCOUNT_ID, CREATED_AT DESC, TXN_ID DESC");
+        PreparedStatement ps = conn.prepareStatement(sql.toString(), ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        for (int i = 0; i < params.size(); i++) {
+            ps.setObject(i + 1, params.get(i));
+        }
+        return ps;
+    }
 
     @Override
-public List<Transaction> filterTransactions(String identificationNo,
-                                             String password,
-                                             TransactionType type,
-                                             LocalDateTime from,
-                                             LocalDateTime to) {
+    public boolean streamTransactions(String identificationNo,
+                                      String password,
+                                      TransactionType type,
+                                      LocalDateTime from,
+                                      LocalDateTime to,
+                                      Consumer<? super TransactionView> consumer) {
         if (!customerService.verifyLogin(identificationNo, password)) {
-            return Collections.emptyList();
+            return false;
         }
+        return stream(customerId(identificationNo), type, from, to, consumer);
+    }
+
+    @Override
+    public boolean streamTransactions(SessionToken session,
+                                      TransactionType type,
+                                      LocalDateTime from,
+                                      LocalDateTime to,
+                                      Consumer<? super TransactionView> consumer) {
+        String owner = sessionOwner(session);
+        return owner != null && stream(owner, type, from, to, consumer);
+    }
+
+    // H2 normally materialises a whole result before returning the first row; lazy execution
+    // hands rows over as the index is walked, so only a fetch-size window is ever in memory
+    private boolean stream(String owner, TransactionType type, LocalDateTime from, LocalDateTime to,
+                           Consumer<? super TransactionView> consumer) {
         try (Connection conn = dataSource.getConnection()) {
-            String accountId = null;
-            try (PreparedStatement ps = conn.prepareStatement(
-                    "SELECT ACCOUNT_ID FROM DEPOSIT_ACCOUNT WHERE CUSTOMER_ID = ?")) {
-                ps.setString(1, identificationNo);
+            String accountId = resolveAccount(conn, owner);
+            if (accountId == null) {
+                return false;
+            }
+            try (Statement session = conn.createStatement()) {
+                session.execute("SET LAZY_QUERY_EXECUTION TRUE");
+            }
+            try (PreparedStatement ps = filterStatement(conn, accountId, type, from, to)) {
+                ps.setFetchSize(STREAM_FETCH_SIZE);
                 try (ResultSet rs = ps.executeQuery()) {
-                    if (rs.next()) {
-                        accountId = rs.getString("ACCOUNT_ID");
+                    RowView row = new RowView(rs);
+                    while (rs.next()) {
+                        row.advance();
+                        consumer.accept(row);
                     }
                 }
+            } finally {
+                // The connection goes back to a shared pool
+                try (Statement session = conn.createStatement()) {
+                    session.execute("SET LAZY_QUERY_EXECUTION FALSE");
+                }
             }
+            return true;
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to stream transactions", e);
+        }
+    }
+
+    @Override
+    public TransactionSummary getTransactionSummary(String identificationNo,
+                                                    String password,
+                                                    LocalDateTime from,
+                                                    LocalDateTime to) {
+        if (!customerService.verifyLogin(identificationNo, password)) {
+            return new TransactionSummary();
+        }
+        return summarize(customerId(identificationNo), from, to);
+    }
+
+    @Override
+    public TransactionSummary getTransactionSummary(SessionToken session,
+                                                    LocalDateTime from,
+                                                    LocalDateTime to) {
+        String owner = sessionOwner(session);
+        return owner == null ? new TransactionSummary() : summarize(owner, from, to);
+    }
+
+    private TransactionSummary summarize(String owner, LocalDateTime from, LocalDateTime to) {
+        try (Connection conn = dataSource.getConnection()) {
+
+            String accountId = resolveAccount(conn, owner);
             if (accountId == null) {
-                return Collections.emptyList();
+                return new TransactionSummary();
             }
-            StringBuilder sql = new StringBuilder(
-                    "SELECT * FROM TRANSACTION WHERE ACCOUNT_ID = ?");
+
+            StringBuilder sql = new StringBuilder("SELECT TYPE, SUM(AMOUNT) AS TOTAL FROM (");
             List<Object> params = new java.util.ArrayList<>();
-            params.add(accountId);
-            if (type != null) {
-                sql.append(" AND TYPE = ?");
-                params.add(type.name());
-            }
+
+            // Whole days inside the range: [firstDay, endDay)
+            LocalDate firstDay = null;
             if (from != null) {
-                sql.append(" AND CREATED_AT >= ?");
-                params.add(java.sql.Timestamp.valueOf(from));
+                firstDay = from.toLocalTime().equals(LocalTime.MIDNIGHT) ? from.toLocalDate() : from.toLocalDate().plusDays(1);
             }
-            if (to != null) {
-                sql.append(" AND CREATED_AT <= ?");
-                params.add(java.sql.Timestamp.valueOf(to));
+            LocalDate endDay = to == null ? null : to.toLocalDate();
+
+            if (firstDay != null && endDay != null && !firstDay.isBefore(endDay)) {
+                // No whole day in between: the raw rows are all there is
+                appendRawRange(sql, params, accountId, from, "<=", to);
+            } else {
+                // Whole days from the rollups, the partial first and last day from the raw rows
+                sql.append("SELECT TYPE, TOTAL AS AMOUNT FROM TRANSACTION_DAILY_ROLLUP WHERE ACCOUNT_ID = ?");
+                params.add(accountId);
+                if (firstDay != null) {
+                    sql.append(" AND TXN_DATE >= ?");
+                    params.add(firstDay);
+                }
+                if (endDay != null) {
+                    sql.append(" AND TXN_DATE < ?");
+                    params.add(endDay);
+                }
+                if (from != null && !firstDay.equals(from.toLocalDate())) {
+                    sql.append(" UNION ALL ");
+                    appendRawRange(sql, params, accountId, from, "<", firstDay.atStartOfDay());
+                }
+                if (endDay != null) {
+                    sql.append(" UNION ALL ");
+                    appendRawRange(sql, params, accountId, endDay.atStartOfDay(), "<=", to);
+                }
             }
-            sql.append(" ORDER BY CREATED_AT DESC");
-            List<Transaction> results = new java.util.ArrayList<>();
+
+            sql.append(") GROUP BY TYPE");
+
+            Totals totals = new Totals();
+
             try (PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+
                 for (int i = 0; i < params.size(); i++) {
                     ps.setObject(i + 1, params.get(i));
                 }
+
                 try (ResultSet rs = ps.executeQuery()) {
                     while (rs.next()) {
-                        results.add(new Transaction(
-                                rs.getString("TXN_ID"),
-                                rs.getString("ACCOUNT_ID"),
-                                TransactionType.valueOf(rs.getString("TYPE")),
-                                rs.getBigDecimal("AMOUNT"),
-                                rs.getString("NOTE"),
-                                rs.getTimestamp("CREATED_AT").toLocalDateTime()
-                        ));
+                        totals.add(TransactionType.valueOf(rs.getString("TYPE")), rs.getBigDecimal("TOTAL"));
                     }
                 }
             }
-            return results;
+
+            return totals.toSummary();
+
         } catch (Exception e) {
-            throw new RuntimeException("Failed to filter transactions", e);
+            throw new RuntimeException("Failed to get transaction summary", e);
         }
     }
 
-
     @Override
-public TransactionSummary getTransactionSummary(String identificationNo,
-                                                 String password,
-                                                 LocalDateTime from,
-                                                 LocalDateTime to) {
-
-    if (!customerService.verifyLogin(identificationNo, password)) {
-        return new TransactionSummary();
+    public List<TransactionSummaryBucket> getTransactionSummarySeries(String identificationNo,
+                                                                      String password,
+                                                                      LocalDate from,
+                                                                      LocalDate to,
+                                                                      SummaryGranularity granularity,
+                                                                      ZoneId zone) {
+        if (!customerService.verifyLogin(identificationNo, password)) {
+            return Collections.emptyList();
+        }
+        return series(customerId(identificationNo), from, to, granularity, zone);
     }
 
-    try (Connection conn = dataSource.getConnection()) {
-
-        String accountId = null;
+    @Override
+    public List<TransactionSummaryBucket> getTransactionSummarySeries(SessionToken session,
+                                                                      LocalDate from,
+                                                                      LocalDate to,
+                                                                      SummaryGranularity granularity,
+                                                                      ZoneId zone) {
+        String owner = sessionOwner(session);
+        return owner == null ? Collections.emptyList() : series(owner, from, to, granularity, zone);
+    }
 
-        try (PreparedStatement ps = conn.prepareStatement(
-                "SELECT ACCOUNT_ID FROM DEPOSIT_ACCOUNT WHERE CUSTOMER_ID = ?")) {
+    // CREATED_AT and TXN_DATE are in the server's zone. When the caller's calendar is the same,
+    // each day is already a rollup row; otherwise day boundaries fall mid-rollup, so the raw
+    // rows are read once and each is placed by its time in the caller's zone.
+    private List<TransactionSummaryBucket> series(String owner, LocalDate from, LocalDate to,
+                                                  SummaryGranularity granularity, ZoneId zone) {
+        if (from == null || to == null || granularity == null || from.isAfter(to)) {
+            return Collections.emptyList();
+        }
+        ZoneId serverZone = ZoneId.systemDefault();
+        ZoneId bucketZone = zone != null ? zone : serverZone;
+        try (Connection conn = dataSource.getConnection()) {
+            String accountId = resolveAccount(conn, owner);
+            if (accountId == null) {
+                return Collections.emptyList();
+            }
 
-            ps.setString(1, identificationNo);
+            // Keyed by each bucket's first day; filled up front so quiet periods still appear
+            TreeMap<LocalDate, Totals> buckets = new TreeMap<>();
+            for (LocalDate start = granularity.bucketStart(from); !start.isAfter(to); start = granularity.nextBucket(start)) {
+                buckets.put(start, new Totals());
+            }
 
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    accountId = rs.getString("ACCOUNT_ID");
+            if (bucketZone.getRules().equals(serverZone.getRules())) {
+                try (PreparedStatement ps = conn.prepareStatement(SERIES_ROLLUP_SQL)) {
+                    ps.setString(1, accountId);
+                    ps.setObject(2, from);
+                    ps.setObject(3, to);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            LocalDate day = rs.getObject("TXN_DATE", LocalDate.class);
+                            buckets.get(granularity.bucketStart(day))
+                                    .add(TransactionType.valueOf(rs.getString("TYPE")), rs.getBigDecimal("TOTAL"));
+                        }
+                    }
+                }
+            } else {
+                try (PreparedStatement ps = conn.prepareStatement(SERIES_RAW_SQL,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                    ps.setString(1, accountId);
+                    ps.setObject(2, from.atStartOfDay(bucketZone).withZoneSameInstant(serverZone).toLocalDateTime());
+                    ps.setObject(3, to.plusDays(1).atStartOfDay(bucketZone).withZoneSameInstant(serverZone).toLocalDateTime());
+                    ps.setFetchSize(STREAM_FETCH_SIZE);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            LocalDate day = rs.getObject("CREATED_AT", LocalDateTime.class)
+                                    .atZone(serverZone).withZoneSameInstant(bucketZone).toLocalDate();
+                            Totals totals = buckets.get(granularity.bucketStart(day));
+                            // Null only for a time repeated by a clock change at the range edge
+                            if (totals != null) {
+                                totals.add(TransactionType.valueOf(rs.getString("TYPE")), rs.getBigDecimal("AMOUNT"));
+                            }
+                        }
+                    }
                 }
             }
-        }
 
-        if (accountId == null) {
-            return new TransactionSummary();
-        }
+            List<TransactionSummaryBucket> series = new ArrayList<>(buckets.size());
+            for (Map.Entry<LocalDate, Totals> bucket : buckets.entrySet()) {
+                LocalDate start = bucket.getKey().isBefore(from) ? from : bucket.getKey();
+                LocalDate end = granularity.nextBucket(bucket.getKey()).minusDays(1);
+                series.add(new TransactionSummaryBucket(start, end.isAfter(to) ? to : end, bucket.getValue().toSummary()));
+            }
+            return series;
 
-        StringBuilder sql = new StringBuilder(
-                "SELECT TYPE, SUM(AMOUNT) AS TOTAL FROM TRANSACTION WHERE ACCOUNT_ID = ?");
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to get transaction summary series", e);
+        }
+    }
 
-        List<Object> params = new java.util.ArrayList<>();
+    private static void appendRawRange(StringBuilder sql, List<Object> params, String accountId,
+                                       LocalDateTime from, String toOperator, LocalDateTime to) {
+        sql.append("SELECT TYPE, AMOUNT FROM TRANSACTION WHERE ACCOUNT_ID = ?");
         params.add(accountId);
-
         if (from != null) {
             sql.append(" AND CREATED_AT >= ?");
             params.add(java.sql.Timestamp.valueOf(from));
         }
-
         if (to != null) {
-            sql.append(" AND CREATED_AT <= ?");
+            sql.append(" AND CREATED_AT ").append(toOperator).append(" ?");
             params.add(java.sql.Timestamp.valueOf(to));
         }
+    }
 
-        sql.append(" GROUP BY TYPE");
-
-        BigDecimal totalDeposits = BigDecimal.ZERO;
-        BigDecimal totalWithdrawals = BigDecimal.ZERO;
-
-        try (PreparedStatement ps = conn.prepareStatement(sql.toString())) {
-
-            for (int i = 0; i < params.size(); i++) {
-                ps.setObject(i + 1, params.get(i));
-            }
-
-            try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    TransactionType type = TransactionType.valueOf(rs.getString("TYPE"));
-                    BigDecimal total = rs.getBigDecimal("TOTAL");
+    @Override
+    public boolean transfer(String fromIdentificationNo,
+                            String password,
+                            String toIdentificationNo,
+                            BigDecimal amount) {
+        return transfer(fromIdentificationNo, password, toIdentificationNo, amount, null);
+    }
 
-                    if (type == TransactionType.DEPOSIT || type == TransactionType.TRANSFER_IN) {
-                        totalDeposits = totalDeposits.add(total);
-                    } else if (type == TransactionType.WITHDRAWAL || type == TransactionType.TRANSFER_OUT) {
-                        totalWithdrawals = totalWithdrawals.add(total);
-                    }
-                }
-            }
+    @Override
+    public boolean transfer(String fromIdentificationNo,
+                            String password,
+                            String toIdentificationNo,
+                            BigDecimal amount,
+                            String idempotencyKey) {
+        // Reject zero or negative amounts
+        if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
+            return false;
         }
-
-        return new TransactionSummary(
-                totalDeposits,
-                totalWithdrawals,
-                totalDeposits.subtract(totalWithdrawals)
-        );
-
-    } catch (Exception e) {
-        throw new RuntimeException("Failed to get transaction summary", e);
+        if (!customerService.verifyLogin(fromIdentificationNo, password)) {
+            return false;
+        }
+        return transferOnce(idempotencyKey, customerId(fromIdentificationNo), fromIdentificationNo, toIdentificationNo, amount);
     }
-}
 
+    @Override
+    public boolean transfer(SessionToken session,
+                            String toIdentificationNo,
+                            BigDecimal amount) {
+        return transfer(session, toIdentificationNo, amount, null);
+    }
 
-   @Override
-public boolean transfer(String fromIdentificationNo,
-                        String password,
-                        String toIdentificationNo,
-                        BigDecimal amount) {
-        // Reject zero or negative amounts
+    @Override
+    public boolean transfer(SessionToken session,
+                            String toIdentificationNo,
+                            BigDecimal amount,
+                            String idempotencyKey) {
         if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
             return false;
         }
-        if (!customerService.verifyLogin(fromIdentificationNo, password)) {
+        Customer customer = session == null ? null : customerService.validateSession(session);
+        if (customer == null) {
+            return false;
+        }
+        String label = customer.getIdentificationNo() != null ? customer.getIdentificationNo() : customer.getId();
+        return transferOnce(idempotencyKey, customer.getId(), label, toIdentificationNo, amount);
+    }
+
+    // With an idempotency key the transfer and its outcome commit in one unit of work; a retry
+    // with the same key reports the first transfer instead of moving the money again. The key
+    // belongs to the customer ID, as for deposits, whichever identifier the caller used
+    private boolean transferOnce(String idempotencyKey, String sender, String senderLabel,
+                                 String toIdentificationNo, BigDecimal amount) {
+        if (sender == null) {
             return false;
         }
+        String receiver = customerId(toIdentificationNo);
+        boolean transferred;
+        if (idempotencyKey == null) {
+            transferred = transferFunds(sender, senderLabel, receiver, toIdentificationNo, amount);
+        } else {
+            try {
+                String outcome = idempotencyStore.executeOnce("TRANSFER", idempotencyKey, sender,
+                        () -> transferFunds(sender, senderLabel, receiver, toIdentificationNo, amount) ? "OK" : null);
+                transferred = outcome != null;
+            } catch (IllegalArgumentException | IllegalStateException e) {
+                System.out.println("Transfer failed: " + e.getMessage());
+                return false;
+            }
+        }
+        if (transferred) {
+            // Committed by now; the deposit service drops its cached balances, so its next
+            // read of either account sees the transfer
+            depositAccounts.balancesChanged(List.of(sender, receiver));
+        }
+        return transferred;
+    }
 
+    private boolean transferFunds(String sender, String senderLabel, String receiver, String toIdentificationNo,
+                                  BigDecimal amount) {
         try (Connection conn = dataSource.getConnection()) {
             conn.setAutoCommit(false);
 
-            String fromAccount = null;
-            String toAccount = null;
-            BigDecimal fromBalance = BigDecimal.ZERO;
+            // 1-2. Resolve sender and receiver accounts, in one query if neither is cached
+            AccountRef[] parties = accounts.resolve(conn, sender, receiver);
+            AccountRef from = parties[0];
+            AccountRef to = parties[1];
 
-            // 1. Resolve sender account + balance
-            try (PreparedStatement ps = conn.prepareStatement(
-                    "SELECT ACCOUNT_ID, BALANCE FROM DEPOSIT_ACCOUNT WHERE CUSTOMER_ID = ?")) {
+            if (from == null || to == null) {
+                conn.rollback();
+                return false;
+            }
 
-                ps.setString(1, fromIdentificationNo);
+            // 3. A hot receiver is credited on a slot, before any account row is locked.
+            //    Inside a unit of work (keyed transfers) rollback() only marks the whole unit,
+            //    so starting over below goes back to a savepoint instead
+            Savepoint beforeBalances = conn.setSavepoint();
+            boolean credited = to.hotSlots > 0 && hotAccounts.credit(conn, to.id, to.hotSlots, amount);
+
+            // 4. Debit sender only if the available balance (less held funds) still covers the
+            //    amount; the check and the update are one statement, so a concurrent withdrawal
+            //    cannot overdraw it.
+            if (!debit(conn, from.id, amount)) {
+                if (from.hotSlots == 0) {
+                    conn.rollback();
+                    return false;
+                }
+                // A hot sender's slots are folded into its row if the row alone falls short.
+                // Start over holding no slot, and have both rows locked in ACCOUNT_ID order
+                // after the drain, so two hot accounts paying each other cannot deadlock; the
+                // receiver's row is locked by then, so it is credited there
+                conn.rollback(beforeBalances);
+                credited = false;
+                hotAccounts.drain(conn, from.id, to.id);
+                if (!debit(conn, from.id, amount)) {
+                    conn.rollback();
+                    return false;
+                }
+            }
 
-                try (ResultSet rs = ps.executeQuery()) {
-                    if (rs.next()) {
-                        fromAccount = rs.getString("ACCOUNT_ID");
-                        fromBalance = rs.getBigDecimal("BALANCE");
+            // 5. Update receiver balance
+            if (!credited) {
+                try (PreparedStatement ps = conn.prepareStatement(CREDIT_SQL)) {
+
+                    ps.setBigDecimal(1, amount);
+                    ps.setString(2, to.id);
+                    if (ps.executeUpdate() == 0) {
+                        // Receiver is closed or frozen
+                        conn.rollback();
+                        return false;
                     }
                 }
             }
 
-            // 2. Resolve receiver account
-            try (PreparedStatement ps = conn.prepareStatement(
-                    "SELECT ACCOUNT_ID FROM DEPOSIT_ACCOUNT WHERE CUSTOMER_ID = ?")) {
+            // 6. Record TRANSFER_OUT
+            insertTransaction(conn, from, TransactionType.TRANSFER_OUT, amount, "Transfer to " + toIdentificationNo);
+
+            // 7. Record TRANSFER_IN
+            insertTransaction(conn, to, TransactionType.TRANSFER_IN, amount, "Transfer from " + senderLabel);
 
-                ps.setString(1, toIdentificationNo);
+            conn.commit();
+            return true;
 
-                try (ResultSet rs = ps.executeQuery()) {
-                    if (rs.next()) {
-                        toAccount = rs.getString("ACCOUNT_ID");
+        } catch (Exception e) {
+            throw new RuntimeException("Transfer failed", e);
+        }
+    }
+
+    // Sessions are validated in memory: no password hash and no customer lookup
+    private String sessionOwner(SessionToken session) {
+        Customer customer = session == null ? null : customerService.validateSession(session);
+        return customer == null ? null : customer.getId();
+    }
+
+    // Callers name a customer by ID or identification number; accounts are keyed by the ID
+    private String customerId(String idOrIdentificationNo) {
+        if (idOrIdentificationNo == null || idOrIdentificationNo.trim().isEmpty()) {
+            return null;
+        }
+        Customer customer = customerService.getCustomer(idOrIdentificationNo);
+        return customer == null ? null : customer.getId();
+    }
+
+    private String resolveAccount(Connection conn, String owner) throws SQLException {
+        AccountRef account = accounts.resolve(conn, owner);
+        return account == null ? null : account.id;
+    }
+
+    private boolean debit(Connection conn, String accountId, BigDecimal amount) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(DEBIT_SQL)) {
+            ps.setBigDecimal(1, amount);
+            ps.setString(2, accountId);
+            return ps.executeUpdate() > 0;
+        }
+    }
+
+    // Callers must have auto-commit off, so the entry and its rollup commit together
+    private void insertTransaction(Connection conn, AccountRef account, TransactionType type,
+                                   BigDecimal amount, String note) throws SQLException {
+        LocalDateTime now = LocalDateTime.now();
+        try (PreparedStatement ps = conn.prepareStatement(
+                "INSERT INTO TRANSACTION (TXN_ID, ACCOUNT_ID, TYPE, AMOUNT, NOTE, CREATED_AT) " +
+                "VALUES (?, ?, ?, ?, ?, ?)")) {
+
+            ps.setString(1, UUID.randomUUID().toString());
+            ps.setString(2, account.id);
+            ps.setString(3, type.name());
+            ps.setBigDecimal(4, amount);
+            ps.setString(5, note);
+            ps.setTimestamp(6, java.sql.Timestamp.valueOf(now));
+
+            ps.executeUpdate();
+        }
+        try (PreparedStatement ps = conn.prepareStatement(ROLLUP_SQL)) {
+            ps.setString(1, account.id);
+            ps.setObject(2, now.toLocalDate());
+            ps.setString(3, type.name());
+            ps.setInt(4, account.hotSlots > 0 ? ThreadLocalRandom.current().nextInt(account.hotSlots) : 0);
+            ps.setBigDecimal(5, amount);
+            // Two first postings of the day to one rollup row can both miss it and insert; the
+            // loser's statement fails alone, and run again it finds the row and adds to it
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    ps.executeUpdate();
+                    return;
+                } catch (SQLException e) {
+                    if (!isUniqueViolation(e) || attempt == ROLLUP_ATTEMPTS) {
+                        throw e;
                     }
                 }
             }
+        }
+    }
 
-            if (fromAccount == null || toAccount == null) {
-                conn.rollback();
-                return false;
-            }
+    private static boolean isUniqueViolation(SQLException e) {
+        return "23505".equals(e.getSQLState());
+    }
 
-            // 3. Balance check
-            if (fromBalance.compareTo(amount) < 0) {
-                conn.rollback();
-                return false;
-            }
+    private Transaction mapTransaction(ResultSet rs) throws SQLException {
+        return new Transaction(
+                rs.getString("TXN_ID"),
+                rs.getString("ACCOUNT_ID"),
+                TransactionType.valueOf(rs.getString("TYPE")),
+                rs.getBigDecimal("AMOUNT"),
+                rs.getString("NOTE"),
+                rs.getTimestamp("CREATED_AT").toLocalDateTime()
+        );
+    }
 
-            // 4. Update sender balance
-            try (PreparedStatement ps = conn.prepareStatement(
-                    "UPDATE DEPOSIT_ACCOUNT SET BALANCE = BALANCE - ? WHERE ACCOUNT_ID = ?")) {
+    // Deposits and incoming transfers are money in; withdrawals and outgoing transfers money out
+    private static final class Totals {
+        private BigDecimal deposits = BigDecimal.ZERO;
+        private BigDecimal withdrawals = BigDecimal.ZERO;
 
-                ps.setBigDecimal(1, amount);
-                ps.setString(2, fromAccount);
-                ps.executeUpdate();
+        private void add(TransactionType type, BigDecimal amount) {
+            if (type == TransactionType.DEPOSIT || type == TransactionType.TRANSFER_IN) {
+                deposits = deposits.add(amount);
+            } else if (type == TransactionType.WITHDRAWAL || type == TransactionType.TRANSFER_OUT) {
+                withdrawals = withdrawals.add(amount);
             }
+        }
 
-            // 5. Update receiver balance
-            try (PreparedStatement ps = conn.prepareStatement(
-                    "UPDATE DEPOSIT_ACCOUNT SET BALANCE = BALANCE + ? WHERE ACCOUNT_ID = ?")) {
+        private TransactionSummary toSummary() {
+            return new TransactionSummary(deposits, withdrawals, deposits.subtract(withdrawals));
+        }
+    }
 
-                ps.setBigDecimal(1, amount);
-                ps.setString(2, toAccount);
-                ps.executeUpdate();
-            }
+    // Refilled from the current row; columns are read by index, looked up once
+    private static final class RowView implements TransactionView {
+        private final ResultSet rs;
+        private final int txnIdColumn;
+        private final int accountIdColumn;
+        private final int typeColumn;
+        private final int amountColumn;
+        private final int noteColumn;
+        private final int createdAtColumn;
+        private String transactionId;
+        private String accountId;
+        private TransactionType type;
+        private BigDecimal amount;
+        private String note;
+        private LocalDateTime createdAt;
+
+        private RowView(ResultSet rs) throws SQLException {
+            this.rs = rs;
+            this.txnIdColumn = rs.findColumn("TXN_ID");
+            this.accountIdColumn = rs.findColumn("ACCOUNT_ID");
+            this.typeColumn = rs.findColumn("TYPE");
+            this.amountColumn = rs.findColumn("AMOUNT");
+            this.noteColumn = rs.findColumn("NOTE");
+            this.createdAtColumn = rs.findColumn("CREATED_AT");
+        }
 
-            // 6. Record TRANSFER_OUT
-            try (PreparedStatement ps = conn.prepareStatement(
-                    "INSERT INTO TRANSACTION (TXN_ID, ACCOUNT_ID, TYPE, AMOUNT, NOTE, CREATED_AT) " +
-                    "VALUES (?, ?, ?, ?, ?, ?)")) {
-
-                ps.setString(1, java.util.UUID.randomUUID().toString());
-                ps.setString(2, fromAccount);
-                ps.setString(3, TransactionType.TRANSFER_OUT.name());
-                ps.setBigDecimal(4, amount);
-                ps.setString(5, "Transfer to " + toIdentificationNo);
-                ps.setTimestamp(6, java.sql.Timestamp.valueOf(LocalDateTime.now()));
-                ps.executeUpdate();
-            }
+        private void advance() throws SQLException {
+            transactionId = rs.getString(txnIdColumn);
+            accountId = rs.getString(accountIdColumn);
+            type = TransactionType.valueOf(rs.getString(typeColumn));
+            amount = rs.getBigDecimal(amountColumn);
+            note = rs.getString(noteColumn);
+            createdAt = rs.getObject(createdAtColumn, LocalDateTime.class);
+        }
 
-            // 7. Record TRANSFER_IN
-            try (PreparedStatement ps = conn.prepareStatement(
-                    "INSERT INTO TRANSACTION (TXN_ID, ACCOUNT_ID, TYPE, AMOUNT, NOTE, CREATED_AT) " +
-                    "VALUES (?, ?, ?, ?, ?, ?)")) {
-
-                ps.setString(1, java.util.UUID.randomUUID().toString());
-                ps.setString(2, toAccount);
-                ps.setString(3, TransactionType.TRANSFER_IN.name());
-                ps.setBigDecimal(4, amount);
-                ps.setString(5, "Transfer from " + fromIdentificationNo);
-                ps.setTimestamp(6, java.sql.Timestamp.valueOf(LocalDateTime.now()));
-                ps.executeUpdate();
-            }
+        @Override public String getTransactionId() { return transactionId; }
+        @Override public String getAccountId() { return accountId; }
+        @Override public TransactionType getType() { return type; }
+        @Override public BigDecimal getAmount() { return amount; }
+        @Override public String getNote() { return note; }
+        @Override public LocalDateTime getCreatedAt() { return createdAt; }
+    }
 
-            conn.commit();
-            return true;
+    // Opaque to callers: Base64 of "created-at|txn-id"
+    private static final class Cursor {
+        private final LocalDateTime createdAt;
+        private final String txnId;
 
-        } catch (Exception e) {
-            throw new RuntimeException("Transfer failed", e);
+        private Cursor(LocalDateTime createdAt, String txnId) {
+            this.createdAt = createdAt;
+            this.txnId = txnId;
         }
-}
 
+        private String encode() {
+            return Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString((createdAt + "|" + txnId).getBytes(StandardCharsets.UTF_8));
+        }
+
+        private static Cursor decode(String cursor) {
+            try {
+                String[] fields = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", 2);
+                if (fields.length == 2) {
+                    return new Cursor(LocalDateTime.parse(fields[0]), fields[1]);
+                }
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                // reported below
+            }
+            throw new IllegalArgumentException("Invalid transaction history cursor");
+        }
+    }
+
+    // Closures and hot-slot changes in the deposit bundle drop the cached account
+    @Override
+    public void accountChanged(DepositAccountChangeEvent event) {
+        accounts.evictAccount(event.getAccountId());
+    }
+
+    @Override
+    public void customerChanged(CustomerChangeEvent event) {
+        accounts.evictCustomer(event.getCustomerId());
+    }
+
+    @Override
+    public int getCacheSize() {
+        return accounts.size();
+    }
+
+    @Override
+    public int getCacheCapacity() {
+        return accounts.maxEntries();
+    }
+
+    @Override
+    public long getCacheHits() {
+        return accounts.hits();
+    }
+
+    @Override
+    public long getCacheMisses() {
+        return accounts.misses();
+    }
+
+    @Override
+    public double getCacheHitRatio() {
+        long hits = accounts.hits();
+        long lookups = hits + accounts.misses();
+        return lookups == 0 ? 0.0 : (double) hits / lookups;
+    }
+
+    @Override
+    public long getCacheEvictions() {
+        return accounts.evictions();
+    }
 }
@@ -1,8 +1,22 @@
 package com.bank.transaction;
 
+import com.bank.api.Customer;
+import com.bank.api.CustomerChangeEvent;
+import com.bank.api.DepositAccountChangeEvent;
 import com.bank.api.ICustomerService;
+import com.bank.api.IDepositAccountLookup;
+import com.bank.api.IIdempotencyStore;
+import com.bank.api.IUnitOfWork;
+import com.bank.api.SessionToken;
+import com.bank.api.model.SummaryGranularity;
+import com.bank.api.model.TransactionPage;
 import com.bank.api.model.TransactionSummary;
+import com.bank.api.model.TransactionSummaryBucket;
 import com.bank.api.model.TransactionType;
+import com.bank.deposit.DepositAccountServiceImpl;
+import com.bank.persistence.H2DataSourceProvider;
+import com.bank.persistence.TestDataSources;
+import com.bank.persistence.TestSchema;
 
 import org.h2.jdbcx.JdbcDataSource;
 import org.junit.jupiter.api.BeforeEach;
@@ -11,7 +25,15 @@ import org.junit.jupiter.api.Test;
 import java.math.BigDecimal;
 import java.sql.Connection;
 import java.sql.Statement;
+import java.time.Instant;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -21,6 +43,7 @@ public class TransactionServiceTest {
     private TransactionServiceImpl service;
     private JdbcDataSource dataSource;
     private ICustomerService customerService;
+    private IDepositAccountLookup depositAccounts;
 
     @BeforeEach
     void setup() throws Exception {
@@ -28,51 +51,63 @@ public class TransactionServiceTest {
         dataSource = new JdbcDataSource();
         dataSource.setURL("jdbc:h2:mem:testdb;DB_CLOSE_DELAY=-1");
 
-        // Clean TRANSACTION table for test isolation
-        try (Connection c = dataSource.getConnection(); Statement s = c.createStatement()) {
-            s.execute("DROP TABLE IF EXISTS TRANSACTION");
-            s.execute("""
-                CREATE TABLE TRANSACTION (
-                    TXN_ID VARCHAR(64) PRIMARY KEY,
-                    ACCOUNT_ID VARCHAR(64) NOT NULL,
-                    TYPE VARCHAR(32) NOT NULL,
-                    AMOUNT DECIMAL(18,2) NOT NULL,
-                    NOTE VARCHAR(255),
-                    CREATED_AT TIMESTAMP NOT NULL
-                )
-            """);
-        }
-
         try (Connection c = dataSource.getConnection();
              Statement s = c.createStatement()) {
 
-            s.execute("DROP TABLE IF EXISTS DEPOSIT_ACCOUNT");
+            TestSchema.recreate(c);
 
             s.execute("""
-                CREATE TABLE DEPOSIT_ACCOUNT (
-                    ACCOUNT_ID VARCHAR(64),
-                    CUSTOMER_ID VARCHAR(64),
-                    BALANCE DECIMAL(18,2)
-                )
-            """);
-
-            s.execute("""
-                INSERT INTO DEPOSIT_ACCOUNT VALUES
-                ('A1','CUST1',1000.00),
-                ('A2','CUST2',500.00)
+                INSERT INTO DEPOSIT_ACCOUNT (ACCOUNT_ID, CUSTOMER_ID, BALANCE, CREATED_AT) VALUES
+                ('A1','CUST1',1000.00, CURRENT_TIMESTAMP),
+                ('A2','CUST2',500.00, CURRENT_TIMESTAMP)
             """);
         }
 
         customerService = mock(ICustomerService.class);
         when(customerService.verifyLogin("CUST1","pw")).thenReturn(true);
         when(customerService.verifyLogin("CUST2","pw")).thenReturn(true);
+        stubCustomer("CUST1", "IC-CUST1");
+        stubCustomer("CUST2", "IC-CUST2");
 
         service = new TransactionServiceImpl();
 
         inject(service, "dataSource", dataSource);
         inject(service, "customerService", customerService);
+        inject(service, "idempotencyStore", new InMemoryIdempotencyStore());
+        // The deposit bundle's slot operations run on the caller's connection and need no activation
+        depositAccounts = mock(IDepositAccountLookup.class);
+        inject(service, "hotAccounts", new DepositAccountServiceImpl());
+        inject(service, "depositAccounts", depositAccounts);
+    }
+
+    // getCustomer accepts either key, as the customer bundle's does
+    private void stubCustomer(String id, String identificationNo) {
+        Customer customer = new Customer(id, id, id.toLowerCase() + "@example.com");
+        customer.setIdentificationNo(identificationNo);
+        when(customerService.getCustomer(id)).thenReturn(customer);
+        when(customerService.getCustomer(identificationNo)).thenReturn(customer);
+    }
 
-        service.activate();
+    // Stand-in for the persistence bundle's store: remembers successful outcomes per scope and key
+    private static final class InMemoryIdempotencyStore implements IIdempotencyStore {
+        private final Map<String, String> outcomes = new HashMap<>();
+
+        @Override
+        public String executeOnce(String scope, String key, String owner, IUnitOfWork.Work<String> work) {
+            String id = scope + "/" + key;
+            if (outcomes.containsKey(id)) {
+                return outcomes.get(id);
+            }
+            try {
+                String outcome = work.run();
+                if (outcome != null) {
+                    outcomes.put(id, outcome);
+                }
+                return outcome;
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }
     }
 
     private void inject(Object target, String fieldName, Object value) throws Exception {
@@ -144,6 +179,342 @@ public class TransactionServiceTest {
         assertTrue(receiver.getTotalDeposits().compareTo(BigDecimal.ZERO) > 0);
     }
 
+    @Test
+    void transfer_tellsTheDepositServiceWhichBalancesChanged() {
+        assertTrue(service.transfer("CUST1", "pw", "CUST2", BigDecimal.valueOf(300)));
+        verify(depositAccounts).balancesChanged(List.of("CUST1", "CUST2"));
+
+        // Nothing committed, nothing to drop
+        assertFalse(service.transfer("CUST2", "pw", "CUST1", BigDecimal.valueOf(10_000)));
+        verifyNoMoreInteractions(depositAccounts);
+    }
+
+    @Test
+    void transfer_toHotAccountCreditsASlot() throws Exception {
+        makeHot("A2", 4);
+
+        assertTrue(service.transfer("CUST1", "pw", "CUST2", BigDecimal.valueOf(300)));
+        assertTrue(service.transfer("CUST1", "pw", "CUST2", BigDecimal.valueOf(200)));
+
+        assertEquals(new BigDecimal("500.00"), queryDecimal("SELECT BALANCE FROM DEPOSIT_ACCOUNT WHERE ACCOUNT_ID = 'A2'"));
+        assertEquals(new BigDecimal("500.00"), queryDecimal("SELECT SUM(AMOUNT) FROM ACCOUNT_BALANCE_SLOT WHERE ACCOUNT_ID = 'A2'"));
+        assertEquals(new BigDecimal("500.00"), queryDecimal("SELECT BALANCE FROM DEPOSIT_ACCOUNT WHERE ACCOUNT_ID = 'A1'"));
+    }
+
+    @Test
+    void transfer_fromHotAccountDrawsOnItsSlots() throws Exception {
+        makeHot("A2", 2);
+        try (Connection c = dataSource.getConnection();
+             Statement s = c.createStatement()) {
+            s.execute("UPDATE ACCOUNT_BALANCE_SLOT SET AMOUNT = 100.00 WHERE ACCOUNT_ID = 'A2'");
+        }
+
+        assertTrue(service.transfer("CUST2", "pw", "CUST1", BigDecimal.valueOf(650)));
+        assertFalse(service.transfer("CUST2", "pw", "CUST1", BigDecimal.valueOf(100)));
+
+        assertEquals(new BigDecimal("50.00"), queryDecimal("SELECT BALANCE FROM DEPOSIT_ACCOUNT WHERE ACCOUNT_ID = 'A2'"));
+        assertEquals(new BigDecimal("0.00"), queryDecimal("SELECT SUM(AMOUNT) FROM ACCOUNT_BALANCE_SLOT WHERE ACCOUNT_ID = 'A2'"));
+        assertEquals(new BigDecimal("1650.00"), queryDecimal("SELECT BALANCE FROM DEPOSIT_ACCOUNT WHERE ACCOUNT_ID = 'A1'"));
+    }
+
+    @Test
+    void transfer_betweenTwoHotAccountsBothWaysDoesNotDeadlock() throws Exception {
+        makeHot("A1", 4);
+        makeHot("A2", 4);
+        // Rows nearly empty, so most debits have to drain the sender's slots first
+        try (Connection c = dataSource.getConnection();
+             Statement s = c.createStatement()) {
+            s.execute("UPDATE DEPOSIT_ACCOUNT SET BALANCE = 5.00");
+            s.execute("UPDATE ACCOUNT_BALANCE_SLOT SET AMOUNT = 100.00");
+        }
+
+        int rounds = 200;
+        java.util.concurrent.ExecutorService pool = java.util.concurrent.Executors.newFixedThreadPool(4);
+        List<java.util.concurrent.Future<?>> results = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            String from = t % 2 == 0 ? "CUST1" : "CUST2";
+            String to = t % 2 == 0 ? "CUST2" : "CUST1";
+            results.add(pool.submit(() -> {
+                for (int i = 0; i < rounds; i++) {
+                    service.transfer(from, "pw", to, BigDecimal.ONE);
+                }
+                return null;
+            }));
+        }
+        for (java.util.concurrent.Future<?> result : results) {
+            result.get(60, java.util.concurrent.TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        // Every transfer committed whole: nothing was created or lost
+        assertEquals(new BigDecimal("810.00"), queryDecimal(
+                "SELECT SUM(BALANCE) + (SELECT SUM(AMOUNT) FROM ACCOUNT_BALANCE_SLOT) FROM DEPOSIT_ACCOUNT"));
+    }
+
+    @Test
+    void recordTransaction_concurrentFirstPostingsOfTheDayShareOneRollupRow() throws Exception {
+        int threads = 8;
+        java.util.concurrent.ExecutorService pool = java.util.concurrent.Executors.newFixedThreadPool(threads);
+        try {
+            for (int round = 0; round < 20; round++) {
+                // Every round starts with no rollup row, so all postings race to create it
+                try (Connection c = dataSource.getConnection();
+                     Statement s = c.createStatement()) {
+                    s.execute("DELETE FROM TRANSACTION_DAILY_ROLLUP");
+                }
+                java.util.concurrent.CountDownLatch start = new java.util.concurrent.CountDownLatch(1);
+                List<java.util.concurrent.Future<Boolean>> results = new ArrayList<>();
+                for (int t = 0; t < threads; t++) {
+                    results.add(pool.submit(() -> {
+                        start.await();
+                        return service.recordTransaction("CUST1", "pw", TransactionType.DEPOSIT, BigDecimal.ONE, null);
+                    }));
+                }
+                start.countDown();
+                for (java.util.concurrent.Future<Boolean> result : results) {
+                    assertTrue(result.get(30, java.util.concurrent.TimeUnit.SECONDS));
+                }
+                assertEquals(new BigDecimal("8.00"), queryDecimal("SELECT SUM(TOTAL) FROM TRANSACTION_DAILY_ROLLUP"));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void transfer_cannotSpendHeldFunds() throws Exception {
+        // What the deposit bundle's placeHold leaves on the account row
+        try (Connection c = dataSource.getConnection();
+             Statement s = c.createStatement()) {
+            s.execute("UPDATE DEPOSIT_ACCOUNT SET HELD_BALANCE = 450.00 WHERE ACCOUNT_ID = 'A2'");
+        }
+
+        assertFalse(service.transfer("CUST2", "pw", "CUST1", BigDecimal.valueOf(60)));
+        assertTrue(service.transfer("CUST2", "pw", "CUST1", BigDecimal.valueOf(50)));
+        assertEquals(new BigDecimal("450.00"), queryDecimal("SELECT BALANCE FROM DEPOSIT_ACCOUNT WHERE ACCOUNT_ID = 'A2'"));
+    }
+
+    @Test
+    void transfer_refusesAnAccountThatIsNotActive() throws Exception {
+        // A2 is hot, so credits to it go to a slot, which must not slip past the status either
+        makeHot("A2", 2);
+        try (Connection c = dataSource.getConnection();
+             Statement s = c.createStatement()) {
+            s.execute("UPDATE DEPOSIT_ACCOUNT SET STATUS = 'Closed' WHERE ACCOUNT_ID = 'A2'");
+        }
+
+        assertFalse(service.transfer("CUST1", "pw", "CUST2", BigDecimal.valueOf(100)));
+        assertFalse(service.transfer("CUST2", "pw", "CUST1", BigDecimal.valueOf(100)));
+
+        assertEquals(new BigDecimal("1000.00"), queryDecimal("SELECT BALANCE FROM DEPOSIT_ACCOUNT WHERE ACCOUNT_ID = 'A1'"));
+        assertEquals(new BigDecimal("500.00"), queryDecimal("SELECT BALANCE FROM DEPOSIT_ACCOUNT WHERE ACCOUNT_ID = 'A2'"));
+        assertEquals(new BigDecimal("0.00"), queryDecimal("SELECT SUM(AMOUNT) FROM ACCOUNT_BALANCE_SLOT WHERE ACCOUNT_ID = 'A2'"));
+        assertEquals(0, service.getTransactionHistory("CUST1", "pw").size());
+    }
+
+    @Test
+    void accountResolution_isCachedUntilTheAccountChanges() throws Exception {
+        // Both parties are unknown, so the first transfer loads them in one query
+        assertTrue(service.transfer("CUST1", "pw", "CUST2", BigDecimal.valueOf(10)));
+        assertEquals(2, service.getCacheMisses());
+        assertEquals(2, service.getCacheSize());
+
+        service.getTransactionHistory("CUST1", "pw");
+        assertTrue(service.transfer("CUST2", "pw", "CUST1", BigDecimal.valueOf(10)));
+        assertEquals(3, service.getCacheHits());
+        assertEquals(2, service.getCacheMisses());
+
+        // Made hot after it was cached: the change event makes the next transfer see the slots
+        makeHot("A2", 2);
+        service.accountChanged(new DepositAccountChangeEvent(DepositAccountChangeEvent.Type.HOT_SLOTS_CHANGED, "A2", null));
+        assertEquals(1, service.getCacheSize());
+        assertTrue(service.transfer("CUST1", "pw", "CUST2", BigDecimal.valueOf(10)));
+        assertEquals(new BigDecimal("10.00"), queryDecimal("SELECT SUM(AMOUNT) FROM ACCOUNT_BALANCE_SLOT WHERE ACCOUNT_ID = 'A2'"));
+        assertEquals(4, service.getCacheHits());
+        assertEquals(3, service.getCacheMisses());
+        assertEquals(4.0 / 7, service.getCacheHitRatio(), 1e-9);
+    }
+
+    @Test
+    void accountResolution_dropsACustomerWhenTheCustomerChanges() throws Exception {
+        assertTrue(service.transfer("CUST1", "pw", "CUST2", BigDecimal.valueOf(10)));
+        assertEquals(2, service.getCacheSize());
+
+        // Made hot without a deposit event reaching this bundle; the customer event still does
+        makeHot("A2", 2);
+        Customer changed = new Customer("CUST2", "CUST2", "cust2@example.com");
+        service.customerChanged(new CustomerChangeEvent(CustomerChangeEvent.Type.UPDATED, changed, null));
+        assertEquals(1, service.getCacheSize());
+
+        assertTrue(service.transfer("CUST1", "pw", "CUST2", BigDecimal.valueOf(10)));
+        assertEquals(new BigDecimal("10.00"), queryDecimal("SELECT SUM(AMOUNT) FROM ACCOUNT_BALANCE_SLOT WHERE ACCOUNT_ID = 'A2'"));
+    }
+
+    @Test
+    void historyPage_walksTheWholeHistoryWithoutGapsOrRepeats() throws Exception {
+        // 7 entries, several sharing a timestamp, so the cursor has to break ties on TXN_ID
+        try (Connection c = dataSource.getConnection();
+             Statement s = c.createStatement()) {
+            s.execute("INSERT INTO TRANSACTION SELECT 'T' || X, 'A1', 'DEPOSIT', X, NULL, "
+                    + "DATEADD(MINUTE, X / 3, TIMESTAMP '2020-01-01 09:00:00') FROM SYSTEM_RANGE(1, 7)");
+        }
+
+        List<String> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            TransactionPage page = service.getTransactionHistoryPage("CUST1", "pw", 3, cursor);
+            page.getTransactions().forEach(t -> seen.add(t.getTransactionId()));
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(3, pages);
+        assertEquals(List.of("T7", "T6", "T5", "T4", "T3", "T2", "T1"), seen);
+        assertTrue(service.getTransactionHistoryPage("CUST1", "wrongpw", 3, null).getTransactions().isEmpty());
+        assertThrows(IllegalArgumentException.class,
+                () -> service.getTransactionHistoryPage("CUST1", "pw", 3, "not-a-cursor"));
+    }
+
+    @Test
+    void recordAndTransfer_keepDailyRollupsInStep() throws Exception {
+        service.recordTransaction("CUST1", "pw", TransactionType.DEPOSIT, BigDecimal.valueOf(200), null);
+        service.recordTransaction("CUST1", "pw", TransactionType.DEPOSIT, BigDecimal.valueOf(50), null);
+        assertTrue(service.transfer("CUST1", "pw", "CUST2", BigDecimal.valueOf(30)));
+
+        assertEquals(new BigDecimal("250.00"), queryDecimal(
+                "SELECT SUM(TOTAL) FROM TRANSACTION_DAILY_ROLLUP WHERE ACCOUNT_ID = 'A1' AND TYPE = 'DEPOSIT' AND TXN_DATE = CURRENT_DATE"));
+        assertEquals(new BigDecimal("30.00"), queryDecimal(
+                "SELECT SUM(TOTAL) FROM TRANSACTION_DAILY_ROLLUP WHERE ACCOUNT_ID = 'A2' AND TYPE = 'TRANSFER_IN'"));
+
+        TransactionSummary summary = service.getTransactionSummary("CUST1", "pw",
+                LocalDateTime.now().minusDays(3), LocalDateTime.now().plusMinutes(1));
+        assertEquals(new BigDecimal("250.00"), summary.getTotalDeposits());
+        assertEquals(new BigDecimal("30.00"), summary.getTotalWithdrawals());
+    }
+
+    @Test
+    void getTransactionSummary_takesWholeDaysFromRollupsAndEdgesFromRawRows() throws Exception {
+        try (Connection c = dataSource.getConnection();
+             Statement s = c.createStatement()) {
+            // Whole days: only in the rollup, so a raw scan would miss them
+            s.execute("INSERT INTO TRANSACTION_DAILY_ROLLUP VALUES "
+                    + "('A1', DATE '2020-01-02', 'DEPOSIT', 0, 100), ('A1', DATE '2020-01-03', 'DEPOSIT', 1, 10), "
+                    + "('A1', DATE '2020-01-03', 'WITHDRAWAL', 0, 7)");
+            // Edge days: read from the raw rows, so their rollups must not be counted
+            s.execute("INSERT INTO TRANSACTION_DAILY_ROLLUP VALUES "
+                    + "('A1', DATE '2020-01-01', 'DEPOSIT', 0, 999), ('A1', DATE '2020-01-04', 'DEPOSIT', 0, 999)");
+            s.execute("INSERT INTO TRANSACTION VALUES "
+                    + "('E1', 'A1', 'DEPOSIT', 1, NULL, TIMESTAMP '2020-01-01 08:00:00'), "
+                    + "('E2', 'A1', 'DEPOSIT', 2, NULL, TIMESTAMP '2020-01-01 18:00:00'), "
+                    + "('E3', 'A1', 'DEPOSIT', 4, NULL, TIMESTAMP '2020-01-04 09:00:00'), "
+                    + "('E4', 'A1', 'DEPOSIT', 8, NULL, TIMESTAMP '2020-01-04 18:00:00')");
+        }
+
+        TransactionSummary summary = service.getTransactionSummary("CUST1", "pw",
+                LocalDateTime.of(2020, 1, 1, 12, 0), LocalDateTime.of(2020, 1, 4, 12, 0));
+        assertEquals(new BigDecimal("116.00"), summary.getTotalDeposits());
+        assertEquals(new BigDecimal("7.00"), summary.getTotalWithdrawals());
+
+        // Within one day there is no whole day, so only raw rows count
+        summary = service.getTransactionSummary("CUST1", "pw",
+                LocalDateTime.of(2020, 1, 4, 0, 0), LocalDateTime.of(2020, 1, 4, 12, 0));
+        assertEquals(new BigDecimal("4.00"), summary.getTotalDeposits());
+    }
+
+    @Test
+    void summarySeries_bucketsRollupsByWeekAndMonth() throws Exception {
+        try (Connection c = dataSource.getConnection();
+             Statement s = c.createStatement()) {
+            s.execute("INSERT INTO TRANSACTION_DAILY_ROLLUP VALUES "
+                    + "('A1', DATE '2020-01-01', 'DEPOSIT', 0, 10), ('A1', DATE '2020-01-06', 'DEPOSIT', 0, 5), "
+                    + "('A1', DATE '2020-01-07', 'WITHDRAWAL', 0, 3), ('A1', DATE '2020-02-03', 'TRANSFER_IN', 1, 7)");
+        }
+
+        // 2020-01-01 is a Wednesday: the first week is clipped to the range
+        List<TransactionSummaryBucket> weeks = service.getTransactionSummarySeries("CUST1", "pw",
+                LocalDate.of(2020, 1, 1), LocalDate.of(2020, 1, 12), SummaryGranularity.WEEK, null);
+        assertEquals(2, weeks.size());
+        assertEquals(LocalDate.of(2020, 1, 1), weeks.get(0).getStart());
+        assertEquals(LocalDate.of(2020, 1, 5), weeks.get(0).getEnd());
+        assertEquals(new BigDecimal("10.00"), weeks.get(0).getSummary().getTotalDeposits());
+        assertEquals(LocalDate.of(2020, 1, 6), weeks.get(1).getStart());
+        assertEquals(new BigDecimal("2.00"), weeks.get(1).getSummary().getNetAmount());
+
+        // A month with nothing in range still gets a zero bucket
+        List<TransactionSummaryBucket> months = service.getTransactionSummarySeries("CUST1", "pw",
+                LocalDate.of(2020, 1, 15), LocalDate.of(2020, 2, 10), SummaryGranularity.MONTH, ZoneId.systemDefault());
+        assertEquals(2, months.size());
+        assertEquals(BigDecimal.ZERO, months.get(0).getSummary().getTotalDeposits());
+        assertEquals(LocalDate.of(2020, 1, 31), months.get(0).getEnd());
+        assertEquals(new BigDecimal("7.00"), months.get(1).getSummary().getTotalDeposits());
+        assertEquals(LocalDate.of(2020, 2, 10), months.get(1).getEnd());
+
+        assertTrue(service.getTransactionSummarySeries("CUST1", "wrongpw",
+                LocalDate.of(2020, 1, 1), LocalDate.of(2020, 1, 12), SummaryGranularity.DAY, null).isEmpty());
+    }
+
+    @Test
+    void summarySeries_placesRawRowsByTheCallersCalendar() throws Exception {
+        // Three hours ahead of the server, so 22:00 on the server is already the next day
+        ZoneOffset server = ZoneId.systemDefault().getRules().getOffset(LocalDateTime.of(2020, 1, 1, 12, 0));
+        ZoneId caller = ZoneOffset.ofTotalSeconds(server.getTotalSeconds() + 3 * 3600);
+        try (Connection c = dataSource.getConnection();
+             Statement s = c.createStatement()) {
+            s.execute("INSERT INTO TRANSACTION VALUES "
+                    + "('R1', 'A1', 'DEPOSIT', 1, NULL, TIMESTAMP '2020-01-01 20:00:00'), "
+                    + "('R2', 'A1', 'DEPOSIT', 4, NULL, TIMESTAMP '2020-01-01 22:00:00'), "
+                    + "('R3', 'A1', 'DEPOSIT', 9, NULL, TIMESTAMP '2020-01-02 22:00:00')");
+        }
+
+        List<TransactionSummaryBucket> days = service.getTransactionSummarySeries("CUST1", "pw",
+                LocalDate.of(2020, 1, 1), LocalDate.of(2020, 1, 2), SummaryGranularity.DAY, caller);
+        assertEquals(2, days.size());
+        assertEquals(new BigDecimal("1.00"), days.get(0).getSummary().getTotalDeposits());
+        assertEquals(new BigDecimal("4.00"), days.get(1).getSummary().getTotalDeposits());
+    }
+
+    @Test
+    void streamTransactions_pushesFilteredRowsNewestFirst() throws Exception {
+        try (Connection c = dataSource.getConnection();
+             Statement s = c.createStatement()) {
+            s.execute("INSERT INTO TRANSACTION SELECT 'T' || X, 'A1', CASEWHEN(MOD(X, 2) = 0, 'WITHDRAWAL', 'DEPOSIT'), X, NULL, "
+                    + "DATEADD(MINUTE, X, TIMESTAMP '2020-01-01 09:00:00') FROM SYSTEM_RANGE(1, 7)");
+        }
+
+        List<String> seen = new ArrayList<>();
+        assertTrue(service.streamTransactions("CUST1", "pw", TransactionType.DEPOSIT, null, null,
+                row -> seen.add(row.getTransactionId())));
+        assertEquals(List.of("T7", "T5", "T3", "T1"), seen);
+
+        List<com.bank.api.model.Transaction> kept = new ArrayList<>();
+        assertTrue(service.streamTransactions("CUST1", "pw", null,
+                LocalDateTime.of(2020, 1, 1, 9, 2), LocalDateTime.of(2020, 1, 1, 9, 3),
+                row -> kept.add(row.toTransaction())));
+        assertEquals(2, kept.size());
+        assertEquals("T3", kept.get(0).getTransactionId());
+        assertEquals(new BigDecimal("2.00"), kept.get(1).getAmount());
+        assertFalse(service.streamTransactions("CUST1", "wrongpw", null, null, null, row -> fail()));
+    }
+
+    // What the deposit bundle's setHotAccountSlots leaves behind
+    private void makeHot(String accountId, int slots) throws Exception {
+        try (Connection c = dataSource.getConnection();
+             Statement s = c.createStatement()) {
+            s.execute("UPDATE DEPOSIT_ACCOUNT SET HOT_SLOTS = " + slots + " WHERE ACCOUNT_ID = '" + accountId + "'");
+            s.execute("INSERT INTO ACCOUNT_BALANCE_SLOT (ACCOUNT_ID, SLOT) SELECT '" + accountId + "', X - 1 FROM SYSTEM_RANGE(1, " + slots + ")");
+        }
+    }
+
+    private BigDecimal queryDecimal(String sql) throws Exception {
+        try (Connection c = dataSource.getConnection();
+             Statement s = c.createStatement();
+             var rs = s.executeQuery(sql)) {
+            rs.next();
+            return rs.getBigDecimal(1);
+        }
+    }
+
     @Test
     void recordTransaction_failsIfAuthenticationFails() {
         when(customerService.verifyLogin("CUST1", "wrongpw")).thenReturn(false);
@@ -244,4 +615,142 @@ public class TransactionServiceTest {
         assertFalse(zero);
         assertFalse(negative);
     }
+
+    @Test
+    void sessionVariants_resolveAccountByCustomerId() {
+        SessionToken session = new SessionToken("session-1", Instant.MAX);
+        Customer customer = new Customer("CUST1", "Alice", "alice@example.com");
+        customer.setIdentificationNo("IC-ALICE");
+        when(customerService.validateSession(session)).thenReturn(customer);
+
+        assertTrue(service.recordTransaction(session, TransactionType.DEPOSIT, BigDecimal.valueOf(40), "Session deposit"));
+        assertTrue(service.transfer(session, "CUST2", BigDecimal.valueOf(10)));
+        assertEquals(2, service.getTransactionHistory(session).size());
+        assertEquals(0, new BigDecimal("30").compareTo(service.getTransactionSummary(session, null, null).getNetAmount()));
+
+        verify(customerService, never()).verifyLogin(anyString(), anyString());
+    }
+
+    @Test
+    void identificationNumbers_resolveThroughTheCustomerId() throws Exception {
+        // An account whose CUSTOMER_ID happens to equal someone's identification number is not theirs
+        try (Connection c = dataSource.getConnection();
+             Statement s = c.createStatement()) {
+            s.execute("INSERT INTO DEPOSIT_ACCOUNT (ACCOUNT_ID, CUSTOMER_ID, BALANCE, CREATED_AT) "
+                    + "VALUES ('A3','IC-CUST2',0.00, CURRENT_TIMESTAMP)");
+        }
+        when(customerService.verifyLogin("IC-CUST1", "pw")).thenReturn(true);
+
+        assertTrue(service.transfer("IC-CUST1", "pw", "IC-CUST2", BigDecimal.valueOf(25)));
+
+        assertEquals(new BigDecimal("975.00"), queryDecimal("SELECT BALANCE FROM DEPOSIT_ACCOUNT WHERE ACCOUNT_ID = 'A1'"));
+        assertEquals(new BigDecimal("525.00"), queryDecimal("SELECT BALANCE FROM DEPOSIT_ACCOUNT WHERE ACCOUNT_ID = 'A2'"));
+        assertEquals(new BigDecimal("0.00"), queryDecimal("SELECT BALANCE FROM DEPOSIT_ACCOUNT WHERE ACCOUNT_ID = 'A3'"));
+        assertEquals(1, service.getTransactionHistory("IC-CUST1", "pw").size());
+    }
+
+    @Test
+    void sessionVariants_rejectUnknownSession() {
+        SessionToken session = new SessionToken("unknown", Instant.MAX);
+
+        assertFalse(service.recordTransaction(session, TransactionType.DEPOSIT, BigDecimal.TEN, null));
+        assertFalse(service.transfer(session, "CUST2", BigDecimal.TEN));
+        assertTrue(service.getTransactionHistory(session).isEmpty());
+    }
+
+    @Test
+    void transfer_withIdempotencyKeyMovesMoneyOnce() {
+        assertTrue(service.transfer("CUST1", "pw", "CUST2", BigDecimal.valueOf(300), "retry-1"));
+        assertTrue(service.transfer("CUST1", "pw", "CUST2", BigDecimal.valueOf(300), "retry-1"));
+
+        assertEquals(1, service.getTransactionHistory("CUST1", "pw").size());
+        assertTrue(service.transfer("CUST1", "pw", "CUST2", BigDecimal.valueOf(300), "retry-2"));
+        assertEquals(2, service.getTransactionHistory("CUST1", "pw").size());
+    }
+
+    @Test
+    void transfer_withIdempotencyKeyFromHotSenderCommitsInTheRealUnitOfWork() throws Exception {
+        // Keyed transfers run inside the persistence bundle's unit of work, where rollback()
+        // only marks the unit; the in-memory store above has no unit and cannot show that
+        H2DataSourceProvider provider = TestDataSources.memory();
+        try {
+            try (Connection c = provider.getConnection();
+                 Statement s = c.createStatement()) {
+                TestSchema.recreate(c);
+                s.execute("""
+                    INSERT INTO DEPOSIT_ACCOUNT (ACCOUNT_ID, CUSTOMER_ID, BALANCE, HOT_SLOTS, CREATED_AT) VALUES
+                    ('A1','CUST1',10.00, 2, CURRENT_TIMESTAMP),
+                    ('A2','CUST2',500.00, 0, CURRENT_TIMESTAMP)
+                """);
+                // The row alone cannot cover the transfer, so it has to drain the slots
+                s.execute("INSERT INTO ACCOUNT_BALANCE_SLOT (ACCOUNT_ID, SLOT, AMOUNT) VALUES ('A1', 0, 100.00), ('A1', 1, 100.00)");
+                c.commit();
+            }
+            TransactionServiceImpl keyed = serviceOn(provider);
+
+            assertTrue(keyed.transfer("CUST1", "pw", "CUST2", BigDecimal.valueOf(150), "hot-1"));
+            assertTrue(keyed.transfer("CUST1", "pw", "CUST2", BigDecimal.valueOf(150), "hot-1"));
+
+            try (Connection c = provider.getConnection();
+                 Statement s = c.createStatement();
+                 var rs = s.executeQuery("SELECT (SELECT BALANCE + (SELECT SUM(AMOUNT) FROM ACCOUNT_BALANCE_SLOT) "
+                         + "FROM DEPOSIT_ACCOUNT WHERE ACCOUNT_ID = 'A1'), "
+                         + "(SELECT BALANCE FROM DEPOSIT_ACCOUNT WHERE ACCOUNT_ID = 'A2'), "
+                         + "(SELECT COUNT(*) FROM TRANSACTION)")) {
+                rs.next();
+                assertEquals(new BigDecimal("60.00"), rs.getBigDecimal(1));
+                assertEquals(new BigDecimal("650.00"), rs.getBigDecimal(2));
+                assertEquals(2, rs.getInt(3));
+            }
+        } finally {
+            TestDataSources.stop(provider);
+        }
+    }
+
+    @Test
+    void transfer_retriedWithTheOtherIdentifierIsTheSameTransfer() throws Exception {
+        H2DataSourceProvider provider = TestDataSources.memory();
+        try {
+            try (Connection c = provider.getConnection();
+                 Statement s = c.createStatement()) {
+                TestSchema.recreate(c);
+                s.execute("""
+                    INSERT INTO DEPOSIT_ACCOUNT (ACCOUNT_ID, CUSTOMER_ID, BALANCE, CREATED_AT) VALUES
+                    ('A1','CUST1',1000.00, CURRENT_TIMESTAMP),
+                    ('A2','CUST2',500.00, CURRENT_TIMESTAMP)
+                """);
+                c.commit();
+            }
+            when(customerService.verifyLogin("IC-CUST1", "pw")).thenReturn(true);
+            TransactionServiceImpl keyed = serviceOn(provider);
+
+            assertTrue(keyed.transfer("CUST1", "pw", "CUST2", BigDecimal.valueOf(100), "switch-1"));
+            // Same customer, same key, signed in by identification number this time
+            assertTrue(keyed.transfer("IC-CUST1", "pw", "CUST2", BigDecimal.valueOf(100), "switch-1"));
+            // Another customer cannot claim the key
+            assertFalse(keyed.transfer("CUST2", "pw", "CUST1", BigDecimal.valueOf(100), "switch-1"));
+
+            try (Connection c = provider.getConnection();
+                 Statement s = c.createStatement();
+                 var rs = s.executeQuery("SELECT (SELECT BALANCE FROM DEPOSIT_ACCOUNT WHERE ACCOUNT_ID = 'A1'), "
+                         + "(SELECT COUNT(*) FROM TRANSACTION)")) {
+                rs.next();
+                assertEquals(new BigDecimal("900.00"), rs.getBigDecimal(1));
+                assertEquals(2, rs.getInt(2));
+            }
+        } finally {
+            TestDataSources.stop(provider);
+        }
+    }
+
+    // A service whose connections, units of work and idempotency keys come from the real provider
+    private TransactionServiceImpl serviceOn(H2DataSourceProvider provider) throws Exception {
+        TransactionServiceImpl keyed = new TransactionServiceImpl();
+        inject(keyed, "dataSource", provider);
+        inject(keyed, "customerService", customerService);
+        inject(keyed, "idempotencyStore", provider);
+        inject(keyed, "hotAccounts", new DepositAccountServiceImpl());
+        inject(keyed, "depositAccounts", depositAccounts);
+        return keyed;
+    }
 }
@@ -1,7 +1,9 @@
 package com.bank.support;
 
+import com.bank.api.Customer;
 import com.bank.api.ICustomerService;
 import com.bank.api.ISupportTicketService;
+import com.bank.api.SessionToken;
 import com.bank.api.SupportTicket;
 import com.bank.api.TicketStatus;
 import java.sql.Connection;
@@ -15,7 +17,6 @@ import java.util.List;
 import java.util.Objects;
 import java.util.UUID;
 import javax.sql.DataSource;
-import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Reference;
 
@@ -25,18 +26,10 @@ public class SupportTicketServiceImpl implements ISupportTicketService {
     @Reference
     private ICustomerService customerService;
 
+    // SUPPORT_TICKET is created by the persistence bundle's schema migrations
     @Reference
     private DataSource dataSource;
 
-    @Activate
-    void activate() {
-        try (Connection connection = dataSource.getConnection()) {
-            initSchema(connection);
-        } catch (Exception e) {
-            throw new IllegalStateException("Failed to initialize SupportTicketServiceImpl", e);
-        }
-    }
-
     @Override
     public SupportTicket createTicket(String customerIdNumber, String authPassword, String title, String description) {
         if (isBlank(customerIdNumber) || isBlank(authPassword) || isBlank(description)) {
@@ -54,7 +47,24 @@ public class SupportTicketServiceImpl implements ISupportTicketService {
             System.out.println("Ticket creation failed: customer profile not found for " + customerIdNumber);
             return null;
         }
+        return insertTicket(customer, customerIdNumber, title, description);
+    }
+
+    @Override
+    public SupportTicket createTicket(SessionToken session, String title, String description) {
+        if (session == null || isBlank(description)) {
+            System.out.println("Ticket creation failed: session and description are required.");
+            return null;
+        }
+        Customer customer = customerService.validateSession(session);
+        if (customer == null) {
+            System.out.println("Ticket creation failed: session is invalid or expired");
+            return null;
+        }
+        return insertTicket(customer, customer.getIdentificationNo(), title, description);
+    }
 
+    private SupportTicket insertTicket(Customer customer, String customerIdNumber, String title, String description) {
         LocalDateTime now = LocalDateTime.now();
         String id = UUID.randomUUID().toString();
         String ticketTitle = coalesce(title, "General Inquiry");
@@ -94,6 +104,31 @@ public class SupportTicketServiceImpl implements ISupportTicketService {
             System.out.println("Update failed: invalid customer credentials for ticket " + ticketId);
             return null;
         }
+        return updateDetails(row, title, description);
+    }
+
+    @Override
+    public SupportTicket updateTicketDetails(String ticketId, SessionToken session, String title, String description) {
+        TicketRow row = loadTicket(ticketId);
+        if (row == null) {
+            System.out.println("Update failed: ticket not found for ID " + ticketId);
+            return null;
+        }
+        Customer customer = session == null ? null : customerService.validateSession(session);
+        if (customer == null) {
+            System.out.println("Update failed: session is invalid or expired");
+            return null;
+        }
+        // CUSTOMER_ID holds the owner's customer ID
+        if (!Objects.equals(customer.getId(), row.ticket.getAccountNumber())) {
+            System.out.println("Update failed: ticket " + ticketId + " belongs to another customer");
+            return null;
+        }
+        return updateDetails(row, title, description);
+    }
+
+    private SupportTicket updateDetails(TicketRow row, String title, String description) {
+        String ticketId = row.ticket.getId();
         if (row.ticket.getStatus() == TicketStatus.RESOLVED) {
             System.out.println("Update failed: ticket is already resolved " + ticketId);
             return null;
@@ -238,23 +273,6 @@ public class SupportTicketServiceImpl implements ISupportTicketService {
         return row == null ? null : row.ticket;
     }
 
-    private void initSchema(Connection connection) throws SQLException {
-        String sql = "CREATE TABLE IF NOT EXISTS SUPPORT_TICKET ("
-            + "ID VARCHAR(36) PRIMARY KEY, "
-            + "CUSTOMER_ID VARCHAR(255) NOT NULL, "
-            + "CUSTOMER_IDENTIFICATION VARCHAR(255), "
-            + "TITLE VARCHAR(255) NOT NULL, "
-            + "DESCRIPTION CLOB NOT NULL, "
-            + "ASSIGNED_STAFF_ID VARCHAR(255), "
-            + "STATUS VARCHAR(32) NOT NULL, "
-            + "CREATED_AT TIMESTAMP NOT NULL, "
-            + "UPDATED_AT TIMESTAMP NOT NULL"
-            + ")";
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
-            ps.executeUpdate();
-        }
-    }
-
     private TicketRow loadTicket(String ticketId) {
         String sql = "SELECT ID, CUSTOMER_ID, CUSTOMER_IDENTIFICATION, TITLE, DESCRIPTION, ASSIGNED_STAFF_ID, STATUS, CREATED_AT, UPDATED_AT "
             + "FROM SUPPORT_TICKET WHERE ID = ?";
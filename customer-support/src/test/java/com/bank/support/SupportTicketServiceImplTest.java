@@ -3,12 +3,15 @@ package com.bank.support;
 import static org.junit.jupiter.api.Assertions.*;
 
 import com.bank.api.Customer;
+import com.bank.api.SessionToken;
 import com.bank.api.SupportTicket;
 import com.bank.api.TicketStatus;
 import com.bank.api.ICustomerService;
+import com.bank.persistence.TestSchema;
 import java.lang.reflect.Field;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.time.Instant;
 import java.util.HashMap;
 import java.util.Map;
 import javax.sql.DataSource;
@@ -36,8 +39,7 @@ class SupportTicketServiceImplTest {
         service = new SupportTicketServiceImpl();
         inject(service, "customerService", customerService);
         inject(service, "dataSource", dataSource);
-        service.activate(); // create schema
-        clearTable();
+        createSchema();
     }
 
     @AfterEach
@@ -144,6 +146,25 @@ class SupportTicketServiceImplTest {
         assertNull(rejected);
     }
 
+    @Test
+    void sessionVariants_createAndEditOwnTicketsOnly() {
+        createTicketFor("ID001", "good", "Seed", "Body");
+        createTicketFor("ID002", "other", "Seed", "Body");
+        SessionToken owner = customerService.login("ID001", "good");
+        SessionToken stranger = customerService.login("ID002", "other");
+
+        SupportTicket created = service.createTicket(owner, "Via session", "Body");
+        assertNotNull(created);
+
+        assertNull(service.updateTicketDetails(created.getId(), stranger, "New", "NewDesc"));
+        SupportTicket updated = service.updateTicketDetails(created.getId(), owner, "New", "NewDesc");
+        assertNotNull(updated);
+        assertEquals("New", updated.getTitle());
+
+        customerService.logout(owner);
+        assertNull(service.createTicket(owner, "After logout", "Body"));
+    }
+
     private SupportTicket createTicketFor(String customerId, String password, String title, String description) {
         Customer customer = new Customer();
         customer.setId("cust-" + customerId);
@@ -159,6 +180,12 @@ class SupportTicketServiceImplTest {
         field.set(target, value);
     }
 
+    private void createSchema() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            TestSchema.recreate(connection);
+        }
+    }
+
     private void clearTable() throws SQLException {
         try (Connection connection = dataSource.getConnection()) {
             connection.createStatement().executeUpdate("DELETE FROM SUPPORT_TICKET");
@@ -197,6 +224,29 @@ class SupportTicketServiceImplTest {
             return record != null && record.password.equals(password);
         }
 
+        private final Map<SessionToken, Customer> sessions = new HashMap<>();
+        private int issued;
+
+        @Override
+        public SessionToken login(String id, String password) {
+            if (!verifyLogin(id, password)) {
+                return null;
+            }
+            SessionToken token = new SessionToken("token-" + (++issued), Instant.MAX);
+            sessions.put(token, records.get(id).customer);
+            return token;
+        }
+
+        @Override
+        public Customer validateSession(SessionToken token) {
+            return sessions.get(token);
+        }
+
+        @Override
+        public void logout(SessionToken token) {
+            sessions.remove(token);
+        }
+
         private void put(String key, CustomerRecord record) {
             if (key != null) {
                 records.put(key, record);